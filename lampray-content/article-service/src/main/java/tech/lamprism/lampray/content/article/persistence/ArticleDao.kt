@@ -16,10 +16,13 @@
 
 package tech.lamprism.lampray.content.article.persistence
 
+import org.springframework.data.domain.Pageable
 import org.springframework.data.jpa.repository.Query
 import org.springframework.data.repository.query.Param
 import tech.lamprism.lampray.common.data.CommonDao
 import tech.lamprism.lampray.common.data.Dao
+import tech.lamprism.lampray.content.article.ArticleInfo
+import java.time.OffsetDateTime
 
 /**
  * @author RollW
@@ -28,4 +31,53 @@ import tech.lamprism.lampray.common.data.Dao
 interface ArticleDao : CommonDao<ArticleDo, Long> {
     @Query("FROM ArticleDo a WHERE a.userId = :userId")
     fun findAllByUserId(@Param("userId") userId: Long): List<ArticleDo>
+
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.article.ArticleInfo(" +
+                "a.id, a.userId, a.title, a.cover, a.createTime, a.updateTime) " +
+                "FROM ArticleDo a " +
+                "ORDER BY a.updateTime DESC, a.id DESC"
+    )
+    fun findInfos(pageable: Pageable): List<ArticleInfo>
+
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.article.ArticleInfo(" +
+                "a.id, a.userId, a.title, a.cover, a.createTime, a.updateTime) " +
+                "FROM ArticleDo a " +
+                "WHERE a.updateTime < :updateTime " +
+                "OR (a.updateTime = :updateTime AND a.id < :id) " +
+                "ORDER BY a.updateTime DESC, a.id DESC"
+    )
+    fun findInfosBefore(
+        @Param("updateTime") updateTime: OffsetDateTime,
+        @Param("id") id: Long,
+        pageable: Pageable
+    ): List<ArticleInfo>
+
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.article.ArticleInfo(" +
+                "a.id, a.userId, a.title, a.cover, a.createTime, a.updateTime) " +
+                "FROM ArticleDo a " +
+                "WHERE a.userId = :userId " +
+                "ORDER BY a.updateTime DESC, a.id DESC"
+    )
+    fun findInfosByUserId(
+        @Param("userId") userId: Long,
+        pageable: Pageable
+    ): List<ArticleInfo>
+
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.article.ArticleInfo(" +
+                "a.id, a.userId, a.title, a.cover, a.createTime, a.updateTime) " +
+                "FROM ArticleDo a " +
+                "WHERE a.userId = :userId AND (a.updateTime < :updateTime " +
+                "OR (a.updateTime = :updateTime AND a.id < :id)) " +
+                "ORDER BY a.updateTime DESC, a.id DESC"
+    )
+    fun findInfosByUserIdBefore(
+        @Param("userId") userId: Long,
+        @Param("updateTime") updateTime: OffsetDateTime,
+        @Param("id") id: Long,
+        pageable: Pageable
+    ): List<ArticleInfo>
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import jakarta.persistence.Entity
 import jakarta.persistence.GeneratedValue
 import jakarta.persistence.GenerationType
 import jakarta.persistence.Id
+import jakarta.persistence.Index
 import jakarta.persistence.Lob
 import jakarta.persistence.Table
 import jakarta.persistence.Temporal
@@ -37,7 +38,12 @@ import java.time.OffsetDateTime
  * @author RollW
  */
 @Entity
-@Table(name = "article")
+@Table(
+    name = "article", indexes = [
+        Index(columnList = "update_time, id", name = "index__update_time_id"),
+        Index(columnList = "user_id, update_time, id", name = "index__user_id_update_time_id")
+    ]
+)
 class ArticleDo(
     @Column(name = "id", nullable = false)
     @Id
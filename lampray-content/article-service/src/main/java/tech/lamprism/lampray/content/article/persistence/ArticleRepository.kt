@@ -16,9 +16,13 @@
 
 package tech.lamprism.lampray.content.article.persistence
 
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Pageable
 import org.springframework.data.jpa.domain.Specification
 import org.springframework.stereotype.Repository
 import tech.lamprism.lampray.common.data.CommonRepository
+import tech.lamprism.lampray.content.article.ArticleInfo
+import tech.lamprism.lampray.content.collection.ContentCollectionPageRequest
 import java.util.Optional
 
 /**
@@ -32,6 +36,37 @@ class ArticleRepository(
         return articleDao.findAllByUserId(userId)
     }
 
+    fun findInfos(): List<ArticleInfo> =
+        articleDao.findInfos(Pageable.unpaged())
+
+    fun findInfosByUserId(userId: Long): List<ArticleInfo> =
+        articleDao.findInfosByUserId(userId, Pageable.unpaged())
+
+    /**
+     * Find a page of articles without their content, ordered
+     * by update time then id, the latest first.
+     */
+    fun findInfos(pageRequest: ContentCollectionPageRequest): List<ArticleInfo> {
+        val cursor = pageRequest.cursor
+            ?: return articleDao.findInfos(pageRequest.toPageable())
+        return articleDao.findInfosBefore(
+            cursor.updateTime(), cursor.contentId(),
+            pageRequest.toPageable()
+        )
+    }
+
+    fun findInfosByUserId(
+        userId: Long,
+        pageRequest: ContentCollectionPageRequest
+    ): List<ArticleInfo> {
+        val cursor = pageRequest.cursor
+            ?: return articleDao.findInfosByUserId(userId, pageRequest.toPageable())
+        return articleDao.findInfosByUserIdBefore(
+            userId, cursor.updateTime(), cursor.contentId(),
+            pageRequest.toPageable()
+        )
+    }
+
     fun findByTitle(title: String, userId: Long): Optional<ArticleDo> {
         return articleDao.findOne(createTitleSpecification(title, userId))
     }
@@ -47,4 +82,11 @@ class ArticleRepository(
             )
         }
     }
+
+    private fun ContentCollectionPageRequest.toPageable(): Pageable {
+        if (hasCursor()) {
+            return PageRequest.ofSize(size)
+        }
+        return PageRequest.of(page - 1, size)
+    }
 }
\ No newline at end of file
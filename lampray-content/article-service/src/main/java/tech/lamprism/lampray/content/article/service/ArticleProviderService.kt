@@ -47,6 +47,17 @@ class ArticleProviderService(
             ?: throw ContentException(ContentErrorCode.ERROR_CONTENT_NOT_FOUND)
     }
 
+    override fun getContentDetails(@NonNull contentTraits: Collection<ContentTrait>): List<ContentDetails> {
+        val articleIds = contentTraits
+            .filter { supports(it.contentType) }
+            .map { it.contentId }
+            .distinct()
+        if (articleIds.isEmpty()) {
+            return emptyList()
+        }
+        return articleRepository.findAllById(articleIds).map { it.lock() }
+    }
+
     override fun getContentOperator(@NonNull contentTrait: ContentTrait, checkDelete: Boolean): ContentOperator {
         val article = articleRepository.findById(contentTrait.contentId).orElse(null)
             ?: throw ContentException(ContentErrorCode.ERROR_CONTENT_NOT_FOUND)
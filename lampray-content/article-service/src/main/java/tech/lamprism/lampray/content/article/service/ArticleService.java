@@ -26,9 +26,11 @@ import tech.lamprism.lampray.content.ContentPublisher;
 import tech.lamprism.lampray.content.ContentType;
 import tech.lamprism.lampray.content.UncreatedContent;
 import tech.lamprism.lampray.content.article.Article;
+import tech.lamprism.lampray.content.article.ArticleInfo;
 import tech.lamprism.lampray.content.article.persistence.ArticleDo;
 import tech.lamprism.lampray.content.article.persistence.ArticleRepository;
 import tech.lamprism.lampray.content.collection.ContentCollectionIdentity;
+import tech.lamprism.lampray.content.collection.ContentCollectionPageRequest;
 import tech.lamprism.lampray.content.collection.ContentCollectionProvider;
 import tech.lamprism.lampray.content.collection.ContentCollectionType;
 import tech.lamprism.lampray.content.common.ContentErrorCode;
@@ -86,19 +88,46 @@ public class ArticleService implements ContentPublisher, ContentCollectionProvid
     }
 
     private List<Article> getUserArticles(long id) {
-        return articleRepository.findAllByUserId(id)
+        return articleRepository.findInfosByUserId(id)
                 .stream()
-                .map(ArticleDo::lock)
+                .map(ArticleService::toBodylessArticle)
                 .toList();
     }
 
     private List<Article> getArticles() {
-        return articleRepository.findAll()
+        return articleRepository.findInfos()
                 .stream()
-                .map(ArticleDo::lock)
+                .map(ArticleService::toBodylessArticle)
                 .toList();
     }
 
+    private List<Article> getUserArticles(long id,
+                                          ContentCollectionPageRequest pageRequest) {
+        return articleRepository.findInfosByUserId(id, pageRequest)
+                .stream()
+                .map(ArticleService::toBodylessArticle)
+                .toList();
+    }
+
+    private List<Article> getArticles(ContentCollectionPageRequest pageRequest) {
+        return articleRepository.findInfos(pageRequest)
+                .stream()
+                .map(ArticleService::toBodylessArticle)
+                .toList();
+    }
+
+    /**
+     * Article used for listing, the content is not loaded.
+     */
+    private static Article toBodylessArticle(ArticleInfo articleInfo) {
+        return new Article(
+                articleInfo.id(), articleInfo.userId(),
+                articleInfo.title(), articleInfo.cover(),
+                null,
+                articleInfo.createTime(), articleInfo.updateTime()
+        );
+    }
+
     @Override
     public boolean supportsCollection(ContentCollectionType contentCollectionType) {
         return switch (contentCollectionType) {
@@ -120,4 +149,20 @@ public class ArticleService implements ContentPublisher, ContentCollectionProvid
                     contentCollectionIdentity.getContentCollectionType());
         };
     }
+
+    @NonNull
+    @Override
+    public List<? extends ContentDetails> getContents(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentCollectionPageRequest pageRequest) {
+        return switch (contentCollectionIdentity.getContentCollectionType()) {
+            case ARTICLES -> getArticles(pageRequest);
+            case USER_ARTICLES -> getUserArticles(
+                    contentCollectionIdentity.getContentCollectionId(),
+                    pageRequest
+            );
+            default -> throw new UnsupportedOperationException("Unsupported collection type: " +
+                    contentCollectionIdentity.getContentCollectionType());
+        };
+    }
 }
@@ -22,6 +22,7 @@ dependencies {
     api(project(":lampray-common"))
     api(project(":lampray-common-data"))
     api(project(":lampray-content:content-api"))
+    testImplementation("com.h2database:h2")
 }
 
 description = "lampray-comment-service"
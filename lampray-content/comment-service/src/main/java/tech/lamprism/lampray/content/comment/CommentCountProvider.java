@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment;
+
+import space.lingu.NonNull;
+import tech.lamprism.lampray.content.ContentTrait;
+import tech.lamprism.lampray.content.ContentType;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Provides precomputed numbers of visible comments on contents.
+ *
+ * @author RollW
+ */
+public interface CommentCountProvider {
+    long getCommentCount(@NonNull ContentTrait contentTrait);
+
+    /**
+     * Get the comment counts of many contents of the same type,
+     * keyed by the content id. Contents without comments are
+     * counted as zero.
+     */
+    @NonNull
+    Map<Long, Long> getCommentCounts(@NonNull Collection<Long> contentIds,
+                                     @NonNull ContentType contentType);
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment;
+
+import space.lingu.NonNull;
+import space.lingu.Nullable;
+
+import java.util.List;
+
+/**
+ * A page of comment trees, flattened in the order of a depth-first
+ * traversal, each top-level comment is followed by its loaded replies.
+ * <p>
+ * Nodes are addressed by their index, the parent of a node is
+ * always placed before it.
+ *
+ * @author RollW
+ */
+public final class CommentTree {
+    public static final int NO_PARENT = -1;
+
+    private final List<Comment> comments;
+    private final int[] parentIndexes;
+    private final int[] depths;
+    private final long[] replyCounts;
+    private final int[] loadedReplies;
+
+    public CommentTree(@NonNull List<Comment> comments,
+                       @NonNull int[] parentIndexes,
+                       @NonNull int[] depths,
+                       @NonNull long[] replyCounts,
+                       @NonNull int[] loadedReplies) {
+        this.comments = comments;
+        this.parentIndexes = parentIndexes;
+        this.depths = depths;
+        this.replyCounts = replyCounts;
+        this.loadedReplies = loadedReplies;
+    }
+
+    public int size() {
+        return comments.size();
+    }
+
+    public boolean isEmpty() {
+        return comments.isEmpty();
+    }
+
+    @NonNull
+    public Comment get(int index) {
+        return comments.get(index);
+    }
+
+    @NonNull
+    public List<Comment> getComments() {
+        return comments;
+    }
+
+    /**
+     * Get the index of the parent, or {@link #NO_PARENT} for
+     * a top-level comment.
+     */
+    public int getParentIndex(int index) {
+        return parentIndexes[index];
+    }
+
+    public int getDepth(int index) {
+        return depths[index];
+    }
+
+    public boolean isTopLevel(int index) {
+        return parentIndexes[index] == NO_PARENT;
+    }
+
+    /**
+     * Get the number of replies in the tree of a top-level comment,
+     * 0 for replies.
+     */
+    public long getReplyCount(int index) {
+        return replyCounts[index];
+    }
+
+    /**
+     * Check if the tree of a top-level comment has replies that
+     * are not loaded.
+     */
+    public boolean hasMoreReplies(int index) {
+        return replyCounts[index] > loadedReplies[index];
+    }
+
+    /**
+     * Get the id of the last top-level comment, to load the next page.
+     */
+    @Nullable
+    public Long getCursor() {
+        for (int i = comments.size() - 1; i >= 0; i--) {
+            if (isTopLevel(i)) {
+                return comments.get(i).getId();
+            }
+        }
+        return null;
+    }
+
+    public static CommentTree empty() {
+        return new CommentTree(List.of(), new int[0], new int[0],
+                new long[0], new int[0]);
+    }
+}
@@ -28,6 +28,7 @@ import java.util.List;
  */
 public enum CommentErrorCode implements ErrorCode, ErrorCodeFinder, ErrorCodeMessageProvider {
     ERROR_COMMENT("A2400"),
+    ERROR_PARENT_NOT_FOUND("A2401", 404),
     ;
 
 
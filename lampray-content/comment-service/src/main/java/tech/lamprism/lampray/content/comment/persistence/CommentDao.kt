@@ -16,12 +16,216 @@
 
 package tech.lamprism.lampray.content.comment.persistence
 
+import org.springframework.data.domain.Pageable
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
 import tech.lamprism.lampray.common.data.CommonDao
 import tech.lamprism.lampray.common.data.Dao
+import tech.lamprism.lampray.content.ContentStatus
+import tech.lamprism.lampray.content.ContentType
+import tech.lamprism.lampray.content.comment.CommentStatus
+import java.time.OffsetDateTime
 
 /**
  * @author RollW
  */
 @Dao
 interface CommentDao : CommonDao<CommentDo, Long> {
-}
\ No newline at end of file
+    @Query(
+        "FROM CommentDo c " +
+                "WHERE c.commentOnType = :type AND c.commentOnId = :id " +
+                "AND c.parentId = 0 " +
+                "AND (c.createTime < :time OR (c.createTime = :time AND c.id < :afterId)) " +
+                "ORDER BY c.createTime DESC, c.id DESC"
+    )
+    fun findThreadsByTime(
+        @Param("type") type: ContentType,
+        @Param("id") id: Long,
+        @Param("time") time: OffsetDateTime,
+        @Param("afterId") afterId: Long,
+        pageable: Pageable
+    ): List<CommentDo>
+
+    @Query(
+        "FROM CommentDo c " +
+                "WHERE c.commentOnType = :type AND c.commentOnId = :id " +
+                "AND c.parentId = 0 " +
+                "AND (c.replyCount < :replyCount OR (c.replyCount = :replyCount AND c.id < :afterId)) " +
+                "ORDER BY c.replyCount DESC, c.id DESC"
+    )
+    fun findThreadsByScore(
+        @Param("type") type: ContentType,
+        @Param("id") id: Long,
+        @Param("replyCount") replyCount: Long,
+        @Param("afterId") afterId: Long,
+        pageable: Pageable
+    ): List<CommentDo>
+
+    @Query("FROM CommentDo c WHERE c.userId = :userId")
+    fun findAllByUserId(@Param("userId") userId: Long): List<CommentDo>
+
+    @Query("FROM CommentDo c ORDER BY c.updateTime DESC, c.id DESC")
+    fun findPage(pageable: Pageable): List<CommentDo>
+
+    @Query(
+        "FROM CommentDo c " +
+                "WHERE c.updateTime < :updateTime " +
+                "OR (c.updateTime = :updateTime AND c.id < :id) " +
+                "ORDER BY c.updateTime DESC, c.id DESC"
+    )
+    fun findPageBefore(
+        @Param("updateTime") updateTime: OffsetDateTime,
+        @Param("id") id: Long,
+        pageable: Pageable
+    ): List<CommentDo>
+
+    @Query(
+        "FROM CommentDo c " +
+                "WHERE c.commentOnType = :type AND c.commentOnId = :contentId " +
+                "ORDER BY c.updateTime DESC, c.id DESC"
+    )
+    fun findPageByContent(
+        @Param("type") type: ContentType,
+        @Param("contentId") contentId: Long,
+        pageable: Pageable
+    ): List<CommentDo>
+
+    @Query(
+        "FROM CommentDo c " +
+                "WHERE c.commentOnType = :type AND c.commentOnId = :contentId " +
+                "AND (c.updateTime < :updateTime " +
+                "OR (c.updateTime = :updateTime AND c.id < :id)) " +
+                "ORDER BY c.updateTime DESC, c.id DESC"
+    )
+    fun findPageByContentBefore(
+        @Param("type") type: ContentType,
+        @Param("contentId") contentId: Long,
+        @Param("updateTime") updateTime: OffsetDateTime,
+        @Param("id") id: Long,
+        pageable: Pageable
+    ): List<CommentDo>
+
+    @Query(
+        "FROM CommentDo c WHERE c.userId = :userId " +
+                "ORDER BY c.updateTime DESC, c.id DESC"
+    )
+    fun findPageByUserId(
+        @Param("userId") userId: Long,
+        pageable: Pageable
+    ): List<CommentDo>
+
+    @Query(
+        "FROM CommentDo c " +
+                "WHERE c.userId = :userId AND (c.updateTime < :updateTime " +
+                "OR (c.updateTime = :updateTime AND c.id < :id)) " +
+                "ORDER BY c.updateTime DESC, c.id DESC"
+    )
+    fun findPageByUserIdBefore(
+        @Param("userId") userId: Long,
+        @Param("updateTime") updateTime: OffsetDateTime,
+        @Param("id") id: Long,
+        pageable: Pageable
+    ): List<CommentDo>
+
+    /**
+     * Find the first visible replies of each tree in the order of a
+     * depth-first traversal, ordered by the root id and the path.
+     * A reply is visible if it is not deleted and its metadata is
+     * published.
+     */
+    @Query(
+        value = "SELECT c.* FROM comment c JOIN (" +
+                "SELECT r.id, ROW_NUMBER() OVER (PARTITION BY r.root_id ORDER BY r.path) AS row_num " +
+                "FROM comment r JOIN content_metadata m " +
+                "ON m.content_id = r.id AND m.type = 'COMMENT' " +
+                "WHERE r.root_id IN (:rootIds) AND r.parent_id <> 0 " +
+                "AND r.comment_status = 'NONE' AND m.status = 'PUBLISHED'" +
+                ") ranked ON ranked.id = c.id " +
+                "WHERE ranked.row_num <= :limit " +
+                "ORDER BY c.root_id, c.path",
+        nativeQuery = true
+    )
+    fun findFirstReplies(
+        @Param("rootIds") rootIds: Collection<Long>,
+        @Param("limit") limit: Int
+    ): List<CommentDo>
+
+    /**
+     * Find top-level comments not placed in a tree yet, written
+     * before the tree columns are added.
+     */
+    @Query(
+        "FROM CommentDo c WHERE c.rootId = 0 AND c.parentId = 0 " +
+                "ORDER BY c.id"
+    )
+    fun findUnplacedThreads(pageable: Pageable): List<CommentDo>
+
+    /**
+     * Find replies not placed in a tree yet whose parent is placed.
+     */
+    @Query(
+        "FROM CommentDo c WHERE c.rootId = 0 AND c.parentId <> 0 " +
+                "AND EXISTS (SELECT p.id FROM CommentDo p " +
+                "WHERE p.id = c.parentId AND p.rootId <> 0) " +
+                "ORDER BY c.id"
+    )
+    fun findUnplacedReplies(pageable: Pageable): List<CommentDo>
+
+    /**
+     * Count the visible replies of the trees.
+     */
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.comment.persistence.CommentReplyCount(" +
+                "r.rootId, COUNT(r)) " +
+                "FROM CommentDo r JOIN ContentMetadataDo m " +
+                "ON m.contentId = r.id AND m.contentType = :contentType " +
+                "WHERE r.rootId IN :rootIds AND r.parentId <> 0 " +
+                "AND r.commentStatus = :commentStatus AND m.contentStatus = :contentStatus " +
+                "GROUP BY r.rootId"
+    )
+    fun countVisibleReplies(
+        @Param("rootIds") rootIds: Collection<Long>,
+        @Param("commentStatus") commentStatus: CommentStatus,
+        @Param("contentStatus") contentStatus: ContentStatus,
+        @Param("contentType") contentType: ContentType
+    ): List<CommentReplyCount>
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CommentDo c SET c.replyCount = :replyCount WHERE c.id = :id")
+    fun updateReplyCount(
+        @Param("id") id: Long,
+        @Param("replyCount") replyCount: Long
+    ): Int
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CommentDo c SET c.replyCount = c.replyCount + :delta WHERE c.id = :id")
+    fun increaseReplyCount(
+        @Param("id") id: Long,
+        @Param("delta") delta: Long
+    ): Int
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CommentDo c")
+    fun findMaxId(): Long
+
+    /**
+     * Count the comments in the given comment status whose metadata
+     * is in the given content status.
+     */
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.comment.persistence.ContentCommentCount(" +
+                "c.commentOnId, c.commentOnType, COUNT(c)) " +
+                "FROM CommentDo c JOIN ContentMetadataDo m " +
+                "ON m.contentId = c.id AND m.contentType = :contentType " +
+                "WHERE c.commentStatus = :commentStatus AND m.contentStatus = :contentStatus " +
+                "GROUP BY c.commentOnId, c.commentOnType"
+    )
+    fun countVisible(
+        @Param("commentStatus") commentStatus: CommentStatus,
+        @Param("contentStatus") contentStatus: ContentStatus,
+        @Param("contentType") contentType: ContentType
+    ): List<ContentCommentCount>
+}
@@ -20,11 +20,14 @@ import jakarta.persistence.Column
 import jakarta.persistence.Entity
 import jakarta.persistence.EnumType
 import jakarta.persistence.Enumerated
-import jakarta.persistence.GeneratedValue
-import jakarta.persistence.GenerationType
 import jakarta.persistence.Id
+import jakarta.persistence.Index
 import jakarta.persistence.Lob
+import jakarta.persistence.PostLoad
+import jakarta.persistence.PostPersist
 import jakarta.persistence.Table
+import jakarta.persistence.Transient
+import org.springframework.data.domain.Persistable
 import org.hibernate.annotations.JdbcTypeCode
 import org.hibernate.type.SqlTypes
 import tech.lamprism.lampray.DataEntity
@@ -37,14 +40,37 @@ import tech.lamprism.lampray.content.comment.CommentStatus
 import java.time.OffsetDateTime
 
 /**
+ * Comments are stored as trees, one tree per top-level comment.
+ *
+ * Each comment keeps the id of its top-level comment as [rootId],
+ * and a materialized [path] made of the fixed-width ids of its
+ * ancestors and itself, so sorting the comments of a tree by path
+ * gives the order of a depth-first traversal.
+ *
  * @author RollW
  */
 @Entity
-@Table(name = "comment")
+@Table(
+    name = "comment", indexes = [
+        Index(
+            columnList = "comment_on_type, comment_on_id, parent_id, create_time, id",
+            name = "index__thread_time"
+        ),
+        Index(
+            columnList = "comment_on_type, comment_on_id, parent_id, reply_count, id",
+            name = "index__thread_score"
+        ),
+        Index(columnList = "root_id, path", name = "index__root_path"),
+        Index(
+            columnList = "comment_on_type, comment_on_id, update_time, id",
+            name = "index__comment_on_time"
+        ),
+        Index(columnList = "user_id, update_time, id", name = "index__user_time")
+    ]
+)
 class CommentDo(
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private var id: Long? = null,
 
     @Column(name = "user_id", nullable = false)
@@ -74,10 +100,48 @@ class CommentDo(
     @Column(name = "comment_status", nullable = false, length = 40)
     @Enumerated(EnumType.STRING)
     @JdbcTypeCode(SqlTypes.VARCHAR)
-    var commentStatus: CommentStatus = CommentStatus.NONE
-) : DataEntity<Long>, ContentDetails, ContentAssociated {
+    var commentStatus: CommentStatus = CommentStatus.NONE,
+
+    /**
+     * Id of the top-level comment of the tree, equals to the id
+     * for a top-level comment.
+     */
+    @Column(name = "root_id", nullable = false)
+    var rootId: Long = 0,
+
+    @Column(name = "path", nullable = false, length = 255)
+    var path: String = "",
+
+    /**
+     * Depth in the tree, 0 for a top-level comment.
+     */
+    @Column(name = "depth", nullable = false)
+    var depth: Int = 0,
+
+    /**
+     * Number of visible replies in the tree, only maintained
+     * for top-level comments.
+     */
+    @Column(name = "reply_count", nullable = false)
+    var replyCount: Long = 0
+) : DataEntity<Long>, ContentDetails, ContentAssociated, Persistable<Long> {
+    /**
+     * Ids are assigned before the insert, tells the repository
+     * to insert new comments without a select.
+     */
+    @Transient
+    private var persisted: Boolean = false
+
     override fun getId(): Long? = id
 
+    override fun isNew(): Boolean = !persisted
+
+    @PostLoad
+    @PostPersist
+    fun markPersisted() {
+        persisted = true
+    }
+
     fun setId(id: Long) {
         this.id = id
     }
@@ -118,6 +182,32 @@ class CommentDo(
     override fun getAssociatedContent(): ContentIdentity =
         ContentIdentity.of(commentOnId, commentOnType)
 
+    /**
+     * Place the comment in the tree, under the given parent or as a
+     * top-level comment if the parent is null. The id must be set.
+     *
+     * Comments deeper than [MAX_DEPTH] are placed as the last child
+     * of the ancestor at the maximum depth.
+     */
+    fun placeUnder(parent: CommentDo?) {
+        val id = this.id ?: throw IllegalStateException("Comment id is not set.")
+        if (parent == null) {
+            rootId = id
+            path = pathSegment(id)
+            depth = 0
+            return
+        }
+        rootId = parent.rootId
+        if (parent.depth >= MAX_DEPTH) {
+            path = parent.path.substring(0, parent.path.length - PATH_SEGMENT_LENGTH) +
+                    pathSegment(id)
+            depth = parent.depth
+            return
+        }
+        path = parent.path + pathSegment(id)
+        depth = parent.depth + 1
+    }
+
     fun lock(): Comment = Comment(
         id!!, userId, parentId, content, createTime,
         updateTime, commentOnType, commentOnId, commentStatus
@@ -133,7 +223,11 @@ class CommentDo(
                 "updateTime=$updateTime, " +
                 "commentOnType=$commentOnType, " +
                 "commentOnId=$commentOnId, " +
-                "commentStatus=$commentStatus" +
+                "commentStatus=$commentStatus, " +
+                "rootId=$rootId, " +
+                "path='$path', " +
+                "depth=$depth, " +
+                "replyCount=$replyCount" +
                 ")"
     }
 
@@ -214,6 +308,16 @@ class CommentDo(
     }
 
     companion object {
+        private const val PATH_SEGMENT_LENGTH = 16
+
+        /**
+         * Maximum depth, bounded by the length of the path.
+         */
+        const val MAX_DEPTH = 255 / PATH_SEGMENT_LENGTH - 1
+
+        private fun pathSegment(id: Long): String =
+            java.lang.Long.toHexString(id).padStart(PATH_SEGMENT_LENGTH, '0')
+
         @JvmStatic
         fun builder(): Builder = Builder()
 
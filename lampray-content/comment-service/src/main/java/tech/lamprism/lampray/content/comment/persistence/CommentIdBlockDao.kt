@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.persistence
+
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+
+/**
+ * @author RollW
+ */
+@Dao
+interface CommentIdBlockDao : CommonDao<CommentIdBlockDo, String> {
+    @Modifying
+    @Transactional
+    @Query("UPDATE CommentIdBlockDo b SET b.nextId = b.nextId + :size WHERE b.name = :name")
+    fun advance(
+        @Param("name") name: String,
+        @Param("size") size: Int
+    ): Int
+
+    @Query("SELECT b.nextId FROM CommentIdBlockDo b WHERE b.name = :name")
+    fun findNextId(@Param("name") name: String): Long?
+}
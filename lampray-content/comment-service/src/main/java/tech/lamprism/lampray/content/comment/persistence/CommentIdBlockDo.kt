@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.persistence
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.Id
+import jakarta.persistence.PostLoad
+import jakarta.persistence.PostPersist
+import jakarta.persistence.Table
+import jakarta.persistence.Transient
+import org.springframework.data.domain.Persistable
+import tech.lamprism.lampray.DataEntity
+import tech.lamprism.lampray.TimeAttributed
+import tech.lamprism.lampray.content.comment.CommentResourceKind
+import tech.rollw.common.web.system.SystemResourceKind
+import java.time.OffsetDateTime
+
+/**
+ * Next id to reserve of a kind of ids, ids are reserved in blocks
+ * by advancing it.
+ *
+ * @author RollW
+ */
+@Entity
+@Table(name = "comment_id_block")
+class CommentIdBlockDo(
+    @Id
+    @Column(name = "name", nullable = false, length = 40)
+    private var name: String = "",
+
+    @Column(name = "next_id", nullable = false)
+    var nextId: Long = 1
+) : DataEntity<String>, Persistable<String> {
+    /**
+     * A new row must be inserted rather than merged, or it may
+     * move back the next id reserved by another node.
+     */
+    @Transient
+    private var persisted: Boolean = false
+
+    override fun getId(): String = name
+
+    override fun isNew(): Boolean = !persisted
+
+    @PostLoad
+    @PostPersist
+    fun markPersisted() {
+        persisted = true
+    }
+
+    override fun getCreateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getUpdateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getSystemResourceKind(): SystemResourceKind =
+        CommentResourceKind
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.persistence
+
+import org.springframework.stereotype.Repository
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonRepository
+
+/**
+ * @author RollW
+ */
+@Repository
+class CommentIdBlockRepository(
+    private val commentIdBlockDao: CommentIdBlockDao
+) : CommonRepository<CommentIdBlockDo, String>(commentIdBlockDao) {
+    /**
+     * Reserve a block of ids in its own transaction, so the row
+     * is locked only for the reservation.
+     *
+     * @return the first id of the block, or null if there is
+     * no row of the name.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    fun reserve(name: String, size: Int): Long? {
+        if (commentIdBlockDao.advance(name, size) == 0) {
+            return null
+        }
+        return commentIdBlockDao.findNextId(name)!! - size
+    }
+
+    /**
+     * Insert the row of the name in its own transaction, so the
+     * reservations after it see the row even if the caller's
+     * transaction is not committed.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException
+     * if the row exists.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    fun create(name: String, nextId: Long) {
+        commentIdBlockDao.saveAndFlush(CommentIdBlockDo(name, nextId))
+    }
+}
@@ -16,10 +16,17 @@
 
 package tech.lamprism.lampray.content.comment.persistence
 
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Pageable
 import org.springframework.data.jpa.domain.Specification
 import org.springframework.stereotype.Repository
 import tech.lamprism.lampray.common.data.CommonRepository
+import tech.lamprism.lampray.content.ContentStatus
 import tech.lamprism.lampray.content.ContentType
+import tech.lamprism.lampray.content.collection.ContentCollectionPageRequest
+import tech.lamprism.lampray.content.comment.CommentStatus
+import java.time.OffsetDateTime
+import java.time.ZoneOffset
 
 /**
  * @author RollW
@@ -35,6 +42,126 @@ class CommentRepository(
         return findAll(createContentSpecification(contentId, contentType))
     }
 
+    fun findByUserId(userId: Long): List<CommentDo> =
+        commentDao.findAllByUserId(userId)
+
+    /**
+     * Find top-level comments of the content after the cursor,
+     * from the newest to the oldest.
+     */
+    fun findThreadsByTime(
+        contentId: Long,
+        contentType: ContentType,
+        cursor: CommentDo?,
+        limit: Int
+    ): List<CommentDo> = commentDao.findThreadsByTime(
+        contentType, contentId,
+        cursor?.createTime ?: MAX_TIME,
+        cursor?.id ?: Long.MAX_VALUE,
+        PageRequest.of(0, limit)
+    )
+
+    /**
+     * Find top-level comments of the content after the cursor,
+     * from the most replied to the least.
+     */
+    fun findThreadsByScore(
+        contentId: Long,
+        contentType: ContentType,
+        cursor: CommentDo?,
+        limit: Int
+    ): List<CommentDo> = commentDao.findThreadsByScore(
+        contentType, contentId,
+        cursor?.replyCount ?: Long.MAX_VALUE,
+        cursor?.id ?: Long.MAX_VALUE,
+        PageRequest.of(0, limit)
+    )
+
+    /**
+     * Find a page of all comments, ordered by update time then id,
+     * the latest first.
+     */
+    fun findPage(pageRequest: ContentCollectionPageRequest): List<CommentDo> {
+        val cursor = pageRequest.cursor
+            ?: return commentDao.findPage(pageRequest.toPageable())
+        return commentDao.findPageBefore(
+            cursor.updateTime(), cursor.contentId(),
+            pageRequest.toPageable()
+        )
+    }
+
+    fun findPageByContent(
+        contentId: Long,
+        contentType: ContentType,
+        pageRequest: ContentCollectionPageRequest
+    ): List<CommentDo> {
+        val cursor = pageRequest.cursor
+            ?: return commentDao.findPageByContent(
+                contentType, contentId, pageRequest.toPageable()
+            )
+        return commentDao.findPageByContentBefore(
+            contentType, contentId,
+            cursor.updateTime(), cursor.contentId(),
+            pageRequest.toPageable()
+        )
+    }
+
+    fun findPageByUserId(
+        userId: Long,
+        pageRequest: ContentCollectionPageRequest
+    ): List<CommentDo> {
+        val cursor = pageRequest.cursor
+            ?: return commentDao.findPageByUserId(userId, pageRequest.toPageable())
+        return commentDao.findPageByUserIdBefore(
+            userId, cursor.updateTime(), cursor.contentId(),
+            pageRequest.toPageable()
+        )
+    }
+
+    fun findFirstReplies(rootIds: Collection<Long>, limit: Int): List<CommentDo> {
+        if (rootIds.isEmpty() || limit <= 0) {
+            return emptyList()
+        }
+        return commentDao.findFirstReplies(rootIds, limit)
+    }
+
+    fun findUnplacedThreads(limit: Int): List<CommentDo> =
+        commentDao.findUnplacedThreads(PageRequest.of(0, limit))
+
+    fun findUnplacedReplies(limit: Int): List<CommentDo> =
+        commentDao.findUnplacedReplies(PageRequest.of(0, limit))
+
+    fun countVisibleReplies(rootIds: Collection<Long>): List<CommentReplyCount> {
+        if (rootIds.isEmpty()) {
+            return emptyList()
+        }
+        return commentDao.countVisibleReplies(
+            rootIds, CommentStatus.NONE,
+            ContentStatus.PUBLISHED, ContentType.COMMENT
+        )
+    }
+
+    fun updateReplyCount(rootId: Long, replyCount: Long): Int =
+        commentDao.updateReplyCount(rootId, replyCount)
+
+    fun increaseReplyCount(rootId: Long, delta: Long): Int =
+        commentDao.increaseReplyCount(rootId, delta)
+
+    fun findMaxId(): Long = commentDao.findMaxId()
+
+    fun countVisible(
+        commentStatus: CommentStatus,
+        contentStatus: ContentStatus
+    ): List<ContentCommentCount> =
+        commentDao.countVisible(commentStatus, contentStatus, ContentType.COMMENT)
+
+    private fun ContentCollectionPageRequest.toPageable(): Pageable {
+        if (hasCursor()) {
+            return PageRequest.ofSize(size)
+        }
+        return PageRequest.of(page - 1, size)
+    }
+
     private fun createContentSpecification(
         contentId: Long,
         contentType: ContentType
@@ -44,4 +171,9 @@ class CommentRepository(
             criteriaBuilder.equal(root.get(CommentDo_.commentOnType), contentType)
         )
     }
-}
\ No newline at end of file
+
+    companion object {
+        private val MAX_TIME: OffsetDateTime =
+            OffsetDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC)
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.persistence
+
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+import tech.lamprism.lampray.content.ContentType
+
+/**
+ * @author RollW
+ */
+@Dao
+interface ContentCommentCountDao : CommonDao<ContentCommentCountDo, Long> {
+    @Query(
+        "FROM ContentCommentCountDo c WHERE c.commentOnType = :commentOnType " +
+                "AND c.commentOnId IN :commentOnIds"
+    )
+    fun findByContents(
+        @Param("commentOnType") commentOnType: ContentType,
+        @Param("commentOnIds") commentOnIds: Collection<Long>
+    ): List<ContentCommentCountDo>
+
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE ContentCommentCountDo c SET c.commentCount = c.commentCount + :delta " +
+                "WHERE c.commentOnId = :commentOnId AND c.commentOnType = :commentOnType " +
+                "AND c.rebuildTime <= :since"
+    )
+    fun increase(
+        @Param("commentOnId") commentOnId: Long,
+        @Param("commentOnType") commentOnType: ContentType,
+        @Param("delta") delta: Long,
+        @Param("since") since: Long
+    ): Int
+
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE ContentCommentCountDo c SET c.commentCount = :commentCount, " +
+                "c.rebuildTime = :rebuildTime " +
+                "WHERE c.commentOnId = :commentOnId AND c.commentOnType = :commentOnType"
+    )
+    fun updateRebuilt(
+        @Param("commentOnId") commentOnId: Long,
+        @Param("commentOnType") commentOnType: ContentType,
+        @Param("commentCount") commentCount: Long,
+        @Param("rebuildTime") rebuildTime: Long
+    ): Int
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ContentCommentCountDo c SET c.commentCount = 0, c.rebuildTime = :rebuildTime")
+    fun resetAll(@Param("rebuildTime") rebuildTime: Long): Int
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.persistence
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.EnumType
+import jakarta.persistence.Enumerated
+import jakarta.persistence.GeneratedValue
+import jakarta.persistence.GenerationType
+import jakarta.persistence.Id
+import jakarta.persistence.Table
+import jakarta.persistence.UniqueConstraint
+import org.hibernate.annotations.JdbcTypeCode
+import org.hibernate.type.SqlTypes
+import tech.lamprism.lampray.DataEntity
+import tech.lamprism.lampray.TimeAttributed
+import tech.lamprism.lampray.content.ContentType
+import tech.lamprism.lampray.content.comment.ContentCommentCountResourceKind
+import tech.rollw.common.web.system.SystemResourceKind
+import java.time.OffsetDateTime
+
+/**
+ * Number of visible comments on a content.
+ *
+ * @author RollW
+ */
+@Entity
+@Table(
+    name = "content_comment_count", uniqueConstraints = [
+        UniqueConstraint(
+            columnNames = ["comment_on_id", "comment_on_type"],
+            name = "index__comment_on"
+        )
+    ]
+)
+class ContentCommentCountDo(
+    @Column(name = "id")
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private var id: Long? = null,
+
+    @Column(name = "comment_on_id", nullable = false)
+    var commentOnId: Long = 0,
+
+    @Column(name = "comment_on_type", nullable = false, length = 40)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    var commentOnType: ContentType = ContentType.ARTICLE,
+
+    @Column(name = "comment_count", nullable = false)
+    var commentCount: Long = 0,
+
+    /**
+     * Epoch millis of the last rebuild of the row, deltas collected
+     * before it are contained in the recount.
+     */
+    @Column(name = "rebuild_time", nullable = false)
+    var rebuildTime: Long = 0
+) : DataEntity<Long> {
+    override fun getId(): Long? = id
+
+    fun setId(id: Long?) {
+        this.id = id
+    }
+
+    override fun getCreateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getUpdateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getSystemResourceKind(): SystemResourceKind =
+        ContentCommentCountResourceKind
+}
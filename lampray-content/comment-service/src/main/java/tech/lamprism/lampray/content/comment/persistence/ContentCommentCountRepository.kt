@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.persistence
+
+import org.springframework.stereotype.Repository
+import tech.lamprism.lampray.common.data.CommonRepository
+import tech.lamprism.lampray.content.ContentType
+
+/**
+ * @author RollW
+ */
+@Repository
+class ContentCommentCountRepository(
+    private val contentCommentCountDao: ContentCommentCountDao
+) : CommonRepository<ContentCommentCountDo, Long>(contentCommentCountDao) {
+    fun findByContents(
+        commentOnIds: Collection<Long>,
+        commentOnType: ContentType
+    ): List<ContentCommentCountDo> {
+        if (commentOnIds.isEmpty()) {
+            return emptyList()
+        }
+        return contentCommentCountDao.findByContents(commentOnType, commentOnIds)
+    }
+
+    /**
+     * Increase the comment count of the content by the given
+     * delta, which may be negative.
+     *
+     * @param since epoch millis the delta is collected from.
+     * @return false if there is no row of the content, or the row
+     * is rebuilt after [since] and already contains the delta.
+     */
+    fun increase(commentOnId: Long, commentOnType: ContentType, delta: Long, since: Long): Boolean =
+        contentCommentCountDao.increase(commentOnId, commentOnType, delta, since) > 0
+
+    /**
+     * @return false if there is no row of the content.
+     */
+    fun updateRebuilt(
+        commentOnId: Long,
+        commentOnType: ContentType,
+        commentCount: Long,
+        rebuildTime: Long
+    ): Boolean = contentCommentCountDao.updateRebuilt(
+        commentOnId, commentOnType, commentCount, rebuildTime
+    ) > 0
+
+    /**
+     * Set the counts of all rows to zero before a rebuild.
+     */
+    fun resetAll(rebuildTime: Long) {
+        contentCommentCountDao.resetAll(rebuildTime)
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.service;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.content.Content;
+import tech.lamprism.lampray.content.ContentType;
+import tech.lamprism.lampray.content.comment.Comment;
+import tech.lamprism.lampray.content.comment.persistence.CommentDo;
+import tech.lamprism.lampray.content.comment.persistence.CommentRepository;
+import tech.lamprism.lampray.content.event.ContentStatusEvent;
+
+/**
+ * Applies the metadata status transitions of comments to the
+ * comment counts of the contents they comment on, and to the
+ * reply counts of the trees of replies.
+ *
+ * @author RollW
+ */
+@Component
+public class CommentContentStatusListener
+        implements ApplicationListener<ContentStatusEvent<?>> {
+    private final CommentRepository commentRepository;
+    private final ContentCommentCountService contentCommentCountService;
+
+    public CommentContentStatusListener(CommentRepository commentRepository,
+                                        ContentCommentCountService contentCommentCountService) {
+        this.commentRepository = commentRepository;
+        this.contentCommentCountService = contentCommentCountService;
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ContentStatusEvent<?> event) {
+        Content content = event.getContent();
+        if (content.getContentType() != ContentType.COMMENT) {
+            return;
+        }
+        if (event.getPreviousStatus() != null &&
+                event.getPreviousStatus().isPublicVisitable() ==
+                        event.getCurrentStatus().isPublicVisitable()) {
+            return;
+        }
+        // a published top-level comment is carried by the event, others
+        // only carry the metadata or need the root of their tree
+        if (content instanceof Comment published &&
+                published.getParentId() == CommentService.COMMENT_ROOT_ID) {
+            contentCommentCountService.onContentStatusChanged(
+                    published.getCommentOnId(), published.getCommentOnType(),
+                    published.getCommentStatus(),
+                    event.getPreviousStatus(), event.getCurrentStatus());
+            return;
+        }
+        CommentDo comment = commentRepository.findById(content.getContentId())
+                .orElse(null);
+        if (comment == null) {
+            return;
+        }
+        contentCommentCountService.onContentStatusChanged(
+                comment.getCommentOnId(), comment.getCommentOnType(),
+                comment.getCommentStatus(),
+                event.getPreviousStatus(), event.getCurrentStatus());
+        if (comment.getParentId() == CommentService.COMMENT_ROOT_ID) {
+            return;
+        }
+        long delta = ContentCommentCountService.countOf(comment.getCommentStatus(),
+                event.getCurrentStatus()) -
+                ContentCommentCountService.countOf(comment.getCommentStatus(),
+                        event.getPreviousStatus());
+        if (delta != 0) {
+            commentRepository.increaseReplyCount(comment.getRootId(), delta);
+        }
+    }
+}
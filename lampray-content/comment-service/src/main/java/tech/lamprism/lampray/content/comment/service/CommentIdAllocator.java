@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import tech.lamprism.lampray.content.comment.persistence.CommentIdBlockRepository;
+import tech.lamprism.lampray.content.comment.persistence.CommentRepository;
+
+/**
+ * Allocates comment ids from blocks reserved in the database,
+ * so ids are known before the insert and a block costs one
+ * update for many comments.
+ * <p>
+ * Ids are unique across nodes and increasing within a node,
+ * ids of the unused part of a block are skipped on restart.
+ *
+ * @author RollW
+ */
+@Component
+public class CommentIdAllocator {
+    private static final String BLOCK_NAME = "comment";
+    private static final int BLOCK_SIZE = 100;
+
+    private final CommentIdBlockRepository commentIdBlockRepository;
+    private final CommentRepository commentRepository;
+
+    /**
+     * Ids in [next, limit) are reserved and not allocated yet.
+     */
+    private long next;
+    private long limit;
+
+    public CommentIdAllocator(CommentIdBlockRepository commentIdBlockRepository,
+                              CommentRepository commentRepository) {
+        this.commentIdBlockRepository = commentIdBlockRepository;
+        this.commentRepository = commentRepository;
+    }
+
+    public long allocate() {
+        return allocate(1)[0];
+    }
+
+    public synchronized long[] allocate(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (next >= limit) {
+                int size = Math.max(BLOCK_SIZE, count - i);
+                next = reserve(size);
+                limit = next + size;
+            }
+            ids[i] = next++;
+        }
+        return ids;
+    }
+
+    private long reserve(int size) {
+        Long start = commentIdBlockRepository.reserve(BLOCK_NAME, size);
+        if (start != null) {
+            return start;
+        }
+        // first reservation, continues from the existing comments.
+        try {
+            commentIdBlockRepository.create(BLOCK_NAME,
+                    commentRepository.findMaxId() + 1);
+        } catch (DataIntegrityViolationException e) {
+            // the row is inserted concurrently.
+        }
+        start = commentIdBlockRepository.reserve(BLOCK_NAME, size);
+        if (start == null) {
+            throw new IllegalStateException("Cannot reserve comment ids.");
+        }
+        return start;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.lamprism.lampray.content.comment.service
+
+import org.springframework.stereotype.Service
+import space.lingu.NonNull
+import tech.lamprism.lampray.content.ContentDetails
+import tech.lamprism.lampray.content.ContentOperator
+import tech.lamprism.lampray.content.ContentProvider
+import tech.lamprism.lampray.content.ContentTrait
+import tech.lamprism.lampray.content.ContentType
+import tech.lamprism.lampray.content.comment.Comment
+import tech.lamprism.lampray.content.comment.persistence.CommentRepository
+import tech.lamprism.lampray.content.common.ContentErrorCode
+import tech.lamprism.lampray.content.common.ContentException
+import tech.lamprism.lampray.content.service.ContentMetadataService
+
+/**
+ * @author RollW
+ */
+@Service
+class CommentProviderService(
+    private val commentRepository: CommentRepository,
+    private val contentCommentCountService: ContentCommentCountService,
+    override val contentMetadataService: ContentMetadataService
+) : ContentProvider,
+    CommentOperatorDelegate {
+    override fun supports(@NonNull contentType: ContentType): Boolean {
+        return contentType == ContentType.COMMENT
+    }
+
+    override fun getContentDetails(@NonNull contentTrait: ContentTrait): ContentDetails {
+        val comment = commentRepository.findById(contentTrait.contentId).orElse(null)
+            ?: throw ContentException(ContentErrorCode.ERROR_CONTENT_NOT_FOUND)
+        return comment.lock()
+    }
+
+    override fun getContentDetails(@NonNull contentTraits: Collection<ContentTrait>): List<ContentDetails> {
+        val commentIds = contentTraits
+            .filter { supports(it.contentType) }
+            .map { it.contentId }
+            .distinct()
+        if (commentIds.isEmpty()) {
+            return emptyList()
+        }
+        return commentRepository.findAllById(commentIds).map { it.lock() }
+    }
+
+    override fun getContentOperator(@NonNull contentTrait: ContentTrait, checkDelete: Boolean): ContentOperator {
+        val comment = commentRepository.findById(contentTrait.contentId).orElse(null)
+            ?: throw ContentException(ContentErrorCode.ERROR_CONTENT_NOT_FOUND)
+
+        return CommentOperatorImpl(comment.lock(), this, checkDelete)
+    }
+
+    override fun updateComment(comment: Comment) {
+        // updates the loaded row, Comment does not carry the tree columns
+        val commentDo = commentRepository.findById(comment.id).orElse(null)
+            ?: throw ContentException(ContentErrorCode.ERROR_CONTENT_NOT_FOUND)
+        val previousStatus = commentDo.commentStatus
+        commentDo.setContent(comment.content)
+        commentDo.setUpdateTime(comment.updateTime)
+        commentDo.commentStatus = comment.commentStatus
+        commentRepository.save(commentDo)
+        if (previousStatus == commentDo.commentStatus) {
+            return
+        }
+        val metadata = contentMetadataService.getMetadata(comment)
+        contentCommentCountService.onStatusChanged(
+            commentDo.commentOnId, commentDo.commentOnType,
+            metadata.contentStatus, previousStatus, commentDo.commentStatus
+        )
+        if (commentDo.parentId == CommentService.COMMENT_ROOT_ID.toLong()) {
+            return
+        }
+        val delta = ContentCommentCountService.countOf(commentDo.commentStatus, metadata.contentStatus) -
+                ContentCommentCountService.countOf(previousStatus, metadata.contentStatus)
+        if (delta != 0L) {
+            commentRepository.increaseReplyCount(commentDo.rootId, delta)
+        }
+    }
+}
@@ -24,15 +24,24 @@ import tech.lamprism.lampray.content.ContentPublisher;
 import tech.lamprism.lampray.content.ContentType;
 import tech.lamprism.lampray.content.UncreatedContent;
 import tech.lamprism.lampray.content.collection.ContentCollectionIdentity;
+import tech.lamprism.lampray.content.collection.ContentCollectionPageRequest;
 import tech.lamprism.lampray.content.collection.ContentCollectionProvider;
 import tech.lamprism.lampray.content.collection.ContentCollectionType;
 import tech.lamprism.lampray.content.comment.CommentDetailsMetadata;
+import tech.lamprism.lampray.content.comment.CommentStatus;
+import tech.lamprism.lampray.content.comment.common.CommentErrorCode;
+import tech.lamprism.lampray.content.comment.common.CommentException;
 import tech.lamprism.lampray.content.comment.persistence.CommentDo;
 import tech.lamprism.lampray.content.comment.persistence.CommentRepository;
 import tech.lamprism.lampray.content.common.ContentException;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author RollW
@@ -42,34 +51,101 @@ public class CommentService implements ContentPublisher, ContentCollectionProvid
     public static final int COMMENT_ROOT_ID = 0;
 
     private final CommentRepository commentRepository;
+    private final CommentIdAllocator commentIdAllocator;
 
-    public CommentService(CommentRepository commentRepository) {
+    public CommentService(CommentRepository commentRepository,
+                          CommentIdAllocator commentIdAllocator) {
         this.commentRepository = commentRepository;
+        this.commentIdAllocator = commentIdAllocator;
     }
 
     @Override
     public ContentDetails publish(@NonNull UncreatedContent uncreatedContent,
                                   OffsetDateTime timestamp)
             throws ContentException {
+        return publishAll(List.of(uncreatedContent), timestamp).get(0);
+    }
+
+    /**
+     * Publish the comments with one batch insert. Ids are allocated
+     * up front so the tree columns are written by the insert.
+     */
+    @NonNull
+    @Override
+    public List<ContentDetails> publishAll(@NonNull List<? extends UncreatedContent> uncreatedContents,
+                                           OffsetDateTime timestamp)
+            throws ContentException {
+        List<CommentDetailsMetadata> metadata = uncreatedContents.stream()
+                .map(CommentService::commentMetadataOf)
+                .toList();
+        Map<Long, CommentDo> parents = loadParents(metadata);
+        long[] ids = commentIdAllocator.allocate(uncreatedContents.size());
+        List<CommentDo> comments = new ArrayList<>(uncreatedContents.size());
+        for (int i = 0; i < uncreatedContents.size(); i++) {
+            UncreatedContent uncreatedContent = uncreatedContents.get(i);
+            CommentDetailsMetadata commentDetailsMetadata = metadata.get(i);
+            CommentDo parent = parentOf(commentDetailsMetadata, parents);
+            CommentDo comment = CommentDo
+                    .builder()
+                    .setId(ids[i])
+                    .setUserId(uncreatedContent.getUserId())
+                    .setParentId(parent == null ? COMMENT_ROOT_ID : parent.getId())
+                    .setContent(uncreatedContent.getContent())
+                    .setCreateTime(timestamp)
+                    .setUpdateTime(timestamp)
+                    .setCommentOnId(commentDetailsMetadata.contentId())
+                    .setCommentOnType(commentDetailsMetadata.contentType())
+                    .setCommentStatus(CommentStatus.NONE)
+                    .build();
+            comment.placeUnder(parent);
+            comments.add(comment);
+        }
+        commentRepository.saveAll(comments);
+        return comments.stream()
+                .<ContentDetails>map(CommentDo::lock)
+                .toList();
+    }
+
+    private static CommentDetailsMetadata commentMetadataOf(UncreatedContent uncreatedContent) {
         ContentDetailsMetadata detailsMetadata =
                 uncreatedContent.getMetadata();
         if (!(detailsMetadata instanceof CommentDetailsMetadata commentDetailsMetadata)) {
             throw new IllegalArgumentException("Metadata was not been serialized as comment metadata.");
         }
+        return commentDetailsMetadata;
+    }
+
+    private Map<Long, CommentDo> loadParents(List<CommentDetailsMetadata> metadata) {
+        Set<Long> parentIds = new HashSet<>();
+        for (CommentDetailsMetadata commentDetailsMetadata : metadata) {
+            Long parentId = commentDetailsMetadata.parentId();
+            if (parentId != null && parentId != COMMENT_ROOT_ID) {
+                parentIds.add(parentId);
+            }
+        }
+        if (parentIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, CommentDo> parents = new HashMap<>(parentIds.size());
+        for (CommentDo parent : commentRepository.findAllById(parentIds)) {
+            parents.put(parent.getId(), parent);
+        }
+        return parents;
+    }
 
-        // TODO: check parent id
-        CommentDo comment = CommentDo
-                .builder()
-                .setUserId(uncreatedContent.getUserId())
-                .setParentId(commentDetailsMetadata.parentId())
-                .setContent(uncreatedContent.getContent())
-                .setCreateTime(timestamp)
-                .setUpdateTime(timestamp)
-                .setCommentOnId(commentDetailsMetadata.contentId())
-                .setCommentOnType(commentDetailsMetadata.contentType())
-                .build();
-
-        return commentRepository.save(comment).lock();
+    private static CommentDo parentOf(CommentDetailsMetadata metadata,
+                                      Map<Long, CommentDo> parents) {
+        Long parentId = metadata.parentId();
+        if (parentId == null || parentId == COMMENT_ROOT_ID) {
+            return null;
+        }
+        CommentDo parent = parents.get(parentId);
+        if (parent == null ||
+                parent.getCommentOnId() != metadata.contentId() ||
+                parent.getCommentOnType() != metadata.contentType()) {
+            throw new CommentException(CommentErrorCode.ERROR_PARENT_NOT_FOUND);
+        }
+        return parent;
     }
 
     @Override
@@ -96,6 +172,49 @@ public class CommentService implements ContentPublisher, ContentCollectionProvid
                     contentCollectionIdentity.getContentCollectionId(),
                     ContentType.ARTICLE
             );
+            case POST_COMMENTS -> commentRepository.findByContent(
+                    contentCollectionIdentity.getContentCollectionId(),
+                    ContentType.POST
+            );
+            case USER_COMMENTS -> commentRepository.findByUserId(
+                    contentCollectionIdentity.getContentCollectionId()
+            );
+            default -> throw new UnsupportedOperationException("Unsupported collection type: " +
+                    contentCollectionIdentity.getContentCollectionType());
+        };
+    }
+
+    @NonNull
+    @Override
+    public List<? extends ContentDetails> getContents(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentCollectionPageRequest pageRequest) {
+        return getCommentsBy(contentCollectionIdentity, pageRequest)
+                .stream()
+                .map(CommentDo::lock)
+                .toList();
+    }
+
+    @NonNull
+    public List<CommentDo> getCommentsBy(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentCollectionPageRequest pageRequest) {
+        return switch (contentCollectionIdentity.getContentCollectionType()) {
+            case COMMENTS -> commentRepository.findPage(pageRequest);
+            case ARTICLE_COMMENTS -> commentRepository.findPageByContent(
+                    contentCollectionIdentity.getContentCollectionId(),
+                    ContentType.ARTICLE,
+                    pageRequest
+            );
+            case POST_COMMENTS -> commentRepository.findPageByContent(
+                    contentCollectionIdentity.getContentCollectionId(),
+                    ContentType.POST,
+                    pageRequest
+            );
+            case USER_COMMENTS -> commentRepository.findPageByUserId(
+                    contentCollectionIdentity.getContentCollectionId(),
+                    pageRequest
+            );
             default -> throw new UnsupportedOperationException("Unsupported collection type: " +
                     contentCollectionIdentity.getContentCollectionType());
         };
@@ -104,7 +223,7 @@ public class CommentService implements ContentPublisher, ContentCollectionProvid
     @Override
     public boolean supportsCollection(@NonNull ContentCollectionType contentCollectionType) {
         return switch (contentCollectionType) {
-            case COMMENTS, ARTICLE_COMMENTS -> true;
+            case COMMENTS, ARTICLE_COMMENTS, POST_COMMENTS, USER_COMMENTS -> true;
             default -> false;
         };
     }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.lamprism.lampray.content.comment.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.content.comment.persistence.CommentDo;
+import tech.lamprism.lampray.content.comment.persistence.CommentReplyCount;
+import tech.lamprism.lampray.content.comment.persistence.CommentRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Places the comments written before the tree columns are added
+ * into their trees on startup, and recounts the replies of the
+ * trees it touches.
+ * <p>
+ * Such comments have no root id. Top-level comments are placed
+ * first, then replies level by level once their parent is placed.
+ * Nothing is loaded when all comments are placed.
+ *
+ * @author RollW
+ */
+@Component
+public class CommentTreeBackfill implements ApplicationListener<ApplicationReadyEvent> {
+    private static final Logger logger = LoggerFactory.getLogger(CommentTreeBackfill.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final CommentRepository commentRepository;
+
+    public CommentTreeBackfill(CommentRepository commentRepository) {
+        this.commentRepository = commentRepository;
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        Set<Long> rootIds = new LinkedHashSet<>();
+        placeThreads(rootIds);
+        placeReplies(rootIds);
+        if (rootIds.isEmpty()) {
+            return;
+        }
+        recountReplies(rootIds);
+        logger.info("Placed comments of {} trees written before the tree columns.",
+                rootIds.size());
+    }
+
+    private void placeThreads(Set<Long> rootIds) {
+        List<CommentDo> threads;
+        while (!(threads = commentRepository.findUnplacedThreads(BATCH_SIZE)).isEmpty()) {
+            for (CommentDo thread : threads) {
+                thread.placeUnder(null);
+                rootIds.add(thread.getId());
+            }
+            commentRepository.saveAll(threads);
+        }
+    }
+
+    private void placeReplies(Set<Long> rootIds) {
+        List<CommentDo> replies;
+        while (!(replies = commentRepository.findUnplacedReplies(BATCH_SIZE)).isEmpty()) {
+            Set<Long> parentIds = new HashSet<>();
+            for (CommentDo reply : replies) {
+                parentIds.add(reply.getParentId());
+            }
+            Map<Long, CommentDo> parents = new HashMap<>(parentIds.size());
+            for (CommentDo parent : commentRepository.findAllById(parentIds)) {
+                parents.put(parent.getId(), parent);
+            }
+            for (CommentDo reply : replies) {
+                reply.placeUnder(parents.get(reply.getParentId()));
+                rootIds.add(reply.getRootId());
+            }
+            commentRepository.saveAll(replies);
+        }
+    }
+
+    private void recountReplies(Set<Long> rootIds) {
+        List<Long> batch = new ArrayList<>(BATCH_SIZE);
+        for (Long rootId : rootIds) {
+            batch.add(rootId);
+            if (batch.size() == BATCH_SIZE) {
+                recountBatch(batch);
+                batch.clear();
+            }
+        }
+        recountBatch(batch);
+    }
+
+    private void recountBatch(List<Long> rootIds) {
+        Map<Long, Long> counts = new HashMap<>(rootIds.size());
+        for (CommentReplyCount count : commentRepository.countVisibleReplies(rootIds)) {
+            counts.put(count.getRootId(), count.getCount());
+        }
+        for (Long rootId : rootIds) {
+            commentRepository.updateReplyCount(rootId, counts.getOrDefault(rootId, 0L));
+        }
+    }
+}
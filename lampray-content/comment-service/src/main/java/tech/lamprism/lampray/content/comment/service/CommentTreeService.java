@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.service;
+
+import org.springframework.stereotype.Service;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.content.ContentAccessCredentials;
+import tech.lamprism.lampray.content.ContentAccessService;
+import tech.lamprism.lampray.content.ContentIdentity;
+import tech.lamprism.lampray.content.ContentMetadata;
+import tech.lamprism.lampray.content.ContentTrait;
+import tech.lamprism.lampray.content.ContentType;
+import tech.lamprism.lampray.content.comment.Comment;
+import tech.lamprism.lampray.content.comment.CommentStatus;
+import tech.lamprism.lampray.content.comment.CommentThreadOrder;
+import tech.lamprism.lampray.content.comment.CommentTree;
+import tech.lamprism.lampray.content.comment.persistence.CommentDo;
+import tech.lamprism.lampray.content.comment.persistence.CommentRepository;
+import tech.lamprism.lampray.content.common.ContentErrorCode;
+import tech.lamprism.lampray.content.common.ContentException;
+import tech.lamprism.lampray.content.service.ContentMetadataService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads pages of comment trees of a content.
+ * <p>
+ * A page takes two bounded queries, one for the top-level comments
+ * and one for the first replies of all of them, then the trees are
+ * assembled in a single pass.
+ * <p>
+ * Only published comments are shown, hidden top-level comments are
+ * skipped by loading more batches. Hidden replies are skipped by the
+ * reply query, replies under a hidden reply are hidden with it and
+ * more replies are loaded for the trees they leave short.
+ *
+ * @author RollW
+ */
+@Service
+public class CommentTreeService {
+    public static final int DEFAULT_THREAD_LIMIT = 20;
+    public static final int MAX_THREAD_LIMIT = 100;
+    public static final int DEFAULT_REPLY_LIMIT = 3;
+    public static final int MAX_REPLY_LIMIT = 50;
+    /**
+     * Maximum replies loaded for a tree while looking for replies
+     * not under a hidden reply.
+     */
+    private static final int MAX_REPLY_FETCH = MAX_REPLY_LIMIT * 4;
+
+    private final CommentRepository commentRepository;
+    private final ContentMetadataService contentMetadataService;
+    private final ContentAccessService contentAccessService;
+
+    public CommentTreeService(CommentRepository commentRepository,
+                              ContentMetadataService contentMetadataService,
+                              ContentAccessService contentAccessService) {
+        this.commentRepository = commentRepository;
+        this.contentMetadataService = contentMetadataService;
+        this.contentAccessService = contentAccessService;
+    }
+
+    /**
+     * Get a page of comment trees of the content, throws if the
+     * content cannot be accessed with the credentials.
+     *
+     * @param afterId     id of the last top-level comment of the
+     *                    previous page, 0 for the first page
+     * @param threadLimit maximum number of top-level comments
+     * @param replyLimit  maximum number of replies for each
+     *                    top-level comment
+     */
+    @NonNull
+    public CommentTree getCommentTree(long contentId,
+                                      @NonNull ContentType contentType,
+                                      @NonNull ContentAccessCredentials credentials,
+                                      @NonNull CommentThreadOrder order,
+                                      long afterId,
+                                      int threadLimit,
+                                      int replyLimit) {
+        // throws if the content is not accessible
+        contentAccessService.openContent(
+                ContentIdentity.of(contentId, contentType), credentials);
+        CommentDo cursor = afterId > 0 ? loadCursor(afterId, contentId, contentType) : null;
+        int boundedThreadLimit = Math.min(Math.max(threadLimit, 1), MAX_THREAD_LIMIT);
+        int boundedReplyLimit = Math.min(Math.max(replyLimit, 0), MAX_REPLY_LIMIT);
+        List<CommentDo> threads = new ArrayList<>(boundedThreadLimit);
+        while (threads.size() < boundedThreadLimit) {
+            List<CommentDo> batch = findThreads(order, contentId, contentType,
+                    cursor, boundedThreadLimit);
+            for (CommentDo thread : filterVisible(batch)) {
+                if (threads.size() < boundedThreadLimit) {
+                    threads.add(thread);
+                }
+            }
+            if (batch.size() < boundedThreadLimit) {
+                break;
+            }
+            cursor = batch.get(batch.size() - 1);
+        }
+        if (threads.isEmpty()) {
+            return CommentTree.empty();
+        }
+        List<Long> rootIds = new ArrayList<>(threads.size());
+        for (CommentDo thread : threads) {
+            rootIds.add(thread.getId());
+        }
+        List<CommentDo> replies = findReplies(rootIds, boundedReplyLimit);
+        return assemble(threads, replies, boundedReplyLimit);
+    }
+
+    private List<CommentDo> findThreads(CommentThreadOrder order,
+                                        long contentId, ContentType contentType,
+                                        CommentDo cursor, int limit) {
+        return switch (order) {
+            case LATEST -> commentRepository.findThreadsByTime(
+                    contentId, contentType, cursor, limit);
+            case SCORE -> commentRepository.findThreadsByScore(
+                    contentId, contentType, cursor, limit);
+        };
+    }
+
+    /**
+     * Find the first visible replies of the trees, ordered by the
+     * root id and the path. If the loaded replies of a tree fill the
+     * fetch but fewer than the limit can be shown, because some are
+     * under a hidden reply, twice as many are loaded for it again.
+     */
+    private List<CommentDo> findReplies(List<Long> rootIds, int limit) {
+        Map<Long, List<CommentDo>> repliesByRoot = new HashMap<>();
+        Collection<Long> pending = rootIds;
+        int fetch = limit;
+        while (!pending.isEmpty()) {
+            Map<Long, List<CommentDo>> loaded = new HashMap<>();
+            for (CommentDo reply : commentRepository.findFirstReplies(pending, fetch)) {
+                loaded.computeIfAbsent(reply.getRootId(), key -> new ArrayList<>())
+                        .add(reply);
+            }
+            List<Long> shortRoots = new ArrayList<>();
+            for (Long rootId : pending) {
+                List<CommentDo> replies = loaded.getOrDefault(rootId, List.of());
+                repliesByRoot.put(rootId, replies);
+                if (replies.size() == fetch && fetch < MAX_REPLY_FETCH &&
+                        countShown(rootId, replies) < limit) {
+                    shortRoots.add(rootId);
+                }
+            }
+            pending = shortRoots;
+            fetch = Math.min(fetch * 2, MAX_REPLY_FETCH);
+        }
+        List<CommentDo> replies = new ArrayList<>();
+        for (Long rootId : rootIds) {
+            replies.addAll(repliesByRoot.get(rootId));
+        }
+        return replies;
+    }
+
+    /**
+     * Count the replies whose parent is shown, the replies must be
+     * ordered by the path.
+     */
+    private static int countShown(long rootId, List<CommentDo> replies) {
+        Set<Long> shown = new HashSet<>();
+        shown.add(rootId);
+        for (CommentDo reply : replies) {
+            if (shown.contains(reply.getParentId())) {
+                shown.add(reply.getId());
+            }
+        }
+        return shown.size() - 1;
+    }
+
+    /**
+     * Keep the comments not deleted and whose metadata is publicly
+     * visible, in their original order.
+     */
+    private List<CommentDo> filterVisible(List<CommentDo> comments) {
+        if (comments.isEmpty()) {
+            return comments;
+        }
+        List<ContentTrait> traits = new ArrayList<>(comments.size());
+        for (CommentDo comment : comments) {
+            traits.add(ContentIdentity.of(comment.getId(), ContentType.COMMENT));
+        }
+        Set<Long> visibleIds = new HashSet<>();
+        for (ContentMetadata metadata : contentMetadataService.getMetadata(traits)) {
+            if (metadata.getContentStatus().isPublicVisitable()) {
+                visibleIds.add(metadata.getContentId());
+            }
+        }
+        List<CommentDo> visible = new ArrayList<>(visibleIds.size());
+        for (CommentDo comment : comments) {
+            if (comment.getCommentStatus() == CommentStatus.NONE &&
+                    visibleIds.contains(comment.getId())) {
+                visible.add(comment);
+            }
+        }
+        return visible;
+    }
+
+    private CommentDo loadCursor(long afterId, long contentId, ContentType contentType) {
+        CommentDo cursor = commentRepository.findById(afterId).orElse(null);
+        if (cursor == null || cursor.getParentId() != 0 ||
+                cursor.getCommentOnId() != contentId ||
+                cursor.getCommentOnType() != contentType) {
+            throw new ContentException(ContentErrorCode.ERROR_CONTENT_NOT_FOUND);
+        }
+        return cursor;
+    }
+
+    /**
+     * Assemble the trees, replies must be ordered by their root
+     * id and path, so a parent always comes before its replies.
+     * Replies whose parent is not shown are skipped, at most the
+     * limit of replies are shown for each tree.
+     */
+    private static CommentTree assemble(List<CommentDo> threads,
+                                        List<CommentDo> replies,
+                                        int replyLimit) {
+        // start of the replies of each root, replies of a root are contiguous
+        Map<Long, Integer> replyStarts = new HashMap<>();
+        for (int i = replies.size() - 1; i >= 0; i--) {
+            replyStarts.put(replies.get(i).getRootId(), i);
+        }
+
+        int size = threads.size() + replies.size();
+        List<Comment> comments = new ArrayList<>(size);
+        int[] parentIndexes = new int[size];
+        int[] depths = new int[size];
+        long[] replyCounts = new long[size];
+        int[] loadedReplies = new int[size];
+        Map<Long, Integer> indexes = new HashMap<>(size * 2);
+
+        for (CommentDo thread : threads) {
+            int threadIndex = comments.size();
+            comments.add(thread.lock());
+            parentIndexes[threadIndex] = CommentTree.NO_PARENT;
+            replyCounts[threadIndex] = thread.getReplyCount();
+            indexes.put(thread.getId(), threadIndex);
+
+            Integer start = replyStarts.get(thread.getId());
+            if (start == null) {
+                continue;
+            }
+            int loaded = 0;
+            for (int i = start; i < replies.size(); i++) {
+                CommentDo reply = replies.get(i);
+                if (reply.getRootId() != thread.getId() || loaded >= replyLimit) {
+                    break;
+                }
+                Integer parentIndex = indexes.get(reply.getParentId());
+                if (parentIndex == null) {
+                    continue;
+                }
+                int index = comments.size();
+                comments.add(reply.lock());
+                parentIndexes[index] = parentIndex;
+                depths[index] = reply.getDepth();
+                indexes.put(reply.getId(), index);
+                loaded++;
+            }
+            loadedReplies[threadIndex] = loaded;
+        }
+        return new CommentTree(comments, parentIndexes, depths,
+                replyCounts, loadedReplies);
+    }
+}
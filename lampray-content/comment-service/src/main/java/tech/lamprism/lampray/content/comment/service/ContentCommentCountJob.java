@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flushes the accumulated comment counts, and recounts them
+ * daily to repair the drift of the incremental updates.
+ *
+ * @author RollW
+ */
+@Component
+public class ContentCommentCountJob {
+    private final ContentCommentCountService contentCommentCountService;
+
+    public ContentCommentCountJob(ContentCommentCountService contentCommentCountService) {
+        this.contentCommentCountService = contentCommentCountService;
+    }
+
+    @Scheduled(fixedDelay = 5000)
+    public void flush() {
+        contentCommentCountService.flush();
+    }
+
+    @Scheduled(cron = "0 45 3 * * *")
+    public void rebuild() {
+        contentCommentCountService.rebuild();
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import space.lingu.NonNull;
+import space.lingu.Nullable;
+import tech.lamprism.lampray.content.ContentStatus;
+import tech.lamprism.lampray.content.ContentTrait;
+import tech.lamprism.lampray.content.ContentType;
+import tech.lamprism.lampray.content.comment.CommentCountProvider;
+import tech.lamprism.lampray.content.comment.CommentStatus;
+import tech.lamprism.lampray.content.comment.persistence.CommentRepository;
+import tech.lamprism.lampray.content.comment.persistence.ContentCommentCount;
+import tech.lamprism.lampray.content.comment.persistence.ContentCommentCountDo;
+import tech.lamprism.lampray.content.comment.persistence.ContentCommentCountRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains the numbers of visible comments on contents.
+ * <p>
+ * Status transitions of comments, both the comment status and the
+ * status of the metadata, are accumulated in memory and
+ * flushed to the {@code content_comment_count} table periodically,
+ * so a burst of comments on the same content costs few updates.
+ * {@link #rebuild()} recounts everything from the comments for repair.
+ * <p>
+ * Deltas are collected in generations of about a second, each
+ * tagged with the time it starts. A rebuilt row drops the deltas
+ * of generations started before the rebuild, as the recount
+ * already contains them, no matter which node flushes them.
+ *
+ * @author RollW
+ */
+@Service
+public class ContentCommentCountService implements CommentCountProvider, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ContentCommentCountService.class);
+    private static final long GENERATION_MILLIS = 1000;
+
+    private final ContentCommentCountRepository contentCommentCountRepository;
+    private final CommentRepository commentRepository;
+
+    /**
+     * Generation the deltas are added to.
+     */
+    private volatile Generation current = new Generation(System.currentTimeMillis());
+    /**
+     * Generations not flushed yet, oldest first.
+     */
+    private final Queue<Generation> sealedGenerations = new ConcurrentLinkedQueue<>();
+
+    public ContentCommentCountService(ContentCommentCountRepository contentCommentCountRepository,
+                                      CommentRepository commentRepository) {
+        this.contentCommentCountRepository = contentCommentCountRepository;
+        this.commentRepository = commentRepository;
+    }
+
+    /**
+     * Includes the changes of this node that are not flushed yet.
+     */
+    @Override
+    public long getCommentCount(@NonNull ContentTrait contentTrait) {
+        return getCommentCounts(List.of(contentTrait.getContentId()),
+                contentTrait.getContentType())
+                .get(contentTrait.getContentId());
+    }
+
+    @NonNull
+    @Override
+    public Map<Long, Long> getCommentCounts(@NonNull Collection<Long> contentIds,
+                                            @NonNull ContentType contentType) {
+        Map<Long, Long> counts = new HashMap<>(contentIds.size());
+        for (ContentCommentCountDo row :
+                contentCommentCountRepository.findByContents(contentIds, contentType)) {
+            counts.put(row.getCommentOnId(), row.getCommentCount());
+        }
+        for (Long contentId : contentIds) {
+            CommentTarget target = new CommentTarget(contentId, contentType);
+            long count = counts.getOrDefault(contentId, 0L) + current.pending(target);
+            for (Generation generation : sealedGenerations) {
+                count += generation.pending(target);
+            }
+            counts.put(contentId, Math.max(count, 0));
+        }
+        return counts;
+    }
+
+    /**
+     * Apply a status transition of a comment to the count of
+     * the content it comments on.
+     *
+     * @param contentStatus the current status of the comment's metadata.
+     */
+    public void onStatusChanged(long commentOnId,
+                                @NonNull ContentType commentOnType,
+                                @NonNull ContentStatus contentStatus,
+                                @NonNull CommentStatus previousStatus,
+                                @NonNull CommentStatus currentStatus) {
+        apply(new CommentTarget(commentOnId, commentOnType),
+                countOf(currentStatus, contentStatus) -
+                        countOf(previousStatus, contentStatus));
+    }
+
+    /**
+     * Apply a transition of the metadata status of a comment, like
+     * the comment being published, reviewed, forbidden or deleted.
+     *
+     * @param previousStatus null if the comment is just created.
+     */
+    public void onContentStatusChanged(long commentOnId,
+                                       @NonNull ContentType commentOnType,
+                                       @NonNull CommentStatus commentStatus,
+                                       @Nullable ContentStatus previousStatus,
+                                       @NonNull ContentStatus currentStatus) {
+        apply(new CommentTarget(commentOnId, commentOnType),
+                countOf(commentStatus, currentStatus) -
+                        countOf(commentStatus, previousStatus));
+    }
+
+    private void apply(CommentTarget target, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(target, delta);
+            return;
+        }
+        // a rolled back change must not be counted
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(target, delta);
+            }
+        });
+    }
+
+    private void add(CommentTarget target, long delta) {
+        while (delta != 0) {
+            Generation generation = currentGeneration();
+            LongAdder adder = generation.deltas.computeIfAbsent(target, key -> new LongAdder());
+            adder.add(delta);
+            if (!generation.sealed) {
+                return;
+            }
+            // sealed concurrently, takes back what the flush did not
+            // see and retries with the next generation.
+            delta = adder.sumThenReset();
+        }
+    }
+
+    private Generation currentGeneration() {
+        Generation generation = current;
+        if (System.currentTimeMillis() - generation.since < GENERATION_MILLIS) {
+            return generation;
+        }
+        return rotate(generation);
+    }
+
+    private synchronized Generation rotate(Generation expected) {
+        if (current != expected) {
+            return current;
+        }
+        Generation next = new Generation(System.currentTimeMillis());
+        expected.sealed = true;
+        current = next;
+        sealedGenerations.add(expected);
+        return next;
+    }
+
+    /**
+     * Write the accumulated deltas to the database, failed ones
+     * are kept for the next flush.
+     */
+    public void flush() {
+        rotate(current);
+        List<Generation> failedGenerations = new ArrayList<>();
+        int failed = 0;
+        Generation generation;
+        while ((generation = sealedGenerations.poll()) != null) {
+            Generation retry = new Generation(generation.since);
+            retry.sealed = true;
+            for (Map.Entry<CommentTarget, LongAdder> entry : generation.deltas.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta == 0) {
+                    continue;
+                }
+                try {
+                    increase(entry.getKey(), delta, generation.since);
+                } catch (RuntimeException e) {
+                    // keeps the time, a rebuild in between still drops it
+                    retry.deltas.computeIfAbsent(entry.getKey(), key -> new LongAdder())
+                            .add(delta);
+                    failed++;
+                    logger.debug("Failed to flush comment count of {}.", entry.getKey(), e);
+                }
+            }
+            if (!retry.deltas.isEmpty()) {
+                failedGenerations.add(retry);
+            }
+        }
+        sealedGenerations.addAll(failedGenerations);
+        if (failed > 0) {
+            logger.warn("Failed to flush comment counts of {} contents, retry later.", failed);
+        }
+    }
+
+    private void increase(CommentTarget target, long delta, long since) {
+        try {
+            if (!contentCommentCountRepository.increase(
+                    target.commentOnId(), target.commentOnType(), delta, since)) {
+                contentCommentCountRepository.save(new ContentCommentCountDo(
+                        null, target.commentOnId(), target.commentOnType(),
+                        Math.max(delta, 0), 0));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // the row is inserted concurrently or rebuilt after the
+            // generation, retries the update which skips a rebuilt row.
+            contentCommentCountRepository.increase(
+                    target.commentOnId(), target.commentOnType(), delta, since);
+        }
+    }
+
+    /**
+     * Recount the visible comments of all contents.
+     * <p>
+     * Pending deltas on any node are left in place, the generations
+     * started before the rebuild are dropped when flushed to a rebuilt
+     * row, later ones are applied on top of the recount.
+     */
+    @Transactional
+    public void rebuild() {
+        long rebuildTime = System.currentTimeMillis();
+        // deltas from now on go to a generation not older than the rebuild
+        rotate(current);
+        List<ContentCommentCount> counts =
+                commentRepository.countVisible(CommentStatus.NONE, ContentStatus.PUBLISHED);
+        contentCommentCountRepository.resetAll(rebuildTime);
+        List<ContentCommentCountDo> inserts = new ArrayList<>();
+        for (ContentCommentCount count : counts) {
+            if (!contentCommentCountRepository.updateRebuilt(count.getCommentOnId(),
+                    count.getCommentOnType(), count.getCount(), rebuildTime)) {
+                inserts.add(new ContentCommentCountDo(null, count.getCommentOnId(),
+                        count.getCommentOnType(), count.getCount(), rebuildTime));
+            }
+        }
+        contentCommentCountRepository.saveAll(inserts);
+        logger.info("Rebuilt comment counts of contents, {} rows.", counts.size());
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * A comment is visible when it is not deleted by its comment
+     * status and its metadata is published.
+     */
+    static long countOf(@NonNull CommentStatus commentStatus,
+                       @Nullable ContentStatus contentStatus) {
+        return commentStatus == CommentStatus.NONE &&
+                contentStatus != null &&
+                contentStatus.isPublicVisitable() ? 1 : 0;
+    }
+
+    private record CommentTarget(long commentOnId, ContentType commentOnType) {
+    }
+
+    private static final class Generation {
+        /**
+         * Epoch millis the generation starts, no delta in it is
+         * added earlier.
+         */
+        private final long since;
+        private final ConcurrentMap<CommentTarget, LongAdder> deltas =
+                new ConcurrentHashMap<>();
+        private volatile boolean sealed;
+
+        private Generation(long since) {
+            this.since = since;
+        }
+
+        private long pending(CommentTarget target) {
+            LongAdder adder = deltas.get(target);
+            return adder == null ? 0 : adder.sum();
+        }
+    }
+}
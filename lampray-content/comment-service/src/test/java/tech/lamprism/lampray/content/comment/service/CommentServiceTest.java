@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.comment.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import tech.lamprism.lampray.content.ContentDetails;
+import tech.lamprism.lampray.content.ContentType;
+import tech.lamprism.lampray.content.SimpleUncreatedContent;
+import tech.lamprism.lampray.content.comment.CommentDetailsMetadata;
+import tech.lamprism.lampray.content.comment.persistence.CommentIdBlockDao;
+import tech.lamprism.lampray.content.comment.persistence.CommentIdBlockDo;
+import tech.lamprism.lampray.content.comment.persistence.CommentIdBlockRepository;
+import tech.lamprism.lampray.content.comment.persistence.CommentRepository;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Publishes comments in a transaction of the test, as the content
+ * service does, against an empty comment_id_block table.
+ *
+ * @author RollW
+ */
+@DataJpaTest
+class CommentServiceTest {
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentIdBlockRepository commentIdBlockRepository;
+
+    @MockitoBean
+    private CommentRepository commentRepository;
+
+    @Test
+    void publishWithEmptyIdBlock() {
+        ContentDetails first = commentService.publish(comment(), OffsetDateTime.now());
+        ContentDetails second = commentService.publish(comment(), OffsetDateTime.now());
+
+        assertEquals(1, first.getContentId());
+        assertEquals(2, second.getContentId());
+        CommentIdBlockDo block = commentIdBlockRepository.findById("comment").orElseThrow();
+        assertEquals(101, block.getNextId());
+    }
+
+    private static SimpleUncreatedContent comment() {
+        return new SimpleUncreatedContent(ContentType.COMMENT, 1L, null, "comment",
+                new CommentDetailsMetadata(ContentType.ARTICLE, 1L, null));
+    }
+
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = CommentIdBlockDo.class)
+    @EnableJpaRepositories(
+            basePackageClasses = CommentIdBlockDao.class,
+            includeFilters = @ComponentScan.Filter(
+                    type = FilterType.ASSIGNABLE_TYPE,
+                    classes = CommentIdBlockDao.class
+            )
+    )
+    @Import({CommentIdBlockRepository.class, CommentIdAllocator.class, CommentService.class})
+    static class TestConfiguration {
+    }
+}
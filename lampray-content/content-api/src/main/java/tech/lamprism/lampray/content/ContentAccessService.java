@@ -18,6 +18,9 @@ package tech.lamprism.lampray.content;
 
 import tech.lamprism.lampray.content.common.ContentException;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * @author RollW
  */
@@ -46,4 +49,14 @@ public interface ContentAccessService {
     ContentMetadataDetails<?> getContentMetadataDetails(ContentTrait contentTrait)
             throws ContentException;
 
+    /**
+     * Get the details and metadata of many contents at once, with
+     * no access check.
+     * <p>
+     * The result keeps the order of the given traits, contents
+     * that are not found are omitted.
+     */
+    List<ContentMetadataDetails<? extends ContentDetails>> getContentMetadataDetails(
+            Collection<? extends ContentTrait> contentTraits);
+
 }
@@ -17,6 +17,12 @@
 package tech.lamprism.lampray.content;
 
 import space.lingu.NonNull;
+import tech.lamprism.lampray.content.common.ContentErrorCode;
+import tech.lamprism.lampray.content.common.ContentException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Content service internal interface.
@@ -32,6 +38,29 @@ public interface ContentProvider extends ContentSupportable {
         return getContentOperator(contentTrait, false);
     }
 
+    /**
+     * Get the details of many contents at once.
+     * <p>
+     * Contents that cannot be found are omitted, and the order of
+     * the returned list is not guaranteed. Implementations should
+     * override this to load all contents in a single query.
+     */
+    @NonNull
+    default List<? extends ContentDetails> getContentDetails(
+            @NonNull Collection<? extends ContentTrait> contentTraits) {
+        List<ContentDetails> contentDetails = new ArrayList<>(contentTraits.size());
+        for (ContentTrait contentTrait : contentTraits) {
+            try {
+                contentDetails.add(getContentDetails(contentTrait));
+            } catch (ContentException e) {
+                if (e.getErrorCode() != ContentErrorCode.ERROR_CONTENT_NOT_FOUND) {
+                    throw e;
+                }
+            }
+        }
+        return contentDetails;
+    }
+
     @NonNull
     ContentOperator getContentOperator(@NonNull ContentTrait contentTrait,
                                        boolean checkDelete);
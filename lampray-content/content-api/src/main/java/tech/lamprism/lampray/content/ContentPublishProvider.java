@@ -18,10 +18,20 @@ package tech.lamprism.lampray.content;
 
 import tech.lamprism.lampray.content.common.ContentException;
 
+import java.util.List;
+
 /**
  * @author RollW
  */
 public interface ContentPublishProvider {
     ContentDetails publishContent(UncreatedContent uncreatedContent)
             throws ContentException;
+
+    /**
+     * Publish contents in one transaction, either all of them are
+     * created or none of them. Results are in the order of the
+     * given contents.
+     */
+    List<ContentDetails> publishContents(List<? extends UncreatedContent> uncreatedContents)
+            throws ContentException;
 }
@@ -20,6 +20,8 @@ import space.lingu.NonNull;
 import tech.lamprism.lampray.content.common.ContentException;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author RollW
@@ -31,6 +33,22 @@ public interface ContentPublisher extends ContentSupportable {
     ContentDetails publish(@NonNull UncreatedContent uncreatedContent,
                            OffsetDateTime timestamp) throws ContentException;
 
+    /**
+     * Publish contents together, either all of them are created
+     * or none of them. Results are in the order of the given contents.
+     *
+     * @throws ContentException if any of the contents create failed.
+     */
+    @NonNull
+    default List<ContentDetails> publishAll(@NonNull List<? extends UncreatedContent> uncreatedContents,
+                                            OffsetDateTime timestamp) throws ContentException {
+        List<ContentDetails> contentDetails = new ArrayList<>(uncreatedContents.size());
+        for (UncreatedContent uncreatedContent : uncreatedContents) {
+            contentDetails.add(publish(uncreatedContent, timestamp));
+        }
+        return contentDetails;
+    }
+
     @Override
     boolean supports(@NonNull ContentType contentType);
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content;
+
+import space.lingu.NonNull;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Numbers of the public contents of a user, by content type.
+ *
+ * @author RollW
+ */
+public record ContentUserStats(
+        long userId,
+        @NonNull Map<ContentType, Long> publicCounts
+) {
+    public ContentUserStats {
+        publicCounts = publicCounts.isEmpty()
+                ? Map.of()
+                : Collections.unmodifiableMap(new EnumMap<>(publicCounts));
+    }
+
+    public long getPublicCount(@NonNull ContentType contentType) {
+        return publicCounts.getOrDefault(contentType, 0L);
+    }
+
+    public static ContentUserStats empty(long userId) {
+        return new ContentUserStats(userId, Map.of());
+    }
+}
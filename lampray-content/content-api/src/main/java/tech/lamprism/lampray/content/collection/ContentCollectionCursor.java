@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.collection;
+
+import com.google.common.base.Preconditions;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.content.ContentDetails;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Keyset position in a content collection.
+ * <p>
+ * Collections are ordered by {@code (updateTime, contentId)} in
+ * descending order, the cursor points to the last item of the
+ * previous page, and the next page starts right after it.
+ *
+ * @author RollW
+ */
+public record ContentCollectionCursor(
+        @NonNull OffsetDateTime updateTime,
+        long contentId
+) {
+    public ContentCollectionCursor {
+        Preconditions.checkNotNull(updateTime, "updateTime cannot be null");
+    }
+
+    /**
+     * Check if the cursor is positioned before the given content,
+     * that is, the content belongs to the pages after the cursor.
+     */
+    public boolean isBefore(@NonNull ContentDetails contentDetails) {
+        int compare = contentDetails.getUpdateTime().compareTo(updateTime);
+        if (compare != 0) {
+            return compare < 0;
+        }
+        return contentDetails.getContentId() < contentId;
+    }
+
+    public static ContentCollectionCursor of(@NonNull ContentDetails contentDetails) {
+        return new ContentCollectionCursor(
+                contentDetails.getUpdateTime(),
+                contentDetails.getContentId()
+        );
+    }
+}
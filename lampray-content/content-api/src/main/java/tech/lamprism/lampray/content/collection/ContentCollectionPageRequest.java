@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.collection;
+
+import com.google.common.base.Preconditions;
+import space.lingu.Nullable;
+
+/**
+ * Page request of a content collection.
+ * <p>
+ * If a {@link ContentCollectionCursor} is given, the page starts
+ * right after the cursor and {@link #getPage()} is ignored.
+ * Otherwise, falls back to offset paging by page number.
+ *
+ * @author RollW
+ */
+public final class ContentCollectionPageRequest {
+    public static final int DEFAULT_SIZE = 10;
+    public static final int MAX_SIZE = 100;
+
+    /**
+     * Page number, starts from 1.
+     */
+    private final int page;
+    private final int size;
+    @Nullable
+    private final ContentCollectionCursor cursor;
+
+    public ContentCollectionPageRequest(int page, int size,
+                                        @Nullable ContentCollectionCursor cursor) {
+        Preconditions.checkArgument(page > 0, "Page must be positive.");
+        Preconditions.checkArgument(size > 0 && size <= MAX_SIZE,
+                "Size must be in range (0, %s].", MAX_SIZE);
+        this.page = page;
+        this.size = size;
+        this.cursor = cursor;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the offset of the first item of the page, only
+     * valid when there is no cursor.
+     */
+    public long getOffset() {
+        return (long) (page - 1) * size;
+    }
+
+    @Nullable
+    public ContentCollectionCursor getCursor() {
+        return cursor;
+    }
+
+    public boolean hasCursor() {
+        return cursor != null;
+    }
+
+    /**
+     * Create the request of the next page, which starts right after
+     * the given cursor.
+     */
+    public ContentCollectionPageRequest next(ContentCollectionCursor cursor) {
+        return new ContentCollectionPageRequest(page + 1, size, cursor);
+    }
+
+    public static ContentCollectionPageRequest of(int page, int size) {
+        return new ContentCollectionPageRequest(page, size, null);
+    }
+
+    /**
+     * Create a request by page number, coerces the page and the size
+     * into the valid range instead of rejecting them, for parameters
+     * that come from the client.
+     */
+    public static ContentCollectionPageRequest bounded(int page, int size) {
+        return of(Math.max(page, 1), Math.min(Math.max(size, 1), MAX_SIZE));
+    }
+
+    public static ContentCollectionPageRequest after(
+            @Nullable ContentCollectionCursor cursor, int size) {
+        return new ContentCollectionPageRequest(1, size, cursor);
+    }
+
+    public static ContentCollectionPageRequest first(int size) {
+        return of(1, size);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentCollectionPageRequest{" +
+                "page=" + page +
+                ", size=" + size +
+                ", cursor=" + cursor +
+                '}';
+    }
+}
@@ -19,13 +19,50 @@ package tech.lamprism.lampray.content.collection;
 import space.lingu.NonNull;
 import tech.lamprism.lampray.content.ContentDetails;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @author RollW
  */
 public interface ContentCollectionProvider extends ContentCollectionSupportable {
+    /**
+     * Order of contents in a collection, the latest updated first.
+     */
+    Comparator<ContentDetails> COLLECTION_ORDER = Comparator
+            .comparing(ContentDetails::getUpdateTime)
+            .thenComparingLong(ContentDetails::getContentId)
+            .reversed();
+
     @NonNull
     List<? extends ContentDetails> getContents(
             ContentCollectionIdentity contentCollectionIdentity);
+
+    /**
+     * Get a page of contents in the collection, ordered by
+     * {@link #COLLECTION_ORDER}.
+     * <p>
+     * The returned contents may leave out large fields (such as the
+     * body of the content) that are not needed for listing.
+     *
+     * @implSpec The default implementation loads the whole collection
+     * and slices it in memory. Implementations backed by a database
+     * should override it to page on the database side.
+     */
+    @NonNull
+    default List<? extends ContentDetails> getContents(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentCollectionPageRequest pageRequest) {
+        Stream<? extends ContentDetails> contents = getContents(contentCollectionIdentity)
+                .stream()
+                .sorted(COLLECTION_ORDER);
+        ContentCollectionCursor cursor = pageRequest.getCursor();
+        if (cursor != null) {
+            contents = contents.filter(cursor::isBefore);
+        } else {
+            contents = contents.skip(pageRequest.getOffset());
+        }
+        return contents.limit(pageRequest.getSize()).toList();
+    }
 }
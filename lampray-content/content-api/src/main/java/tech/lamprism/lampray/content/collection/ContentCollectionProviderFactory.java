@@ -29,10 +29,39 @@ public interface ContentCollectionProviderFactory {
     ContentCollectionProvider getContentCollectionProvider(
             ContentCollectionType contentCollectionType);
 
+    /**
+     * Get the contents of the current page that are visible with
+     * the given credentials.
+     *
+     * @see #getContents(ContentCollectionIdentity, ContentAccessCredentials, ContentCollectionPageRequest)
+     */
     List<ContentMetadataDetails<? extends ContentDetails>> getContents(
             ContentCollectionIdentity contentCollectionIdentity,
             ContentAccessCredentials contentAccessCredentials);
 
+    /**
+     * Get the contents of the current page with no access check.
+     */
     List<ContentMetadataDetails<? extends ContentDetails>> getContents(
             ContentCollectionIdentity contentCollectionIdentity);
+
+    /**
+     * Get one page of the contents that are visible with the given
+     * credentials.
+     * <p>
+     * Contents that are not published or not permitted are skipped
+     * and do not take up the page, so a page is only smaller than
+     * the requested size when the collection is exhausted.
+     */
+    List<ContentMetadataDetails<? extends ContentDetails>> getContents(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentAccessCredentials contentAccessCredentials,
+            ContentCollectionPageRequest pageRequest);
+
+    /**
+     * Get one page of the contents with no access check.
+     */
+    List<ContentMetadataDetails<? extends ContentDetails>> getContents(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentCollectionPageRequest pageRequest);
 }
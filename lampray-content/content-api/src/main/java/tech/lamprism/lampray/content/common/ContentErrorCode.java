@@ -36,7 +36,9 @@ public enum ContentErrorCode implements ErrorCode, ErrorCodeFinder, ErrorCodeMes
     ERROR_PASSWORD_REQUIRED("A2006", 401),
     ERROR_CONTENT_EXISTED("A2007", 400),
     ERROR_CONTENT_NOT_DELETED("A2008", 400),
-    ERROR_CONTENT_CANNOT_RESTORE("A2009", 400);
+    ERROR_CONTENT_CANNOT_RESTORE("A2009", 400),
+    ERROR_CONTENT_BUSY("A2010", 503),
+    ERROR_CONTENT_PUBLISH_UNKNOWN("A2011", 504);
 
 
     private final String value;
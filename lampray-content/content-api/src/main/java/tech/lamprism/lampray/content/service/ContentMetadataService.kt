@@ -27,5 +27,11 @@ import tech.lamprism.lampray.content.ContentTrait
 interface ContentMetadataService {
     fun getMetadata(contentTrait: ContentTrait): ContentMetadata
 
+    /**
+     * Get metadata of many contents, contents without metadata
+     * are omitted.
+     */
+    fun getMetadata(contentTraits: Collection<ContentTrait>): List<ContentMetadata>
+
     fun updateMetadata(metadata: ContentMetadata)
 }
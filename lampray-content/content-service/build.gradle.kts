@@ -22,6 +22,7 @@ dependencies {
     api(project(":lampray-common"))
     api(project(":lampray-common-data"))
     api(project(":lampray-content:content-api"))
+    implementation(libs.caffeine)
 }
 
 description = "lampray-content-service"
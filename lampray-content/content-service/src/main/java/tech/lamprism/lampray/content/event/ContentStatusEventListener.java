@@ -20,6 +20,8 @@ import org.springframework.context.ApplicationListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import space.lingu.NonNull;
+import tech.lamprism.lampray.content.service.ContentMetadataCache;
+import tech.lamprism.lampray.content.service.ContentUserStatsService;
 
 /**
  * @author RollW
@@ -27,9 +29,23 @@ import space.lingu.NonNull;
 @Component
 public class ContentStatusEventListener
         implements ApplicationListener<ContentStatusEvent<?>> {
+    private final ContentMetadataCache contentMetadataCache;
+    private final ContentUserStatsService contentUserStatsService;
+
+    public ContentStatusEventListener(ContentMetadataCache contentMetadataCache,
+                                      ContentUserStatsService contentUserStatsService) {
+        this.contentMetadataCache = contentMetadataCache;
+        this.contentUserStatsService = contentUserStatsService;
+    }
 
     @Override
     @Async
     public void onApplicationEvent(@NonNull ContentStatusEvent<?> event) {
+        contentMetadataCache.invalidate(event.getContent());
+        contentUserStatsService.onStatusChanged(
+                event.getContent(),
+                event.getPreviousStatus(),
+                event.getCurrentStatus()
+        );
     }
 }
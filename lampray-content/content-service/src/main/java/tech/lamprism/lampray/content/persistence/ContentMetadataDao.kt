@@ -20,6 +20,7 @@ import org.springframework.data.jpa.repository.Query
 import org.springframework.data.repository.query.Param
 import tech.lamprism.lampray.common.data.CommonDao
 import tech.lamprism.lampray.common.data.Dao
+import tech.lamprism.lampray.content.ContentStatus
 import tech.lamprism.lampray.content.ContentType
 import java.util.*
 
@@ -33,4 +34,32 @@ interface ContentMetadataDao : CommonDao<ContentMetadataDo, Long> {
         @Param("contentId") contentId: Long,
         @Param("contentType") contentType: ContentType
     ): Optional<ContentMetadataDo>
+
+    @Query("FROM ContentMetadataDo cm WHERE cm.contentId IN :contentIds AND cm.contentType = :contentType")
+    fun findByContents(
+        @Param("contentIds") contentIds: Collection<Long>,
+        @Param("contentType") contentType: ContentType
+    ): List<ContentMetadataDo>
+
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.persistence.ContentUserCount(" +
+                "cm.userId, cm.contentType, COUNT(cm)) " +
+                "FROM ContentMetadataDo cm WHERE cm.contentStatus = :contentStatus " +
+                "GROUP BY cm.userId, cm.contentType"
+    )
+    fun countByStatus(
+        @Param("contentStatus") contentStatus: ContentStatus
+    ): List<ContentUserCount>
+
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.persistence.ContentUserCount(" +
+                "cm.userId, cm.contentType, COUNT(cm)) " +
+                "FROM ContentMetadataDo cm WHERE cm.userId = :userId " +
+                "AND cm.contentStatus = :contentStatus " +
+                "GROUP BY cm.userId, cm.contentType"
+    )
+    fun countByUserIdAndStatus(
+        @Param("userId") userId: Long,
+        @Param("contentStatus") contentStatus: ContentStatus
+    ): List<ContentUserCount>
 }
\ No newline at end of file
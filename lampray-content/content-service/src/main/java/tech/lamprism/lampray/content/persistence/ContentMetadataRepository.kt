@@ -18,7 +18,9 @@ package tech.lamprism.lampray.content.persistence
 
 import org.springframework.stereotype.Repository
 import tech.lamprism.lampray.common.data.CommonRepository
+import tech.lamprism.lampray.content.ContentStatus
 import tech.lamprism.lampray.content.ContentTrait
+import tech.lamprism.lampray.content.ContentType
 import java.util.*
 
 /**
@@ -31,4 +33,37 @@ class ContentMetadataRepository(
     fun findByContent(content: ContentTrait): Optional<ContentMetadataDo> {
         return contentMetadataDao.findByContent(content.contentId, content.contentType)
     }
+
+    /**
+     * Find metadata of many contents, issues one query per content type.
+     */
+    fun findByContents(contents: Collection<ContentTrait>): List<ContentMetadataDo> {
+        return contents.groupBy({ it.contentType }, { it.contentId })
+            .flatMap { (contentType, contentIds) ->
+                findByContents(contentIds, contentType)
+            }
+    }
+
+    fun findByContents(
+        contentIds: Collection<Long>,
+        contentType: ContentType
+    ): List<ContentMetadataDo> {
+        if (contentIds.isEmpty()) {
+            return emptyList()
+        }
+        return contentMetadataDao.findByContents(contentIds.distinct(), contentType)
+    }
+
+    /**
+     * Count the contents in the given status, grouped by user and
+     * content type.
+     */
+    fun countByStatus(contentStatus: ContentStatus): List<ContentUserCount> =
+        contentMetadataDao.countByStatus(contentStatus)
+
+    fun countByUserIdAndStatus(
+        userId: Long,
+        contentStatus: ContentStatus
+    ): List<ContentUserCount> =
+        contentMetadataDao.countByUserIdAndStatus(userId, contentStatus)
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.lamprism.lampray.content.persistence
+
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+import tech.lamprism.lampray.content.ContentType
+
+/**
+ * @author RollW
+ */
+@Dao
+interface ContentUserStatsDao : CommonDao<ContentUserStatsDo, Long> {
+    @Query("FROM ContentUserStatsDo s WHERE s.userId = :userId")
+    fun findByUserId(@Param("userId") userId: Long): List<ContentUserStatsDo>
+
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE ContentUserStatsDo s SET s.publicCount = s.publicCount + :delta " +
+                "WHERE s.userId = :userId AND s.contentType = :contentType"
+    )
+    fun increase(
+        @Param("userId") userId: Long,
+        @Param("contentType") contentType: ContentType,
+        @Param("delta") delta: Long
+    ): Int
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ContentUserStatsDo s WHERE s.userId = :userId")
+    fun deleteByUserId(@Param("userId") userId: Long): Int
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.lamprism.lampray.content.persistence
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.EnumType
+import jakarta.persistence.Enumerated
+import jakarta.persistence.GeneratedValue
+import jakarta.persistence.GenerationType
+import jakarta.persistence.Id
+import jakarta.persistence.Table
+import jakarta.persistence.UniqueConstraint
+import org.hibernate.annotations.JdbcTypeCode
+import org.hibernate.type.SqlTypes
+import tech.lamprism.lampray.DataEntity
+import tech.lamprism.lampray.TimeAttributed
+import tech.lamprism.lampray.content.ContentType
+import tech.lamprism.lampray.content.ContentUserStatsResourceKind
+import tech.rollw.common.web.system.SystemResourceKind
+import java.time.OffsetDateTime
+
+/**
+ * Number of public contents of a user in a content type.
+ *
+ * @author RollW
+ */
+@Entity
+@Table(
+    name = "content_user_stats", uniqueConstraints = [
+        UniqueConstraint(columnNames = ["user_id", "type"], name = "index__user_id_type")
+    ]
+)
+class ContentUserStatsDo(
+    @Column(name = "id")
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private var id: Long? = null,
+
+    @Column(name = "user_id", nullable = false)
+    var userId: Long = 0,
+
+    @Column(name = "type", nullable = false, length = 40)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    var contentType: ContentType = ContentType.ARTICLE,
+
+    @Column(name = "public_count", nullable = false)
+    var publicCount: Long = 0
+) : DataEntity<Long> {
+    override fun getId(): Long? = id
+
+    fun setId(id: Long?) {
+        this.id = id
+    }
+
+    override fun getCreateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getUpdateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getSystemResourceKind(): SystemResourceKind =
+        ContentUserStatsResourceKind
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tech.lamprism.lampray.content.persistence
+
+import org.springframework.stereotype.Repository
+import tech.lamprism.lampray.common.data.CommonRepository
+import tech.lamprism.lampray.content.ContentType
+
+/**
+ * @author RollW
+ */
+@Repository
+class ContentUserStatsRepository(
+    private val contentUserStatsDao: ContentUserStatsDao
+) : CommonRepository<ContentUserStatsDo, Long>(contentUserStatsDao) {
+    fun findByUserId(userId: Long): List<ContentUserStatsDo> =
+        contentUserStatsDao.findByUserId(userId)
+
+    /**
+     * Increase the public count of the user in the content type by
+     * the given delta, which may be negative.
+     *
+     * @return false if there is no row of the user and content type.
+     */
+    fun increase(userId: Long, contentType: ContentType, delta: Long): Boolean =
+        contentUserStatsDao.increase(userId, contentType, delta) > 0
+
+    fun deleteByUserId(userId: Long) {
+        contentUserStatsDao.deleteByUserId(userId)
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.stereotype.Component;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.content.ContentMetadata;
+import tech.lamprism.lampray.content.ContentTrait;
+import tech.lamprism.lampray.content.ContentType;
+import tech.lamprism.lampray.content.persistence.ContentMetadataDo;
+import tech.lamprism.lampray.content.persistence.ContentMetadataRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near cache of {@link ContentMetadata} in front of
+ * {@link ContentMetadataRepository}.
+ * <p>
+ * Entries are partitioned by {@link ContentType} and keyed by the
+ * content id only, so lookups do not allocate a composite key.
+ * Missing metadata is never cached.
+ *
+ * @author RollW
+ */
+@Component
+public class ContentMetadataCache {
+    private static final long MAXIMUM_SIZE_PER_TYPE = 10_000;
+    private static final long EXPIRE_MINUTES = 60;
+
+    private final ContentMetadataRepository contentMetadataRepository;
+    private final Map<ContentType, Cache<Long, ContentMetadata>> caches =
+            new EnumMap<>(ContentType.class);
+
+    public ContentMetadataCache(ContentMetadataRepository contentMetadataRepository) {
+        this.contentMetadataRepository = contentMetadataRepository;
+        for (ContentType contentType : ContentType.values()) {
+            caches.put(contentType, newCache());
+        }
+    }
+
+    @NonNull
+    public Optional<ContentMetadata> findByContent(@NonNull ContentTrait contentTrait) {
+        ContentMetadata metadata = cacheOf(contentTrait.getContentType()).get(
+                contentTrait.getContentId(),
+                contentId -> contentMetadataRepository.findByContent(contentTrait)
+                        .map(ContentMetadataDo::lock)
+                        .orElse(null)
+        );
+        return Optional.ofNullable(metadata);
+    }
+
+    /**
+     * Find metadata of many contents, only the missing entries are
+     * loaded from the repository, with one query per content type.
+     * Contents without metadata are omitted.
+     */
+    @NonNull
+    public List<ContentMetadata> findByContents(
+            @NonNull Collection<? extends ContentTrait> contentTraits) {
+        Map<ContentType, List<Long>> contentIdsByType = new EnumMap<>(ContentType.class);
+        for (ContentTrait contentTrait : contentTraits) {
+            contentIdsByType.computeIfAbsent(contentTrait.getContentType(),
+                    contentType -> new ArrayList<>()
+            ).add(contentTrait.getContentId());
+        }
+        List<ContentMetadata> metadata = new ArrayList<>(contentTraits.size());
+        contentIdsByType.forEach((contentType, contentIds) -> {
+            Map<Long, ContentMetadata> loaded = cacheOf(contentType).getAll(
+                    contentIds,
+                    missing -> loadAll(missing, contentType)
+            );
+            metadata.addAll(loaded.values());
+        });
+        return metadata;
+    }
+
+    private Map<Long, ContentMetadata> loadAll(Set<? extends Long> contentIds,
+                                               ContentType contentType) {
+        List<ContentMetadataDo> metadata = contentMetadataRepository.findByContents(
+                List.copyOf(contentIds), contentType);
+        Map<Long, ContentMetadata> loaded = new HashMap<>(metadata.size());
+        for (ContentMetadataDo metadataDo : metadata) {
+            loaded.put(metadataDo.getContentId(), metadataDo.lock());
+        }
+        return loaded;
+    }
+
+    public void invalidate(@NonNull ContentTrait contentTrait) {
+        cacheOf(contentTrait.getContentType())
+                .invalidate(contentTrait.getContentId());
+    }
+
+    public void invalidateAll() {
+        caches.values().forEach(Cache::invalidateAll);
+    }
+
+    /**
+     * Hit/miss statistics summed over all content types.
+     */
+    @NonNull
+    public CacheStats stats() {
+        return caches.values().stream()
+                .map(Cache::stats)
+                .reduce(CacheStats.empty(), CacheStats::plus);
+    }
+
+    @NonNull
+    public CacheStats stats(@NonNull ContentType contentType) {
+        return cacheOf(contentType).stats();
+    }
+
+    public long estimatedSize() {
+        return caches.values().stream()
+                .mapToLong(Cache::estimatedSize)
+                .sum();
+    }
+
+    private Cache<Long, ContentMetadata> cacheOf(ContentType contentType) {
+        return caches.get(contentType);
+    }
+
+    private static Cache<Long, ContentMetadata> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE_PER_TYPE)
+                .expireAfterWrite(EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+}
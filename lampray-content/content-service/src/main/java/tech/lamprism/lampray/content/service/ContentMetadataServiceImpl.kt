@@ -16,39 +16,64 @@
 
 package tech.lamprism.lampray.content.service
 
+import org.springframework.context.ApplicationEventPublisher
 import org.springframework.stereotype.Service
+import tech.lamprism.lampray.content.Content
 import tech.lamprism.lampray.content.ContentMetadata
 import tech.lamprism.lampray.content.ContentTrait
 import tech.lamprism.lampray.content.common.ContentErrorCode
 import tech.lamprism.lampray.content.common.ContentException
+import tech.lamprism.lampray.content.event.ContentStatusEvent
 import tech.lamprism.lampray.content.persistence.ContentMetadataDo.Companion.toDo
 import tech.lamprism.lampray.content.persistence.ContentMetadataRepository
+import java.time.OffsetDateTime
 
 /**
  * @author RollW
  */
 @Service
 class ContentMetadataServiceImpl(
-    private val contentMetadataRepository: ContentMetadataRepository
+    private val contentMetadataRepository: ContentMetadataRepository,
+    private val contentMetadataCache: ContentMetadataCache,
+    private val eventPublisher: ApplicationEventPublisher
 ) : ContentMetadataService {
 
     override fun getMetadata(contentTrait: ContentTrait): ContentMetadata {
-        return contentMetadataRepository.findByContent(
+        return contentMetadataCache.findByContent(
             contentTrait
         ).orElseThrow {
             ContentException(
                 ContentErrorCode.ERROR_CONTENT_NOT_FOUND,
                 "Content metadata not found"
             )
-        }.lock()
+        }
     }
 
+    override fun getMetadata(contentTraits: Collection<ContentTrait>): List<ContentMetadata> =
+        contentMetadataCache.findByContents(contentTraits)
+
     fun createMetadata(metadata: ContentMetadata) {
         contentMetadataRepository.save(metadata.toDo())
+        contentMetadataCache.invalidate(metadata)
     }
 
     override fun updateMetadata(metadata: ContentMetadata) {
+        val previousStatus = contentMetadataRepository.findByContent(metadata)
+            .map { it.contentStatus }
+            .orElse(null)
         contentMetadataRepository.save(metadata.toDo())
+        contentMetadataCache.invalidate(metadata)
+        if (previousStatus == metadata.contentStatus) {
+            return
+        }
+        eventPublisher.publishEvent(
+            ContentStatusEvent(
+                Content.of(metadata.userId, metadata),
+                OffsetDateTime.now(),
+                previousStatus,
+                metadata.contentStatus
+            )
+        )
     }
 
     fun deleteMetadata(contentTrait: ContentTrait) {
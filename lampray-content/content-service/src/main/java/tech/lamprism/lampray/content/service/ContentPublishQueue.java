@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.content.ContentDetails;
+import tech.lamprism.lampray.content.ContentPublishProvider;
+import tech.lamprism.lampray.content.UncreatedContent;
+import tech.lamprism.lampray.content.common.ContentErrorCode;
+import tech.lamprism.lampray.content.common.ContentException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes contents in groups for contents that are created at a high
+ * rate, like comments.
+ * <p>
+ * Callers put contents into a bounded queue and a single writer
+ * publishes what is queued with one transaction per group. A caller
+ * returns only after the group of its content is committed, so an
+ * acknowledged content is never lost. If a group fails, its contents
+ * are published one by one, so one bad content does not fail others.
+ * <p>
+ * A caller timed out before the writer takes its content withdraws
+ * the content, otherwise the content may still be committed and the
+ * caller fails with {@link ContentErrorCode#ERROR_CONTENT_PUBLISH_UNKNOWN}.
+ *
+ * @author RollW
+ */
+@Component
+public class ContentPublishQueue implements InitializingBean, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ContentPublishQueue.class);
+
+    private static final int CAPACITY = 10_000;
+    private static final int MAX_BATCH_SIZE = 200;
+    /**
+     * How long the writer waits for more contents after the first
+     * one of a group.
+     */
+    private static final long MAX_BATCH_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final long PUBLISH_TIMEOUT_SECONDS = 30;
+
+    private final ContentPublishProvider contentPublishProvider;
+    private final BlockingQueue<PendingContent> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread writer;
+    private volatile boolean running;
+
+    public ContentPublishQueue(ContentPublishProvider contentPublishProvider) {
+        this.contentPublishProvider = contentPublishProvider;
+        this.writer = new Thread(this::runWriter, "content-publish-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Publish the content with other queued contents, blocks until
+     * the content is committed.
+     *
+     * @throws ContentException if the content create failed, the
+     *                          queue is full, or the content is not
+     *                          committed in time.
+     */
+    @NonNull
+    public ContentDetails publish(@NonNull UncreatedContent uncreatedContent)
+            throws ContentException {
+        if (!running) {
+            return contentPublishProvider.publishContent(uncreatedContent);
+        }
+        PendingContent pending = new PendingContent(uncreatedContent,
+                new CompletableFuture<>(), new AtomicBoolean());
+        try {
+            if (!queue.offer(pending, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new ContentException(ContentErrorCode.ERROR_CONTENT_BUSY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContentException(ContentErrorCode.ERROR_CONTENT_BUSY);
+        }
+        if (!running && queue.remove(pending)) {
+            // stopped after the offer, the writer may be gone.
+            return contentPublishProvider.publishContent(uncreatedContent);
+        }
+        return await(pending);
+    }
+
+    private ContentDetails await(PendingContent pending) {
+        try {
+            return pending.result().get(PUBLISH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ContentException(ContentErrorCode.ERROR_CONTENT, e.getCause());
+        } catch (TimeoutException e) {
+            throw withdraw(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw withdraw(pending);
+        }
+    }
+
+    private ContentException withdraw(PendingContent pending) {
+        if (pending.claim()) {
+            // the writer skips a claimed content, it is never written.
+            queue.remove(pending);
+            return new ContentException(ContentErrorCode.ERROR_CONTENT_BUSY);
+        }
+        return new ContentException(ContentErrorCode.ERROR_CONTENT_PUBLISH_UNKNOWN);
+    }
+
+    private void runWriter() {
+        List<PendingContent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingContent first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in content publish writer.", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingContent> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + MAX_BATCH_DELAY_NANOS;
+        while (batch.size() < MAX_BATCH_SIZE) {
+            queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= MAX_BATCH_SIZE || remaining <= 0) {
+                return;
+            }
+            PendingContent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingContent> batch) {
+        batch.removeIf(pending -> !pending.claim());
+        if (batch.size() > 1) {
+            try {
+                List<ContentDetails> published = contentPublishProvider.publishContents(
+                        batch.stream().map(PendingContent::uncreatedContent).toList());
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(published.get(i));
+                }
+                return;
+            } catch (RuntimeException e) {
+                logger.debug("Failed to publish {} contents together, publish one by one.",
+                        batch.size(), e);
+            }
+        }
+        for (PendingContent pending : batch) {
+            try {
+                pending.result().complete(
+                        contentPublishProvider.publishContent(pending.uncreatedContent()));
+            } catch (RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        writer.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(PUBLISH_TIMEOUT_SECONDS));
+        List<PendingContent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        write(remaining);
+    }
+
+    /**
+     * @param claimed set by the writer before writing the content, or
+     *                by the caller to withdraw it, whichever is first.
+     */
+    private record PendingContent(UncreatedContent uncreatedContent,
+                                  CompletableFuture<ContentDetails> result,
+                                  AtomicBoolean claimed) {
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
@@ -18,7 +18,10 @@ package tech.lamprism.lampray.content.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import tech.lamprism.lampray.content.Content;
 import tech.lamprism.lampray.content.ContentAccessAuthType;
 import tech.lamprism.lampray.content.ContentAccessCredentials;
@@ -33,14 +36,18 @@ import tech.lamprism.lampray.content.ContentPublisher;
 import tech.lamprism.lampray.content.ContentStatus;
 import tech.lamprism.lampray.content.ContentSupportableUtils;
 import tech.lamprism.lampray.content.ContentTrait;
+import tech.lamprism.lampray.content.ContentType;
 import tech.lamprism.lampray.content.UncreatedContent;
 import tech.lamprism.lampray.content.UncreatedContentPreChecker;
+import tech.lamprism.lampray.content.collection.ContentCollectionCursor;
 import tech.lamprism.lampray.content.collection.ContentCollectionIdentity;
+import tech.lamprism.lampray.content.collection.ContentCollectionPageRequest;
 import tech.lamprism.lampray.content.collection.ContentCollectionProvider;
 import tech.lamprism.lampray.content.collection.ContentCollectionProviderFactory;
 import tech.lamprism.lampray.content.collection.ContentCollectionType;
 import tech.lamprism.lampray.content.common.ContentErrorCode;
 import tech.lamprism.lampray.content.common.ContentException;
+import tech.lamprism.lampray.content.event.ContentStatusEvent;
 import tech.lamprism.lampray.content.permit.ContentPermitChecker;
 import tech.lamprism.lampray.content.permit.ContentPermitResult;
 import tech.lamprism.lampray.content.persistence.ContentMetadataDo;
@@ -48,13 +55,19 @@ import tech.lamprism.lampray.content.persistence.ContentMetadataRepository;
 import tech.lamprism.lampray.content.publish.ContentPublishCallback;
 import tech.rollw.common.web.CommonErrorCode;
 import tech.rollw.common.web.ErrorCode;
+import tech.rollw.common.web.system.ContextThread;
 import tech.rollw.common.web.system.ContextThreadAware;
 import tech.rollw.common.web.system.UnsupportedKindException;
 import tech.rollw.common.web.system.paged.PageableContext;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * @author RollW
@@ -63,6 +76,8 @@ import java.util.List;
 public class ContentService implements ContentAccessService,
         ContentPublishProvider, ContentCollectionProviderFactory {
     private static final Logger logger = LoggerFactory.getLogger(ContentService.class);
+    private static final int COLLECTION_BATCH_SIZE = ContentCollectionPageRequest.MAX_SIZE;
+
     private final List<ContentPublisher> contentPublishers;
     private final List<UncreatedContentPreChecker> uncreatedContentPreCheckers;
     private final List<ContentCollectionProvider> contentCollectionProviders;
@@ -71,7 +86,10 @@ public class ContentService implements ContentAccessService,
     private final ContentProviderFactory contentProviderFactory;
     private final ContentPermitChecker contentPermitChecker;
     private final ContentMetadataRepository contentMetadataRepository;
+    private final ContentMetadataCache contentMetadataCache;
     private final ContextThreadAware<PageableContext> pageableContextThreadAware;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     public ContentService(List<ContentPublisher> contentPublishers,
                           List<UncreatedContentPreChecker> uncreatedContentPreCheckers,
@@ -80,7 +98,10 @@ public class ContentService implements ContentAccessService,
                           ContentProviderFactory contentProviderFactory,
                           ContentPermitChecker contentPermitChecker,
                           ContentMetadataRepository contentMetadataRepository,
-                          ContextThreadAware<PageableContext> pageableContextThreadAware) {
+                          ContentMetadataCache contentMetadataCache,
+                          ContextThreadAware<PageableContext> pageableContextThreadAware,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager) {
         this.contentPublishers = contentPublishers;
         this.uncreatedContentPreCheckers = uncreatedContentPreCheckers;
         this.contentCollectionProviders = contentCollectionProviders;
@@ -88,7 +109,10 @@ public class ContentService implements ContentAccessService,
         this.contentProviderFactory = contentProviderFactory;
         this.contentPermitChecker = contentPermitChecker;
         this.contentMetadataRepository = contentMetadataRepository;
+        this.contentMetadataCache = contentMetadataCache;
         this.pageableContextThreadAware = pageableContextThreadAware;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -97,7 +121,7 @@ public class ContentService implements ContentAccessService,
     @Override
     public ContentDetails openContent(ContentTrait contentTrait,
                                       ContentAccessCredentials contentAccessCredentials) throws ContentException {
-        ContentMetadataDo metadata = contentMetadataRepository
+        ContentMetadata metadata = contentMetadataCache
                 .findByContent(contentTrait)
                 .orElse(null);
         if (metadata == null) {
@@ -134,7 +158,7 @@ public class ContentService implements ContentAccessService,
     @Override
     public ContentMetadataDetails<?> getContentMetadataDetails(ContentTrait contentTrait)
             throws ContentException {
-        ContentMetadataDo metadata = contentMetadataRepository
+        ContentMetadata metadata = contentMetadataCache
                 .findByContent(contentTrait)
                 .orElse(null);
         if (metadata == null) {
@@ -144,7 +168,7 @@ public class ContentService implements ContentAccessService,
                 contentTrait.getContentType());
         ContentDetails contentDetails = provider
                 .getContentDetails(contentTrait);
-        return new ContentMetadataDetails<>(contentDetails, metadata.lock());
+        return new ContentMetadataDetails<>(contentDetails, metadata);
     }
 
     /**
@@ -152,7 +176,7 @@ public class ContentService implements ContentAccessService,
      */
     public ContentStatus getContentStatus(ContentTrait contentTrait)
             throws ContentException {
-        ContentMetadataDo metadata = contentMetadataRepository
+        ContentMetadata metadata = contentMetadataCache
                 .findByContent(contentTrait)
                 .orElse(null);
         if (metadata == null) {
@@ -178,47 +202,154 @@ public class ContentService implements ContentAccessService,
 
     @Override
     public ContentDetails publishContent(UncreatedContent uncreatedContent) throws ContentException {
+        return publishContents(List.of(uncreatedContent)).get(0);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public List<ContentDetails> publishContents(List<? extends UncreatedContent> uncreatedContents)
+            throws ContentException {
+        if (uncreatedContents.isEmpty()) {
+            return List.of();
+        }
         OffsetDateTime timestamp = OffsetDateTime.now();
-        ContentSupportableUtils.findAllSupportable(uncreatedContentPreCheckers,
-                        uncreatedContent.getContentType())
-                .forEach(checker ->
-                        checker.checkUncreatedContent(uncreatedContent)
-                );
-        ContentPublisher contentPublisher = ContentSupportableUtils.findSupportableNonNull(
-                contentPublishers,
-                uncreatedContent.getContentType());
-        ContentDetails contentDetails = contentPublisher.publish(
-                uncreatedContent,
-                timestamp
-        );
-        ContentMetadataDo.Builder contentMetadataBuilder = ContentMetadataDo
-                .builder()
-                .setContentId(contentDetails.getContentId())
-                .setContentType(contentDetails.getContentType())
-                .setUserId(contentDetails.getUserId())
-                .setContentAccessAuthType(ContentAccessAuthType.PUBLIC);
-        ContentStatus contentStatus = ContentStatus.PUBLISHED;
-        for (ContentPublishCallback contentPublishCallback :
-                contentPublishCallbacks) {
-            contentStatus = contentStatus.plus(
-                    contentPublishCallback.publish(contentDetails)
-            );
+        for (UncreatedContent uncreatedContent : uncreatedContents) {
+            ContentSupportableUtils.findAllSupportable(uncreatedContentPreCheckers,
+                            uncreatedContent.getContentType())
+                    .forEach(checker ->
+                            checker.checkUncreatedContent(uncreatedContent)
+                    );
+        }
+        List<PublishedContent> publishedContents = transactionTemplate.execute(status ->
+                publishInTransaction(uncreatedContents, timestamp));
+        List<ContentDetails> contentDetails = new ArrayList<>(publishedContents.size());
+        for (PublishedContent publishedContent : publishedContents) {
+            ContentMetadataDo metadata = publishedContent.metadata();
+            contentMetadataCache.invalidate(metadata);
+            eventPublisher.publishEvent(new ContentStatusEvent<>(
+                    publishedContent.contentDetails(), timestamp,
+                    null, metadata.getContentStatus()));
+            contentDetails.add(publishedContent.contentDetails());
         }
-        contentMetadataBuilder.setContentStatus(contentStatus);
-        contentMetadataRepository.save(contentMetadataBuilder.build());
         return contentDetails;
     }
 
-    private <T extends ContentDetails> List<ContentMetadataDetails<T>> pairWith(
-            List<T> contentDetails,
-            List<ContentMetadata> contentMetadata) {
-        return contentDetails.stream().map(details -> {
-            ContentMetadata metadata = contentMetadata.stream()
-                    .filter(m -> m.getContentId() == details.getContentId())
-                    .findFirst()
-                    .orElseThrow(() -> new ContentException(ContentErrorCode.ERROR_CONTENT_NOT_FOUND));
-            return new ContentMetadataDetails<>(details, metadata);
-        }).toList();
+    private List<PublishedContent> publishInTransaction(
+            List<? extends UncreatedContent> uncreatedContents,
+            OffsetDateTime timestamp) {
+        ContentDetails[] contentDetails = new ContentDetails[uncreatedContents.size()];
+        Map<ContentType, List<Integer>> indexesByType = new EnumMap<>(ContentType.class);
+        for (int i = 0; i < uncreatedContents.size(); i++) {
+            indexesByType.computeIfAbsent(uncreatedContents.get(i).getContentType(),
+                    contentType -> new ArrayList<>()
+            ).add(i);
+        }
+        indexesByType.forEach((contentType, indexes) -> {
+            ContentPublisher contentPublisher = ContentSupportableUtils.findSupportableNonNull(
+                    contentPublishers, contentType);
+            List<ContentDetails> published = contentPublisher.publishAll(
+                    indexes.stream().map(uncreatedContents::get).toList(),
+                    timestamp
+            );
+            for (int i = 0; i < indexes.size(); i++) {
+                contentDetails[indexes.get(i)] = published.get(i);
+            }
+        });
+
+        List<ContentMetadataDo> metadata = new ArrayList<>(contentDetails.length);
+        for (ContentDetails details : contentDetails) {
+            ContentStatus contentStatus = ContentStatus.PUBLISHED;
+            for (ContentPublishCallback contentPublishCallback :
+                    contentPublishCallbacks) {
+                contentStatus = contentStatus.plus(
+                        contentPublishCallback.publish(details)
+                );
+            }
+            metadata.add(ContentMetadataDo
+                    .builder()
+                    .setContentId(details.getContentId())
+                    .setContentType(details.getContentType())
+                    .setUserId(details.getUserId())
+                    .setContentAccessAuthType(ContentAccessAuthType.PUBLIC)
+                    .setContentStatus(contentStatus)
+                    .build());
+        }
+        List<ContentMetadataDo> saved = contentMetadataRepository.saveAll(metadata);
+        List<PublishedContent> publishedContents = new ArrayList<>(contentDetails.length);
+        for (int i = 0; i < contentDetails.length; i++) {
+            publishedContents.add(new PublishedContent(contentDetails[i], saved.get(i)));
+        }
+        return publishedContents;
+    }
+
+    private record PublishedContent(ContentDetails contentDetails,
+                                    ContentMetadataDo metadata) {
+    }
+
+    @Override
+    public List<ContentMetadataDetails<? extends ContentDetails>> getContentMetadataDetails(
+            Collection<? extends ContentTrait> contentTraits) {
+        if (contentTraits.isEmpty()) {
+            return List.of();
+        }
+        Map<ContentType, List<ContentTrait>> traitsByType = new EnumMap<>(ContentType.class);
+        for (ContentTrait contentTrait : contentTraits) {
+            traitsByType.computeIfAbsent(contentTrait.getContentType(),
+                    contentType -> new ArrayList<>()
+            ).add(contentTrait);
+        }
+        Map<ContentType, Map<Long, ContentDetails>> detailsIndex = new EnumMap<>(ContentType.class);
+        traitsByType.forEach((contentType, traits) -> {
+            ContentProvider provider = contentProviderFactory.getContentProvider(contentType);
+            detailsIndex.put(contentType, indexById(provider.getContentDetails(traits)));
+        });
+        List<ContentDetails> contentDetails = new ArrayList<>(contentTraits.size());
+        for (ContentTrait contentTrait : contentTraits) {
+            ContentDetails details = detailsIndex
+                    .get(contentTrait.getContentType())
+                    .get(contentTrait.getContentId());
+            if (details != null) {
+                contentDetails.add(details);
+            }
+        }
+        return pairWith(contentDetails,
+                contentMetadataCache.findByContents(contentTraits));
+    }
+
+    /**
+     * Pair the details with their metadata, keeps the order of the
+     * details. Details without metadata are omitted.
+     */
+    private List<ContentMetadataDetails<? extends ContentDetails>> pairWith(
+            List<? extends ContentDetails> contentDetails,
+            Collection<ContentMetadata> contentMetadata) {
+        Map<ContentType, Map<Long, ContentMetadata>> metadataIndex = new EnumMap<>(ContentType.class);
+        for (ContentMetadata metadata : contentMetadata) {
+            metadataIndex.computeIfAbsent(metadata.getContentType(),
+                    contentType -> new HashMap<>()
+            ).put(metadata.getContentId(), metadata);
+        }
+        List<ContentMetadataDetails<? extends ContentDetails>> result =
+                new ArrayList<>(contentDetails.size());
+        for (ContentDetails details : contentDetails) {
+            Map<Long, ContentMetadata> metadataOfType =
+                    metadataIndex.getOrDefault(details.getContentType(), Map.of());
+            ContentMetadata metadata = metadataOfType.get(details.getContentId());
+            if (metadata != null) {
+                result.add(new ContentMetadataDetails<>(details, metadata));
+            }
+        }
+        return result;
+    }
+
+    private static <T extends ContentTrait> Map<Long, T> indexById(Collection<? extends T> contents) {
+        Map<Long, T> index = new HashMap<>(contents.size());
+        for (T content : contents) {
+            index.put(content.getContentId(), content);
+        }
+        return index;
     }
 
     @Override
@@ -236,14 +367,105 @@ public class ContentService implements ContentAccessService,
     public List<ContentMetadataDetails<? extends ContentDetails>> getContents(
             ContentCollectionIdentity contentCollectionIdentity,
             ContentAccessCredentials contentAccessCredentials) {
-        // TODO: impl
-        return List.of();
+        return getContents(contentCollectionIdentity, contentAccessCredentials,
+                currentPageRequest());
     }
 
     @Override
     public List<ContentMetadataDetails<? extends ContentDetails>> getContents(
             ContentCollectionIdentity contentCollectionIdentity) {
-        // TODO: impl
-        return List.of();
+        return getContents(contentCollectionIdentity, currentPageRequest());
+    }
+
+    @Override
+    public List<ContentMetadataDetails<? extends ContentDetails>> getContents(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentAccessCredentials contentAccessCredentials,
+            ContentCollectionPageRequest pageRequest) {
+        return collectPage(contentCollectionIdentity, pageRequest,
+                details -> isVisible(details, contentAccessCredentials));
+    }
+
+    @Override
+    public List<ContentMetadataDetails<? extends ContentDetails>> getContents(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentCollectionPageRequest pageRequest) {
+        return collectPage(contentCollectionIdentity, pageRequest,
+                details -> true);
+    }
+
+    /**
+     * Reads the collection in batches and keeps reading until the
+     * requested page is filled with contents that pass the filter,
+     * or the collection is exhausted. Only one batch is held in
+     * memory at a time.
+     */
+    private List<ContentMetadataDetails<? extends ContentDetails>> collectPage(
+            ContentCollectionIdentity contentCollectionIdentity,
+            ContentCollectionPageRequest pageRequest,
+            Predicate<ContentMetadataDetails<? extends ContentDetails>> filter) {
+        ContentCollectionProvider collectionProvider = getContentCollectionProvider(
+                contentCollectionIdentity.getContentCollectionType());
+        List<ContentMetadataDetails<? extends ContentDetails>> page =
+                new ArrayList<>(pageRequest.getSize());
+        // with a cursor the page starts right after it, otherwise
+        // skips the visible contents of the previous pages.
+        long skip = pageRequest.hasCursor() ? 0 : pageRequest.getOffset();
+        ContentCollectionPageRequest batchRequest = ContentCollectionPageRequest.after(
+                pageRequest.getCursor(), COLLECTION_BATCH_SIZE);
+        while (true) {
+            List<? extends ContentDetails> batch = collectionProvider.getContents(
+                    contentCollectionIdentity, batchRequest);
+            if (batch.isEmpty()) {
+                return page;
+            }
+            List<ContentMetadataDetails<? extends ContentDetails>> candidates =
+                    pairWith(batch, contentMetadataCache.findByContents(batch));
+            for (ContentMetadataDetails<? extends ContentDetails> candidate : candidates) {
+                if (!filter.test(candidate)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                page.add(candidate);
+                if (page.size() >= pageRequest.getSize()) {
+                    return page;
+                }
+            }
+            if (batch.size() < COLLECTION_BATCH_SIZE) {
+                return page;
+            }
+            ContentDetails last = batch.get(batch.size() - 1);
+            batchRequest = batchRequest.next(ContentCollectionCursor.of(last));
+        }
+    }
+
+    private boolean isVisible(ContentMetadataDetails<? extends ContentDetails> details,
+                              ContentAccessCredentials contentAccessCredentials) {
+        ContentMetadata metadata = details.getContentMetadata();
+        if (fromContentStatus(metadata.getContentStatus()).failed()) {
+            return false;
+        }
+        ContentPermitResult permitResult = contentPermitChecker.checkAccessPermit(
+                Content.of(metadata.getUserId(), metadata),
+                metadata.getContentAccessAuthType(),
+                contentAccessCredentials
+        );
+        return permitResult.isPermitted();
+    }
+
+    private ContentCollectionPageRequest currentPageRequest() {
+        ContextThread<PageableContext> contextThread =
+                pageableContextThreadAware.getContextThread();
+        if (contextThread == null || !contextThread.hasContext()) {
+            return ContentCollectionPageRequest.first(ContentCollectionPageRequest.DEFAULT_SIZE);
+        }
+        PageableContext pageableContext = contextThread.getContext();
+        return ContentCollectionPageRequest.bounded(
+                pageableContext.getPage(),
+                pageableContext.getSize()
+        );
     }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically recounts the content stats of users, repairs
+ * the drift of the incremental updates.
+ *
+ * @author RollW
+ */
+@Component
+public class ContentUserStatsRebuildJob {
+    private final ContentUserStatsService contentUserStatsService;
+
+    public ContentUserStatsRebuildJob(ContentUserStatsService contentUserStatsService) {
+        this.contentUserStatsService = contentUserStatsService;
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void rebuild() {
+        contentUserStatsService.rebuild();
+    }
+}
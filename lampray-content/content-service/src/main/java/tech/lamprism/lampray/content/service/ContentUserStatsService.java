@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.content.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import space.lingu.NonNull;
+import space.lingu.Nullable;
+import tech.lamprism.lampray.content.Content;
+import tech.lamprism.lampray.content.ContentStatus;
+import tech.lamprism.lampray.content.ContentType;
+import tech.lamprism.lampray.content.ContentUserStats;
+import tech.lamprism.lampray.content.ContentUserStatsProvider;
+import tech.lamprism.lampray.content.persistence.ContentMetadataRepository;
+import tech.lamprism.lampray.content.persistence.ContentUserCount;
+import tech.lamprism.lampray.content.persistence.ContentUserStatsDo;
+import tech.lamprism.lampray.content.persistence.ContentUserStatsRepository;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the numbers of public contents of users.
+ * <p>
+ * Counts are stored in the {@code content_user_stats} table and
+ * changed incrementally on content status transitions, reads are
+ * served from memory. {@link #rebuild()} recounts everything from
+ * the content metadata for repair.
+ *
+ * @author RollW
+ */
+@Service
+public class ContentUserStatsService implements ContentUserStatsProvider {
+    private static final Logger logger = LoggerFactory.getLogger(ContentUserStatsService.class);
+
+    private final ContentUserStatsRepository contentUserStatsRepository;
+    private final ContentMetadataRepository contentMetadataRepository;
+    private final Cache<Long, ContentUserStats> userStatsCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(60, TimeUnit.MINUTES)
+            .build();
+
+    public ContentUserStatsService(ContentUserStatsRepository contentUserStatsRepository,
+                                   ContentMetadataRepository contentMetadataRepository) {
+        this.contentUserStatsRepository = contentUserStatsRepository;
+        this.contentMetadataRepository = contentMetadataRepository;
+    }
+
+    @NonNull
+    @Override
+    public ContentUserStats getUserStats(long userId) {
+        return userStatsCache.get(userId, this::loadUserStats);
+    }
+
+    /**
+     * Apply a status transition of the content to the counts.
+     *
+     * @param previousStatus null if the content is just created.
+     */
+    public void onStatusChanged(@NonNull Content content,
+                                @Nullable ContentStatus previousStatus,
+                                @NonNull ContentStatus currentStatus) {
+        long delta = countOf(currentStatus) - countOf(previousStatus);
+        if (delta == 0) {
+            return;
+        }
+        increase(content.getUserId(), content.getContentType(), delta);
+    }
+
+    private void increase(long userId, ContentType contentType, long delta) {
+        try {
+            if (!contentUserStatsRepository.increase(userId, contentType, delta)) {
+                contentUserStatsRepository.save(new ContentUserStatsDo(
+                        null, userId, contentType, Math.max(delta, 0)));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // the row is inserted concurrently, retries the update.
+            contentUserStatsRepository.increase(userId, contentType, delta);
+        } finally {
+            userStatsCache.invalidate(userId);
+        }
+    }
+
+    /**
+     * Recount the public contents of all users.
+     */
+    @Transactional
+    public void rebuild() {
+        List<ContentUserCount> counts =
+                contentMetadataRepository.countByStatus(ContentStatus.PUBLISHED);
+        contentUserStatsRepository.deleteAllInBatch();
+        contentUserStatsRepository.saveAll(counts.stream()
+                .map(ContentUserStatsService::toDo)
+                .toList());
+        userStatsCache.invalidateAll();
+        logger.info("Rebuilt content stats of users, {} rows.", counts.size());
+    }
+
+    /**
+     * Recount the public contents of the user.
+     */
+    @Transactional
+    public void rebuild(long userId) {
+        List<ContentUserCount> counts = contentMetadataRepository
+                .countByUserIdAndStatus(userId, ContentStatus.PUBLISHED);
+        contentUserStatsRepository.deleteByUserId(userId);
+        contentUserStatsRepository.saveAll(counts.stream()
+                .map(ContentUserStatsService::toDo)
+                .toList());
+        userStatsCache.invalidate(userId);
+    }
+
+    private ContentUserStats loadUserStats(long userId) {
+        List<ContentUserStatsDo> rows = contentUserStatsRepository.findByUserId(userId);
+        if (rows.isEmpty()) {
+            return ContentUserStats.empty(userId);
+        }
+        Map<ContentType, Long> publicCounts = new EnumMap<>(ContentType.class);
+        for (ContentUserStatsDo row : rows) {
+            publicCounts.put(row.getContentType(), Math.max(row.getPublicCount(), 0));
+        }
+        return new ContentUserStats(userId, publicCounts);
+    }
+
+    private static long countOf(@Nullable ContentStatus contentStatus) {
+        return contentStatus != null && contentStatus.isPublicVisitable() ? 1 : 0;
+    }
+
+    private static ContentUserStatsDo toDo(ContentUserCount count) {
+        return new ContentUserStatsDo(null, count.getUserId(),
+                count.getContentType(), count.getCount());
+    }
+}
@@ -16,12 +16,22 @@
 
 package tech.lamprism.lampray.content.review.persistence
 
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
 import tech.lamprism.lampray.common.data.CommonDao
 import tech.lamprism.lampray.common.data.Dao
+import tech.lamprism.lampray.content.review.ReviewStatus
 
 /**
  * @author RollW
  */
 @Dao
 interface ReviewJobDao : CommonDao<ReviewJobDo, Long> {
+    @Query(
+        "SELECT new tech.lamprism.lampray.content.review.persistence.ReviewerJobCount(" +
+                "j.reviewerId, j.reviewContentType, COUNT(j)) " +
+                "FROM ReviewJobDo j WHERE j.status = :status " +
+                "GROUP BY j.reviewerId, j.reviewContentType"
+    )
+    fun countByStatus(@Param("status") status: ReviewStatus): List<ReviewerJobCount>
 }
\ No newline at end of file
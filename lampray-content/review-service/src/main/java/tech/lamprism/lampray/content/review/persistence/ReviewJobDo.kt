@@ -23,6 +23,7 @@ import jakarta.persistence.Enumerated
 import jakarta.persistence.GeneratedValue
 import jakarta.persistence.GenerationType
 import jakarta.persistence.Id
+import jakarta.persistence.Index
 import jakarta.persistence.Table
 import jakarta.persistence.Temporal
 import jakarta.persistence.TemporalType
@@ -44,7 +45,11 @@ import java.time.OffsetDateTime
  * @author RollW
  */
 @Entity
-@Table(name = "review_job")
+@Table(
+    name = "review_job", indexes = [
+        Index(columnList = "status, reviewer_id", name = "index__status_reviewer")
+    ]
+)
 class ReviewJobDo(
     @Id
     @Column(name = "id", nullable = false)
@@ -70,6 +70,12 @@ class ReviewJobRepository(
             )
         }
 
+    /**
+     * Count the jobs in the status by reviewer and content type.
+     */
+    fun countByStatus(reviewStatus: ReviewStatus): List<ReviewerJobCount> =
+        reviewJobDao.countByStatus(reviewStatus)
+
     fun findByStatus(reviewStatus: ReviewStatus): List<ReviewJobDo> {
         return findAll(createStatusSpecification(reviewStatus))
     }
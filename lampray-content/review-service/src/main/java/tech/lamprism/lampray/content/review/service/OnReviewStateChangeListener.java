@@ -18,15 +18,12 @@ package tech.lamprism.lampray.content.review.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import space.lingu.NonNull;
-import tech.lamprism.lampray.content.Content;
 import tech.lamprism.lampray.content.ContentMetadata;
 import tech.lamprism.lampray.content.ContentStatus;
-import tech.lamprism.lampray.content.SimpleContentInfo;
 import tech.lamprism.lampray.content.event.ContentStatusEvent;
 import tech.lamprism.lampray.content.service.ContentMetadataService;
 import tech.lamprism.lampray.content.review.ReviewJob;
@@ -40,13 +37,11 @@ import tech.lamprism.lampray.content.review.event.OnReviewStateChangeEvent;
  */
 @Component
 public class OnReviewStateChangeListener implements ApplicationListener<OnReviewStateChangeEvent> {
-    private final ApplicationEventPublisher eventPublisher;
     private final ContentMetadataService contentMetadataService;
 
     private static final Logger logger = LoggerFactory.getLogger(OnReviewStateChangeListener.class);
 
-    public OnReviewStateChangeListener(ApplicationEventPublisher eventPublisher, ContentMetadataService contentMetadataService) {
-        this.eventPublisher = eventPublisher;
+    public OnReviewStateChangeListener(ContentMetadataService contentMetadataService) {
         this.contentMetadataService = contentMetadataService;
     }
 
@@ -58,22 +53,14 @@ public class OnReviewStateChangeListener implements ApplicationListener<OnReview
         ContentMetadata metadata = contentMetadataService.getMetadata(
                 reviewJob.getAssociatedContent()
         );
-        Content content = new SimpleContentInfo(
-                metadata.getUserId(),
-                metadata.getContentId(),
-                metadata.getContentType()
-        );
         ContentStatus currentStatus = toContentStatus(event.getCurrentStatus());
-        ContentStatus previousStatus = toContentStatus(event.getPreviousStatus());
+        // the metadata service publishes the ContentStatusEvent
+        // when the status is changed.
         contentMetadataService.updateMetadata(
                 metadata.toBuilder()
                         .setContentStatus(currentStatus)
                         .build()
         );
-        ContentStatusEvent<?> contentStatusEvent = new ContentStatusEvent<>(
-                content, reviewJob.getReviewTime(),
-                previousStatus, currentStatus);
-        eventPublisher.publishEvent(contentStatusEvent);
     }
 
     private static ContentStatus toContentStatus(ReviewStatus status) {
@@ -24,6 +24,7 @@ dependencies {
     api(project(":lampray-user:user-api"))
     api(libs.rollw.web.common.core)
     api("org.springframework.security:spring-security-core")
+    implementation(libs.caffeine)
     api("jakarta.servlet:jakarta.servlet-api")
 }
 
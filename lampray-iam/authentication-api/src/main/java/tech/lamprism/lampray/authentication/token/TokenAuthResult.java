@@ -16,15 +16,25 @@
 
 package tech.lamprism.lampray.authentication.token;
 
+import space.lingu.Nullable;
+
+import java.time.OffsetDateTime;
+
 /**
  * @author RollW
  */
 public record TokenAuthResult(
         long userId,
-        String token
+        String token,
+        @Nullable OffsetDateTime expireTime
 ) {
 
     public static TokenAuthResult success(long userId, String token) {
-        return new TokenAuthResult(userId, token);
+        return new TokenAuthResult(userId, token, null);
+    }
+
+    public static TokenAuthResult success(long userId, String token,
+                                          @Nullable OffsetDateTime expireTime) {
+        return new TokenAuthResult(userId, token, expireTime);
     }
 }
@@ -38,15 +38,18 @@ public class TokenBasedAuthenticationProvider extends PrivilegedUserBasedAuthent
     private final AuthenticationTokenService authenticationTokenService;
     private final PrivilegedUserProvider privilegedUserProvider;
     private final UserSignatureProvider userSignatureProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     public TokenBasedAuthenticationProvider(
             AuthenticationTokenService authenticationTokenService,
             PrivilegedUserProvider privilegedUserProvider,
-            UserSignatureProvider userSignatureProvider
+            UserSignatureProvider userSignatureProvider,
+            VerifiedTokenCache verifiedTokenCache
     ) {
         this.authenticationTokenService = authenticationTokenService;
         this.privilegedUserProvider = privilegedUserProvider;
         this.userSignatureProvider = userSignatureProvider;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
@@ -58,6 +61,12 @@ public class TokenBasedAuthenticationProvider extends PrivilegedUserBasedAuthent
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
         TokenBasedAuthenticationToken tokenBasedAuthenticationToken = (TokenBasedAuthenticationToken) authentication;
         String token = tokenBasedAuthenticationToken.getCredentials();
+        PrivilegedUser cachedUser = verifiedTokenCache.get(token);
+        if (cachedUser != null) {
+            check(cachedUser);
+            return new PrivilegedUserAuthenticationToken(cachedUser);
+        }
+        long stamp = verifiedTokenCache.stamp();
         Long id = authenticationTokenService.getUserId(token);
         if (id == null) {
             throw new BadCredentialsException("Invalid token");
@@ -68,6 +77,8 @@ public class TokenBasedAuthenticationProvider extends PrivilegedUserBasedAuthent
             long userId = tokenAuthResult.userId();
             PrivilegedUser privilegedUser = privilegedUserProvider.loadPrivilegedUserById(userId);
             check(privilegedUser);
+            verifiedTokenCache.put(token, privilegedUser,
+                    tokenAuthResult.expireTime(), stamp);
             return new PrivilegedUserAuthenticationToken(privilegedUser);
         } catch (CommonRuntimeException e) {
             throw new TokenAuthenticationException(e);
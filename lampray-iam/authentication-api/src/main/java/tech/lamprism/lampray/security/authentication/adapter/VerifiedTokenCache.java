@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.security.authentication.adapter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.hash.Hashing;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import space.lingu.NonNull;
+import space.lingu.Nullable;
+import tech.lamprism.lampray.security.authorization.PrivilegedUser;
+import tech.lamprism.lampray.user.event.OnUserTokenRevokeEvent;
+import tech.lamprism.lampray.user.event.OnUserUpdateEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of verified tokens and their users, keyed by the digest
+ * of the token so raw tokens are not kept in memory.
+ * <p>
+ * An entry never outlives the expiration of its token, and all
+ * entries of a user are dropped once the user is updated, which
+ * covers password, role and account status changes, or once the
+ * tokens of the user are revoked. Both events are also published
+ * for updates and revocations made on other nodes, picked up by
+ * polling the users and token versions, so an entry is kept for at
+ * most a few seconds after the change on any node.
+ *
+ * @author RollW
+ */
+public class VerifiedTokenCache implements SmartApplicationListener {
+    private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final Duration DEFAULT_MAX_TTL = Duration.ofMinutes(10);
+
+    private final Cache<String, VerifiedToken> cache;
+    private final long maxTtlNanos;
+    /**
+     * Increased on every invalidation, guards against caching
+     * a user that was loaded before an invalidation.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public VerifiedTokenCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_MAX_TTL);
+    }
+
+    public VerifiedTokenCache(long maximumSize, @NonNull Duration maxTtl) {
+        this.maxTtlNanos = maxTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
+
+    @Nullable
+    public PrivilegedUser get(@NonNull String token) {
+        VerifiedToken verifiedToken = cache.getIfPresent(digest(token));
+        if (verifiedToken == null) {
+            return null;
+        }
+        return verifiedToken.user();
+    }
+
+    /**
+     * Get the stamp to pass to {@link #put}, must be taken before
+     * the user is loaded.
+     */
+    public long stamp() {
+        return generation.get();
+    }
+
+    public void put(@NonNull String token,
+                    @NonNull PrivilegedUser user,
+                    @Nullable OffsetDateTime expireTime,
+                    long stamp) {
+        long ttlNanos = ttlNanosOf(expireTime);
+        if (ttlNanos <= 0) {
+            return;
+        }
+        String digest = digest(token);
+        cache.put(digest, new VerifiedToken(user, ttlNanos));
+        if (generation.get() != stamp) {
+            // invalidated while loading, the user may be stale.
+            cache.invalidate(digest);
+        }
+    }
+
+    public void invalidateUser(long userId) {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(verifiedToken ->
+                verifiedToken.user().getUserId() == userId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public boolean supportsEventType(@NonNull Class<? extends ApplicationEvent> eventType) {
+        return OnUserUpdateEvent.class.isAssignableFrom(eventType) ||
+                OnUserTokenRevokeEvent.class.isAssignableFrom(eventType);
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationEvent event) {
+        if (event instanceof OnUserUpdateEvent updateEvent) {
+            invalidateUser(updateEvent.getUser().getUserId());
+        } else if (event instanceof OnUserTokenRevokeEvent revokeEvent) {
+            invalidateUser(revokeEvent.getUserId());
+        }
+    }
+
+    private long ttlNanosOf(@Nullable OffsetDateTime expireTime) {
+        if (expireTime == null) {
+            return maxTtlNanos;
+        }
+        long remaining = Duration.between(OffsetDateTime.now(), expireTime).toNanos();
+        return Math.min(remaining, maxTtlNanos);
+    }
+
+    private static String digest(String token) {
+        return Hashing.sha256()
+                .hashString(token, StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    private record VerifiedToken(PrivilegedUser user, long ttlNanos) {
+    }
+
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value,
+                                      long currentTime, long currentDuration) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
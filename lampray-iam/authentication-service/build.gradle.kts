@@ -27,6 +27,7 @@ dependencies {
     implementation(libs.io.jsonwebtoken.jjwt.api)
     implementation(libs.io.jsonwebtoken.jjwt.impl)
     implementation(libs.io.jsonwebtoken.jjwt.jackson)
+    implementation(libs.caffeine)
 }
 
 description = "lampray-authentication-service"
@@ -16,35 +16,60 @@
 
 package tech.lamprism.lampray.authentication.token;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Header;
 import io.jsonwebtoken.Jwt;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SecurityException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Service;
+import space.lingu.NonNull;
 import tech.lamprism.lampray.authentication.SecurityConfigKeys;
 import tech.lamprism.lampray.setting.ConfigReader;
+import tech.lamprism.lampray.setting.event.SettingValueChangedEvent;
 import tech.rollw.common.web.AuthErrorCode;
 import tech.rollw.common.web.system.AuthenticationException;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * JWT based {@link AuthenticationTokenService}.
+ * <p>
+ * Signing keys and parsers are cached by the digest of the user
+ * signature, token settings are cached until they are changed.
+ *
  * @author RollW
  */
 @Service
-public class JwtAuthTokenService implements AuthenticationTokenService {
+public class JwtAuthTokenService implements AuthenticationTokenService,
+        ApplicationListener<SettingValueChangedEvent<?, ?>> {
     private static final String TOKEN_HEAD = "Bearer ";
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthTokenService.class);
 
+    private static final JwtParser UNVERIFIED_PARSER = Jwts.parserBuilder()
+            .setClock(JwtAuthTokenService::getVerifydate)
+            .build();
+
     private final ConfigReader configReader;
+    private final Cache<String, SigningMaterial> signingMaterials = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+    private volatile TokenSettings tokenSettings;
 
     public JwtAuthTokenService(ConfigReader configReader) {
         this.configReader = configReader;
@@ -52,15 +77,14 @@ public class JwtAuthTokenService implements AuthenticationTokenService {
 
     @Override
     public String generateAuthToken(long userId, String signature) {
-        Long expireTime = configReader.get(SecurityConfigKeys.TOKEN_EXPIRE_TIME, DAYS_7);
-        return generateAuthToken(userId, signature, expireTime);
+        return generateAuthToken(userId, signature, getTokenSettings().expireTime());
     }
 
     @Override
     public String generateAuthToken(long userId, String signature,
                                     long expireTimeInSecond) {
-        String issuer = configReader.get(SecurityConfigKeys.TOKEN_ISSUER);
-        Key key = Keys.hmacShaKeyFor(signature.getBytes(StandardCharsets.UTF_8));
+        String issuer = getTokenSettings().issuer();
+        Key key = getSigningMaterial(signature).key();
         String rawToken = Jwts.builder()
                 .setSubject(String.valueOf(userId))
                 .setExpiration(getExpirationDateFromNow(expireTimeInSecond))
@@ -80,13 +104,13 @@ public class JwtAuthTokenService implements AuthenticationTokenService {
         }
         String rawToken = token.substring(TOKEN_HEAD.length());
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(signature.getBytes(StandardCharsets.UTF_8))
-                    .build()
+            Claims claims = getSigningMaterial(signature)
+                    .parser()
                     .parseClaimsJws(rawToken)
                     .getBody();
             long userId = Long.parseLong(claims.getSubject());
-            return TokenAuthResult.success(userId, token);
+            return TokenAuthResult.success(userId, token,
+                    toOffsetDateTime(claims.getExpiration()));
         } catch (ExpiredJwtException e) {
             throw new AuthenticationException(AuthErrorCode.ERROR_TOKEN_EXPIRED);
         } catch (SecurityException e) {
@@ -121,19 +145,74 @@ public class JwtAuthTokenService implements AuthenticationTokenService {
         }
         int i = token.lastIndexOf('.');
         String withoutSignature = token.substring(0, i + 1);
-        Jwt<Header, Claims> untrusted = Jwts.parserBuilder()
-                .setClock(JwtAuthTokenService::getVerifydate)
-                .build()
+        Jwt<Header, Claims> untrusted = UNVERIFIED_PARSER
                 .parseClaimsJwt(withoutSignature);
         return untrusted.getBody();
     }
 
+    private SigningMaterial getSigningMaterial(String signature) {
+        String digest = Hashing.sha256()
+                .hashString(signature, StandardCharsets.UTF_8)
+                .toString();
+        return signingMaterials.get(digest, ignored -> {
+            Key key = Keys.hmacShaKeyFor(signature.getBytes(StandardCharsets.UTF_8));
+            JwtParser parser = Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .build();
+            return new SigningMaterial(key, parser);
+        });
+    }
+
+    private TokenSettings getTokenSettings() {
+        TokenSettings settings = tokenSettings;
+        if (settings != null) {
+            return settings;
+        }
+        settings = loadTokenSettings();
+        tokenSettings = settings;
+        return settings;
+    }
+
+    private TokenSettings loadTokenSettings() {
+        return new TokenSettings(
+                configReader.get(SecurityConfigKeys.TOKEN_ISSUER),
+                configReader.get(SecurityConfigKeys.TOKEN_EXPIRE_TIME, DAYS_7)
+        );
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull SettingValueChangedEvent<?, ?> event) {
+        if (event.getSpecification().getKey().getName()
+                .startsWith(SecurityConfigKeys.PREFIX)) {
+            // parsers do not depend on the settings, only reloads
+            // the settings.
+            tokenSettings = loadTokenSettings();
+        }
+    }
+
+    /**
+     * Key and parser built from a user signature, both are
+     * immutable and thread-safe.
+     */
+    private record SigningMaterial(Key key, JwtParser parser) {
+    }
+
+    private record TokenSettings(String issuer, long expireTime) {
+    }
+
     private static final Date VERIFYDATE = new Date(1);
 
     private static Date getVerifydate() {
         return VERIFYDATE;
     }
 
+    private static OffsetDateTime toOffsetDateTime(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return date.toInstant().atOffset(ZoneOffset.UTC);
+    }
+
     private Date getExpirationDateFromNow(long expireTimeInSecond) {
         long now = System.currentTimeMillis();
         long exp = now + expireTimeInSecond * 1000;
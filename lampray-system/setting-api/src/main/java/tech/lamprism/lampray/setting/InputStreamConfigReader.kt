@@ -29,6 +29,7 @@ import java.util.Properties
  */
 class InputStreamConfigReader(inputStream: InputStream) : ConfigReader {
     private val properties: Properties = Properties()
+    private val valueCache = SettingValueCache()
 
     init {
         properties.load(inputStream)
@@ -50,9 +51,7 @@ class InputStreamConfigReader(inputStream: InputStream) : ConfigReader {
 
     private fun <T, V> getRaw(specification: SettingSpecification<T, V>): T? {
         val value = properties.getProperty(specification.keyName) ?: return null
-        return with(SettingSpecificationHelper) {
-            value.deserialize(specification)
-        }
+        return valueCache[specification, value]
     }
 
     override operator fun <T, V> get(spec: SettingSpecification<T, V>): T? {
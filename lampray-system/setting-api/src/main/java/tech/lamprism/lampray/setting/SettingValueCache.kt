@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.setting
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Cache of parsed setting values.
+ *
+ * A raw value is parsed once per [SettingKey], the parsed value is
+ * reused as long as the raw value stays the same, so hot reads do
+ * not parse or box again.
+ *
+ * @author RollW
+ */
+class SettingValueCache {
+    private val values = ConcurrentHashMap<SettingKey<*, *>, ParsedValue>()
+
+    @Suppress("UNCHECKED_CAST")
+    operator fun <T, V> get(specification: SettingSpecification<T, V>, rawValue: String?): T? {
+        if (rawValue == null) {
+            return null
+        }
+        val cached = values[specification.key]
+        if (cached != null && cached.matches(rawValue)) {
+            return cached.value as T?
+        }
+        val parsed = with(SettingSpecificationHelper) {
+            rawValue.deserialize(specification)
+        }
+        values[specification.key] = ParsedValue(rawValue, parsed)
+        return parsed
+    }
+
+    /**
+     * Put the written value, so it is not parsed again on read.
+     */
+    fun <T, V> put(specification: SettingSpecification<T, V>, rawValue: String?, value: T?) {
+        if (rawValue == null) {
+            values.remove(specification.key)
+            return
+        }
+        values[specification.key] = ParsedValue(rawValue, value)
+    }
+
+    fun clear() {
+        values.clear()
+    }
+
+    private class ParsedValue(
+        val rawValue: String,
+        val value: Any?
+    ) {
+        fun matches(rawValue: String): Boolean =
+            this.rawValue === rawValue || this.rawValue == rawValue
+    }
+}
@@ -23,18 +23,33 @@ import tech.lamprism.lampray.setting.SettingSource
 import tech.lamprism.lampray.setting.SettingSpecification
 import tech.lamprism.lampray.setting.SettingSpecification.Companion.keyName
 import tech.lamprism.lampray.setting.SettingSpecificationHelper
+import tech.lamprism.lampray.setting.SettingValueCache
 import tech.lamprism.lampray.setting.data.SystemSettingDo
 import tech.lamprism.lampray.setting.data.SystemSettingRepository
+import java.util.UUID
 
 /**
+ * [ConfigProvider] of settings stored in the database.
+ *
+ * Reads are served from an immutable [SystemSettingSnapshot], which
+ * is loaded once and swapped on every write. Writes also change the
+ * version row, other nodes poll it by [refreshIfChanged] to converge.
+ * Typed values are parsed once and cached by [SettingValueCache].
+ *
  * @author RollW
  */
 @Service
 class SystemSettingConfigProvider(
-    private val systemSettingRepository: SystemSettingRepository
+    private val systemSettingRepository: SystemSettingRepository,
+    private val systemSettingEventRegistry: SystemSettingEventRegistry
 ) : ConfigProvider {
+    @Volatile
+    private var snapshot: SystemSettingSnapshot? = null
+    private val valueCache = SettingValueCache()
+    private val lock = Any()
+
     override fun get(key: String): String? {
-        return systemSettingRepository.findByKey(key)?.value
+        return snapshot()[key]
     }
 
     override fun get(key: String, defaultValue: String?): String? =
@@ -46,11 +61,9 @@ class SystemSettingConfigProvider(
         get(key) ?: defaultValue
 
     override fun <T, V> get(specification: SettingSpecification<T, V>): T? {
-        val setting = systemSettingRepository.findByKey(specification.keyName)
+        val value = snapshot()[specification.keyName]
             ?: return null
-        return with(SettingSpecificationHelper) {
-            setting.value.deserialize(specification)
-        }
+        return valueCache[specification, value]
     }
 
     override fun <T, V> get(
@@ -59,7 +72,7 @@ class SystemSettingConfigProvider(
     ): T = get(specification) ?: defaultValue
 
     override fun list(): List<RawSettingValue> {
-        return systemSettingRepository.findAll().map {
+        return snapshot().entries.map {
             RawSettingValue(
                 it.key,
                 it.value,
@@ -69,35 +82,97 @@ class SystemSettingConfigProvider(
     }
 
     override fun set(key: String, value: String?) {
-        val setting = systemSettingRepository.findByKey(key)
-        if (setting != null) {
-            setting.value = value
-            systemSettingRepository.save(setting)
-            return
-        }
-        val newSetting = SystemSettingDo(
-            key = key,
-            value = value
-        )
-        systemSettingRepository.save(newSetting)
+        store(key, value)
+        systemSettingEventRegistry.publish(key, value)
     }
 
     override fun <T, V> set(spec: SettingSpecification<T, V>, value: T?) {
-        val setting = systemSettingRepository.findByKey(spec.keyName)
-        val value = with(SettingSpecificationHelper) {
+        val rawValue = with(SettingSpecificationHelper) {
             value.serialize(spec)
         }
-        if (setting != null) {
-            setting.value = value
-            systemSettingRepository.save(setting)
+        store(spec.keyName, rawValue)
+        valueCache.put(spec, rawValue, value)
+        systemSettingEventRegistry.publish(spec, value, rawValue)
+    }
+
+    override fun supports(key: String): Boolean = key != VERSION_KEY
+
+    /**
+     * Reload the settings if the version row was changed by
+     * other nodes, and publish the changed settings.
+     */
+    fun refreshIfChanged() {
+        val current = snapshot()
+        val stamp = systemSettingRepository.findByKey(VERSION_KEY)?.value
+        if (stamp == current.stamp) {
             return
         }
-        val newSetting = SystemSettingDo(
-            key = spec.key.name,
-            value = value
-        )
-        systemSettingRepository.save(newSetting)
+        val changedKeys = synchronized(lock) {
+            val previous = snapshot()
+            if (stamp == previous.stamp) {
+                return
+            }
+            val loaded = load(previous.version + 1)
+            snapshot = loaded
+            loaded.changedKeys(previous)
+        }
+        val loaded = snapshot()
+        changedKeys.forEach {
+            systemSettingEventRegistry.publish(it, loaded[it])
+        }
     }
 
-    override fun supports(key: String): Boolean = true
-}
\ No newline at end of file
+    private fun store(key: String, value: String?) {
+        require(key != VERSION_KEY) { "Cannot set the reserved key: $key" }
+        synchronized(lock) {
+            val setting = systemSettingRepository.findByKey(key)
+            if (setting != null) {
+                setting.value = value
+                systemSettingRepository.save(setting)
+            } else {
+                systemSettingRepository.save(SystemSettingDo(key = key, value = value))
+            }
+            val stamp = changeVersion()
+            snapshot = snapshot().with(key, value, stamp)
+        }
+    }
+
+    private fun changeVersion(): String {
+        val stamp = UUID.randomUUID().toString()
+        val versionRow = systemSettingRepository.findByKey(VERSION_KEY)
+            ?: SystemSettingDo(key = VERSION_KEY)
+        versionRow.value = stamp
+        systemSettingRepository.save(versionRow)
+        return stamp
+    }
+
+    private fun snapshot(): SystemSettingSnapshot {
+        snapshot?.let { return it }
+        synchronized(lock) {
+            snapshot?.let { return it }
+            val loaded = load(1)
+            snapshot = loaded
+            return loaded
+        }
+    }
+
+    private fun load(version: Long): SystemSettingSnapshot {
+        var stamp: String? = null
+        val values = HashMap<String, String?>()
+        systemSettingRepository.findAll().forEach {
+            if (it.key == VERSION_KEY) {
+                stamp = it.value
+            } else {
+                values[it.key] = it.value
+            }
+        }
+        return SystemSettingSnapshot(version, stamp, values)
+    }
+
+    companion object {
+        /**
+         * Reserved key of the version row.
+         */
+        const val VERSION_KEY = "system.setting.version"
+    }
+}
@@ -16,20 +16,76 @@
 
 package tech.lamprism.lampray.setting.service
 
+import org.slf4j.logger
+import org.springframework.context.ApplicationEventPublisher
 import org.springframework.stereotype.Service
 import tech.lamprism.lampray.setting.RawSettingValue
+import tech.lamprism.lampray.setting.SettingKey
+import tech.lamprism.lampray.setting.SettingSource
+import tech.lamprism.lampray.setting.SettingSpecification
+import tech.lamprism.lampray.setting.SimpleSettingSpec
+import tech.lamprism.lampray.setting.event.SettingValueChangedEvent
 import tech.rollw.common.event.EventCallback
 import tech.rollw.common.event.EventRegistry
+import java.util.concurrent.CopyOnWriteArrayList
 
 /**
+ * Dispatches changes of system settings, both as
+ * [SettingValueChangedEvent] and to the registered callbacks.
+ *
+ * The message pattern of a callback is the prefix of the setting
+ * keys it listens to, an empty pattern matches all keys.
+ *
  * @author RollW
  */
 @Service
-class SystemSettingEventRegistry: EventRegistry<RawSettingValue, String> {
+class SystemSettingEventRegistry(
+    private val eventPublisher: ApplicationEventPublisher
+) : EventRegistry<RawSettingValue, String> {
+    private val callbacks = CopyOnWriteArrayList<Registration>()
+
     override fun register(
         eventCallback: EventCallback<RawSettingValue>,
         messagePattern: String
     ) {
-        // TODO
+        callbacks.add(Registration(messagePattern, eventCallback))
+    }
+
+    fun <T, V> publish(
+        specification: SettingSpecification<T, V>,
+        value: T?,
+        rawValue: String?
+    ) {
+        eventPublisher.publishEvent(SettingValueChangedEvent(specification, value))
+        val settingValue = RawSettingValue(
+            specification.key.name, rawValue, SettingSource.DATABASE
+        )
+        callbacks.forEach {
+            if (!settingValue.key.startsWith(it.pattern)) {
+                return@forEach
+            }
+            try {
+                it.callback.onEvent(settingValue)
+            } catch (e: Exception) {
+                logger.error("Error while handling setting change of '{}'.",
+                    settingValue.key, e)
+            }
+        }
+    }
+
+    /**
+     * Publish a change known only by its raw value.
+     */
+    fun publish(key: String, rawValue: String?) {
+        publish(SimpleSettingSpec(SettingKey.ofString(key)), rawValue, rawValue)
+    }
+
+    private data class Registration(
+        val pattern: String,
+        val callback: EventCallback<RawSettingValue>
+    )
+
+    companion object {
+        private val logger = logger<SystemSettingEventRegistry>()
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.setting.service
+
+/**
+ * Immutable snapshot of all system settings.
+ *
+ * @param version local version of the snapshot, increased on
+ * every change.
+ * @param stamp the stamp of the version row when the snapshot
+ * was taken, used to detect changes made by other nodes.
+ * @author RollW
+ */
+class SystemSettingSnapshot(
+    val version: Long,
+    val stamp: String?,
+    private val values: Map<String, String?>
+) {
+    operator fun get(key: String): String? = values[key]
+
+    fun contains(key: String): Boolean = values.containsKey(key)
+
+    val entries: Set<Map.Entry<String, String?>>
+        get() = values.entries
+
+    fun with(key: String, value: String?, stamp: String?): SystemSettingSnapshot {
+        val newValues = HashMap(values)
+        newValues[key] = value
+        return SystemSettingSnapshot(version + 1, stamp, newValues)
+    }
+
+    /**
+     * Get the keys whose values differ from the other snapshot.
+     */
+    fun changedKeys(other: SystemSettingSnapshot): Set<String> {
+        val keys = HashSet<String>()
+        values.forEach { (key, value) ->
+            if (!other.contains(key) || other[key] != value) {
+                keys.add(key)
+            }
+        }
+        other.values.keys.forEach { key ->
+            if (!values.containsKey(key)) {
+                keys.add(key)
+            }
+        }
+        return keys
+    }
+
+    companion object {
+        @JvmField
+        val EMPTY = SystemSettingSnapshot(0, null, emptyMap())
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.staff.persistence
+
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+
+@Dao
+interface ReviewerLoadDao : CommonDao<ReviewerLoadDo, Long> {
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE ReviewerLoadDo l SET l.load = l.load + :delta " +
+                "WHERE l.reviewerId = :reviewerId"
+    )
+    fun increase(
+        @Param("reviewerId") reviewerId: Long,
+        @Param("delta") delta: Long
+    ): Int
+
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE ReviewerLoadDo l SET l.load = :load " +
+                "WHERE l.reviewerId = :reviewerId"
+    )
+    fun setLoad(
+        @Param("reviewerId") reviewerId: Long,
+        @Param("load") load: Long
+    ): Int
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.staff.persistence
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.Id
+import jakarta.persistence.Table
+import tech.lamprism.lampray.DataEntity
+import tech.lamprism.lampray.TimeAttributed
+import tech.lamprism.lampray.staff.StaffResourceKind
+import tech.rollw.common.web.system.SystemResourceKind
+import java.time.OffsetDateTime
+
+/**
+ * Weighted number of the review jobs not reviewed yet
+ * of a reviewer.
+ *
+ * @author RollW
+ */
+@Entity
+@Table(name = "reviewer_load")
+class ReviewerLoadDo(
+    @Id
+    @Column(name = "reviewer_id", nullable = false)
+    var reviewerId: Long = 0,
+
+    @Column(name = "load_weight", nullable = false)
+    var load: Long = 0
+) : DataEntity<Long> {
+    override fun getId(): Long = reviewerId
+
+    override fun getCreateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getUpdateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getSystemResourceKind(): SystemResourceKind =
+        StaffResourceKind
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.staff.persistence
+
+import org.springframework.stereotype.Repository
+import tech.lamprism.lampray.common.data.CommonRepository
+
+@Repository
+class ReviewerLoadRepository(
+    private val reviewerLoadDao: ReviewerLoadDao
+) : CommonRepository<ReviewerLoadDo, Long>(reviewerLoadDao) {
+    /**
+     * Increase the load of the reviewer by the given delta,
+     * which may be negative.
+     *
+     * @return false if there is no row of the reviewer.
+     */
+    fun increase(reviewerId: Long, delta: Long): Boolean =
+        reviewerLoadDao.increase(reviewerId, delta) > 0
+
+    /**
+     * Set the load of the reviewer in place.
+     *
+     * @return false if there is no row of the reviewer.
+     */
+    fun setLoad(reviewerId: Long, load: Long): Boolean =
+        reviewerLoadDao.setLoad(reviewerId, load) > 0
+}
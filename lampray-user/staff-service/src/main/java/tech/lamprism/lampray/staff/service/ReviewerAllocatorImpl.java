@@ -18,77 +18,63 @@ package tech.lamprism.lampray.staff.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import tech.lamprism.lampray.content.ContentType;
 import tech.lamprism.lampray.content.review.ReviewStatus;
 import tech.lamprism.lampray.content.review.ReviewerAllocator;
 import tech.lamprism.lampray.content.review.persistence.ReviewJobRepository;
+import tech.lamprism.lampray.content.review.persistence.ReviewerJobCount;
 import tech.lamprism.lampray.staff.OnStaffEventListener;
 import tech.lamprism.lampray.staff.Staff;
+import tech.lamprism.lampray.staff.StaffType;
+import tech.lamprism.lampray.staff.persistence.ReviewerLoadDo;
+import tech.lamprism.lampray.staff.persistence.ReviewerLoadRepository;
+import tech.lamprism.lampray.staff.persistence.StaffDo;
+import tech.lamprism.lampray.staff.persistence.StaffRepository;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Allocates the reviewer with the least load, where the load of a
+ * reviewer is the sum of weights of its jobs not reviewed yet.
+ * <p>
+ * Loads are kept in a {@link ReviewerLoadHeap} guarded by a short
+ * lock, and persisted as counters in {@link ReviewerLoadRepository}
+ * so that all nodes share them. The heap is reloaded from the
+ * counters by {@link #refresh()}, and the counters are recounted
+ * from the review jobs by {@link #reconcile()}.
+ * <p>
+ * Recounted loads are written into the counters in place, so
+ * reconciliations running on several nodes at once only write
+ * the same loads, and allocations made meanwhile are kept in the
+ * counters, except those between the recount and its write.
+ *
  * @author RollW
  */
 @Service
 public class ReviewerAllocatorImpl implements ReviewerAllocator, OnStaffEventListener {
-   private static final Logger logger = LoggerFactory.getLogger(ReviewerAllocatorImpl.class);
+    private static final Logger logger = LoggerFactory.getLogger(ReviewerAllocatorImpl.class);
 
     private final ReviewJobRepository reviewJobRepository;
-    private final Map<Long, Integer> weights = new HashMap<>();
-    private final TreeMap<Integer, List<Long>> staffReviewingCount = new TreeMap<>();
-
-    public ReviewerAllocatorImpl(ReviewJobRepository reviewJobRepository) {
-        this.reviewJobRepository = reviewJobRepository;
-        loadStaffReviewingCount();
-    }
+    private final StaffRepository staffRepository;
+    private final ReviewerLoadRepository reviewerLoadRepository;
 
-    private void loadStaffReviewingCount() {
-        weights.clear();
-        staffReviewingCount.clear();
-
-        // add weight by reviewer
-        reviewJobRepository.findByStatus(ReviewStatus.NOT_REVIEWED).forEach(reviewJob -> {
-            long reviewerId = reviewJob.getReviewerId();
-            int weight = reviewJob.getReviewContentType().getWeight();
-            weights.put(reviewerId, weights.getOrDefault(reviewerId, 0) + weight);
-        });
-
-        List<Staff> staffs = List.of();
-        // TODO: load staffs
-        staffs.forEach(staff -> {
-            if (weights.containsKey(staff.getUserId())) {
-                return;
-            }
-            weights.put(staff.getUserId(), 0);
-        });
+    private final ReviewerLoadHeap heap = new ReviewerLoadHeap();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean loaded = false;
 
-        weights.forEach((staffId, weight) -> {
-            List<Long> staffIds = staffReviewingCount.getOrDefault(weight,
-                    new ArrayList<>());
-            staffIds.add(staffId);
-            staffReviewingCount.put(weight, staffIds);
-        });
-
-        logger.info("Load staff reviewing count: {}", staffReviewingCount);
-    }
-
-    private void remappingReviewer(long reviewer, int original, int weight) {
-        weights.put(reviewer, weight);
-
-        List<Long> staffIds = staffReviewingCount.get(original);
-        staffIds.remove(reviewer);
-        if (staffIds.isEmpty()) {
-            staffReviewingCount.remove(original);
-        }
-        staffIds = staffReviewingCount.getOrDefault(weight, new ArrayList<>());
-        staffIds.add(reviewer);
-        staffReviewingCount.put(weight, staffIds);
+    public ReviewerAllocatorImpl(ReviewJobRepository reviewJobRepository,
+                                 StaffRepository staffRepository,
+                                 ReviewerLoadRepository reviewerLoadRepository) {
+        this.reviewJobRepository = reviewJobRepository;
+        this.staffRepository = staffRepository;
+        this.reviewerLoadRepository = reviewerLoadRepository;
     }
 
     @Override
@@ -96,13 +82,20 @@ public class ReviewerAllocatorImpl implements ReviewerAllocator, OnStaffEventLis
         if (canAutoReview(contentType) && allowAutoReviewer) {
             return AUTO_REVIEWER;
         }
-        Map.Entry<Integer, List<Long>> entry = staffReviewingCount.firstEntry();
-        if (entry == null) {
-            return AUTO_REVIEWER;
+        ensureLoaded();
+        int weight = contentType.getWeight();
+        long reviewerId;
+        lock.lock();
+        try {
+            if (heap.isEmpty()) {
+                return AUTO_REVIEWER;
+            }
+            reviewerId = heap.peek();
+            heap.update(reviewerId, heap.getLoad(reviewerId) + weight);
+        } finally {
+            lock.unlock();
         }
-        List<Long> ids = entry.getValue();
-        long reviewerId = ids.get(0);
-        remappingReviewer(reviewerId, entry.getKey(), entry.getKey() + contentType.getWeight());
+        persistLoad(reviewerId, weight);
         return reviewerId;
     }
 
@@ -111,11 +104,119 @@ public class ReviewerAllocatorImpl implements ReviewerAllocator, OnStaffEventLis
         if (reviewerId == AUTO_REVIEWER) {
             return;
         }
-        Integer weight = weights.get(reviewerId);
-        if (weight == null) {
+        ensureLoaded();
+        int weight = contentType.getWeight();
+        lock.lock();
+        try {
+            long load = heap.getLoad(reviewerId);
+            if (load >= 0) {
+                heap.update(reviewerId, Math.max(load - weight, 0));
+            }
+        } finally {
+            lock.unlock();
+        }
+        persistLoad(reviewerId, -weight);
+    }
+
+    private void persistLoad(long reviewerId, long delta) {
+        try {
+            if (reviewerLoadRepository.increase(reviewerId, delta)) {
+                return;
+            }
+            reviewerLoadRepository.save(new ReviewerLoadDo(reviewerId, Math.max(delta, 0)));
+        } catch (DataIntegrityViolationException e) {
+            // created by another node in the meantime.
+            reviewerLoadRepository.increase(reviewerId, delta);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to persist load of reviewer {}, will be repaired by reconciliation.",
+                    reviewerId, e);
+        }
+    }
+
+    private void writeLoad(long reviewerId, long load) {
+        if (reviewerLoadRepository.setLoad(reviewerId, load)) {
             return;
         }
-        remappingReviewer(reviewerId, weight, weight - contentType.getWeight());
+        try {
+            reviewerLoadRepository.save(new ReviewerLoadDo(reviewerId, load));
+        } catch (DataIntegrityViolationException e) {
+            // created by another node in the meantime.
+            reviewerLoadRepository.setLoad(reviewerId, load);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reload the heap from the persisted counters, picks up the
+     * allocations made by other nodes.
+     */
+    public void refresh() {
+        Set<Long> reviewerIds = loadReviewerIds();
+        Map<Long, Long> loads = new HashMap<>();
+        for (ReviewerLoadDo reviewerLoadDo : reviewerLoadRepository.findAll()) {
+            loads.put(reviewerLoadDo.getReviewerId(), reviewerLoadDo.getLoad());
+        }
+        resetHeap(reviewerIds, loads);
+    }
+
+    /**
+     * Recount the loads from the review jobs not reviewed yet,
+     * repairs the drift of the persisted counters.
+     */
+    public void reconcile() {
+        Set<Long> reviewerIds = loadReviewerIds();
+        Map<Long, Long> loads = new HashMap<>();
+        List<ReviewerJobCount> counts =
+                reviewJobRepository.countByStatus(ReviewStatus.NOT_REVIEWED);
+        for (ReviewerJobCount count : counts) {
+            if (count.getReviewerId() == AUTO_REVIEWER) {
+                continue;
+            }
+            loads.merge(count.getReviewerId(),
+                    count.getCount() * count.getContentType().getWeight(),
+                    Long::sum);
+        }
+        for (ReviewerLoadDo reviewerLoadDo : reviewerLoadRepository.findAll()) {
+            if (!loads.containsKey(reviewerLoadDo.getReviewerId()) &&
+                    reviewerLoadDo.getLoad() != 0) {
+                reviewerLoadRepository.setLoad(reviewerLoadDo.getReviewerId(), 0);
+            }
+        }
+        loads.forEach(this::writeLoad);
+        resetHeap(reviewerIds, loads);
+        logger.info("Reconciled loads of {} reviewers.", reviewerIds.size());
+    }
+
+    private void resetHeap(Set<Long> reviewerIds, Map<Long, Long> loads) {
+        lock.lock();
+        try {
+            heap.clear();
+            for (Long reviewerId : reviewerIds) {
+                heap.put(reviewerId, loads.getOrDefault(reviewerId, 0L));
+            }
+            loaded = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Set<Long> loadReviewerIds() {
+        Set<Long> reviewerIds = new HashSet<>();
+        for (StaffDo staffDo : staffRepository.findAll()) {
+            if (isReviewer(staffDo.lock())) {
+                reviewerIds.add(staffDo.getUserId());
+            }
+        }
+        return reviewerIds;
+    }
+
+    private static boolean isReviewer(Staff staff) {
+        return !staff.isDeleted() && staff.hasType(StaffType.REVIEWER);
     }
 
     private boolean canAutoReview(ContentType contentType) {
@@ -124,10 +225,32 @@ public class ReviewerAllocatorImpl implements ReviewerAllocator, OnStaffEventLis
 
     @Override
     public void onStaffCreated(Staff staff) {
-        weights.put(staff.getUserId(), 0);
-        List<Long> staffIds =
-                staffReviewingCount.getOrDefault(0, new ArrayList<>());
-        staffIds.add(staff.getUserId());
-        staffReviewingCount.put(0, staffIds);
+        onStaffUpdated(staff);
+    }
+
+    @Override
+    public void onStaffUpdated(Staff staff) {
+        if (!isReviewer(staff)) {
+            onStaffDeleted(staff);
+            return;
+        }
+        lock.lock();
+        try {
+            if (!heap.contains(staff.getUserId())) {
+                heap.put(staff.getUserId(), 0);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onStaffDeleted(Staff staff) {
+        lock.lock();
+        try {
+            heap.remove(staff.getUserId());
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.staff.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indexed binary min-heap of reviewer loads, ordered by the load
+ * then the reviewer id.
+ * <p>
+ * Positions of reviewers are indexed, so the load of any reviewer
+ * can be changed in O(log n). Not thread safe.
+ *
+ * @author RollW
+ */
+final class ReviewerLoadHeap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] reviewerIds = new long[INITIAL_CAPACITY];
+    private long[] loads = new long[INITIAL_CAPACITY];
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long reviewerId) {
+        return positions.containsKey(reviewerId);
+    }
+
+    /**
+     * Get the reviewer with the least load, the heap must
+     * not be empty.
+     */
+    long peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty.");
+        }
+        return reviewerIds[0];
+    }
+
+    /**
+     * @return the load of the reviewer, or -1 if absent.
+     */
+    long getLoad(long reviewerId) {
+        Integer position = positions.get(reviewerId);
+        return position == null ? -1 : loads[position];
+    }
+
+    /**
+     * Add the reviewer, or set its load if present.
+     */
+    void put(long reviewerId, long load) {
+        Integer position = positions.get(reviewerId);
+        if (position != null) {
+            update(position, load);
+            return;
+        }
+        if (size == reviewerIds.length) {
+            reviewerIds = Arrays.copyOf(reviewerIds, size * 2);
+            loads = Arrays.copyOf(loads, size * 2);
+        }
+        reviewerIds[size] = reviewerId;
+        loads[size] = load;
+        positions.put(reviewerId, size);
+        siftUp(size++);
+    }
+
+    /**
+     * Set the load of the reviewer.
+     *
+     * @return false if the reviewer is absent.
+     */
+    boolean update(long reviewerId, long load) {
+        Integer position = positions.get(reviewerId);
+        if (position == null) {
+            return false;
+        }
+        update(position, load);
+        return true;
+    }
+
+    void remove(long reviewerId) {
+        Integer position = positions.remove(reviewerId);
+        if (position == null) {
+            return;
+        }
+        int last = --size;
+        if (position == last) {
+            return;
+        }
+        move(last, position);
+        if (!siftUp(position)) {
+            siftDown(position);
+        }
+    }
+
+    void clear() {
+        positions.clear();
+        size = 0;
+    }
+
+    private void update(int position, long load) {
+        long previous = loads[position];
+        loads[position] = load;
+        if (load < previous) {
+            siftUp(position);
+        } else if (load > previous) {
+            siftDown(position);
+        }
+    }
+
+    private boolean siftUp(int position) {
+        int start = position;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!less(position, parent)) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+        return position != start;
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int least = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && less(left, least)) {
+                least = left;
+            }
+            if (right < size && less(right, least)) {
+                least = right;
+            }
+            if (least == position) {
+                return;
+            }
+            swap(position, least);
+            position = least;
+        }
+    }
+
+    private boolean less(int i, int j) {
+        if (loads[i] != loads[j]) {
+            return loads[i] < loads[j];
+        }
+        return reviewerIds[i] < reviewerIds[j];
+    }
+
+    private void swap(int i, int j) {
+        long reviewerId = reviewerIds[i];
+        long load = loads[i];
+        move(j, i);
+        reviewerIds[j] = reviewerId;
+        loads[j] = load;
+        positions.put(reviewerId, j);
+    }
+
+    private void move(int from, int to) {
+        reviewerIds[to] = reviewerIds[from];
+        loads[to] = loads[from];
+        positions.put(reviewerIds[to], to);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.staff.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically reloads the reviewer loads shared by all nodes,
+ * and recounts them from the review jobs. Every node recounts,
+ * the recounted loads are written in place.
+ *
+ * @author RollW
+ */
+@Component
+public class ReviewerLoadJob {
+    private final ReviewerAllocatorImpl reviewerAllocator;
+
+    public ReviewerLoadJob(ReviewerAllocatorImpl reviewerAllocator) {
+        this.reviewerAllocator = reviewerAllocator;
+    }
+
+    @Scheduled(fixedDelay = 30_000, initialDelay = 30_000)
+    public void refresh() {
+        reviewerAllocator.refresh();
+    }
+
+    @Scheduled(cron = "0 15 * * * *")
+    public void reconcile() {
+        reviewerAllocator.reconcile();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.staff.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author RollW
+ */
+class ReviewerLoadHeapTest {
+
+    @Test
+    void peeksLeastLoadThenLeastId() {
+        ReviewerLoadHeap heap = new ReviewerLoadHeap();
+        heap.put(3, 5);
+        heap.put(1, 7);
+        heap.put(2, 5);
+
+        assertEquals(2, heap.peek());
+        assertEquals(3, heap.size());
+    }
+
+    @Test
+    void increasedLoadSiftsDown() {
+        ReviewerLoadHeap heap = new ReviewerLoadHeap();
+        heap.put(1, 1);
+        heap.put(2, 2);
+        heap.put(3, 3);
+
+        assertTrue(heap.update(1, 10));
+
+        assertEquals(2, heap.peek());
+        assertEquals(10, heap.getLoad(1));
+    }
+
+    @Test
+    void decreasedLoadSiftsUp() {
+        ReviewerLoadHeap heap = new ReviewerLoadHeap();
+        heap.put(1, 1);
+        heap.put(2, 2);
+        heap.put(3, 3);
+
+        heap.put(3, 0);
+
+        assertEquals(3, heap.peek());
+        assertEquals(3, heap.size());
+    }
+
+    @Test
+    void removedRootIsReplacedBySiftingDown() {
+        ReviewerLoadHeap heap = new ReviewerLoadHeap();
+        for (long reviewerId = 1; reviewerId <= 7; reviewerId++) {
+            heap.put(reviewerId, reviewerId);
+        }
+
+        heap.remove(1);
+
+        assertFalse(heap.contains(1));
+        assertEquals(-1, heap.getLoad(1));
+        assertFalse(heap.update(1, 1));
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L), drain(heap));
+    }
+
+    @Test
+    void removedInnerIsReplacedBySiftingUp() {
+        ReviewerLoadHeap heap = new ReviewerLoadHeap();
+        // loads by position: [0, 10, 1, 11, 12, 2, 3], the last one
+        // moved into the place of reviewer 4 is less than its parent.
+        long[] loads = {0, 10, 1, 11, 12, 2, 3};
+        for (int i = 0; i < loads.length; i++) {
+            heap.put(i + 1, loads[i]);
+        }
+
+        heap.remove(4);
+
+        assertEquals(List.of(1L, 3L, 6L, 7L, 2L, 5L), drain(heap));
+    }
+
+    @Test
+    void removeLastAndAbsent() {
+        ReviewerLoadHeap heap = new ReviewerLoadHeap();
+        heap.put(1, 1);
+        heap.put(2, 2);
+
+        heap.remove(2);
+        heap.remove(3);
+
+        assertEquals(1, heap.size());
+        assertEquals(1, heap.peek());
+    }
+
+    @Test
+    void emptyHeapCannotPeek() {
+        ReviewerLoadHeap heap = new ReviewerLoadHeap();
+        heap.put(1, 1);
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(1));
+        assertThrows(IllegalStateException.class, heap::peek);
+    }
+
+    @Test
+    void randomOperationsMatchSortedLoads() {
+        Random random = new Random(42);
+        ReviewerLoadHeap heap = new ReviewerLoadHeap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long reviewerId = random.nextInt(50);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    long load = random.nextInt(20);
+                    heap.put(reviewerId, load);
+                    expected.put(reviewerId, load);
+                }
+                case 1 -> {
+                    long load = random.nextInt(20);
+                    assertEquals(expected.containsKey(reviewerId),
+                            heap.update(reviewerId, load));
+                    expected.computeIfPresent(reviewerId, (id, previous) -> load);
+                }
+                default -> {
+                    heap.remove(reviewerId);
+                    expected.remove(reviewerId);
+                }
+            }
+            assertEquals(expected.size(), heap.size());
+            if (!expected.isEmpty()) {
+                assertEquals(leastOf(expected), heap.peek());
+            }
+        }
+        List<Long> drained = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            long reviewerId = heap.peek();
+            assertEquals((long) expected.get(reviewerId), heap.getLoad(reviewerId));
+            drained.add(reviewerId);
+            heap.remove(reviewerId);
+        }
+        assertEquals(sortedOf(expected), drained);
+    }
+
+    private static List<Long> drain(ReviewerLoadHeap heap) {
+        List<Long> drained = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            long reviewerId = heap.peek();
+            drained.add(reviewerId);
+            heap.remove(reviewerId);
+        }
+        return drained;
+    }
+
+    private static long leastOf(Map<Long, Long> loads) {
+        return sortedOf(loads).get(0);
+    }
+
+    private static List<Long> sortedOf(Map<Long, Long> loads) {
+        return loads.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -22,5 +22,15 @@ package tech.lamprism.lampray.user;
  * @author RollW
  */
 public interface UserSignatureProvider {
+    /**
+     * Get the signature of the user, returns null if the
+     * user does not exist.
+     */
     String getSignature(long userId);
+
+    /**
+     * Change the signature of the user, all tokens signed with
+     * the previous signature become invalid.
+     */
+    void revokeSignature(long userId);
 }
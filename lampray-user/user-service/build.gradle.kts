@@ -22,6 +22,7 @@ plugins {
 dependencies {
     api(project(":lampray-user:user-api"))
     api(project(":lampray-common-data"))
+    implementation(libs.caffeine)
 }
 
 description = "lampray-user-service"
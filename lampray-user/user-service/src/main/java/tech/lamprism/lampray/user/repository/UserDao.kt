@@ -19,6 +19,7 @@ package tech.lamprism.lampray.user.repository
 import org.springframework.data.jpa.repository.Query
 import tech.lamprism.lampray.common.data.CommonDao
 import tech.lamprism.lampray.common.data.Dao
+import java.time.OffsetDateTime
 import java.util.Optional
 
 @Dao
@@ -32,4 +33,7 @@ interface UserDao : CommonDao<UserDo, Long> {
 
     @Query("SELECT u FROM UserDo u WHERE u.email = :email")
     fun getByEmail(email: String): Optional<UserDo>
+
+    @Query("SELECT u FROM UserDo u WHERE u.updateTime >= :time")
+    fun findUpdatedSince(time: OffsetDateTime): List<UserDo>
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import jakarta.persistence.Enumerated
 import jakarta.persistence.GeneratedValue
 import jakarta.persistence.GenerationType
 import jakarta.persistence.Id
+import jakarta.persistence.Index
 import jakarta.persistence.Table
 import jakarta.persistence.Temporal
 import jakarta.persistence.TemporalType
@@ -45,6 +46,9 @@ import java.time.OffsetDateTime
 @Table(
     name = "user", uniqueConstraints = [
         UniqueConstraint(columnNames = ["username"], name = "index__username")
+    ],
+    indexes = [
+        Index(columnList = "update_time", name = "index__update_time")
     ]
 )
 class UserDo(
@@ -19,6 +19,7 @@ package tech.lamprism.lampray.user.repository
 import org.springframework.data.jpa.domain.Specification
 import org.springframework.stereotype.Repository
 import tech.lamprism.lampray.common.data.CommonRepository
+import java.time.OffsetDateTime
 import java.util.Optional
 
 /**
@@ -42,6 +43,9 @@ class UserRepository(
     fun getByIds(ids: MutableList<Long>): List<UserDo> =
         userDao.findAllById(ids)
 
+    fun findUpdatedSince(time: OffsetDateTime): List<UserDo> =
+        userDao.findUpdatedSince(time)
+
     fun isExistByEmail(email: String): Boolean {
         return getByEmail(email).isPresent
     }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.user.repository
+
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+import java.time.OffsetDateTime
+
+/**
+ * @author RollW
+ */
+@Dao
+interface UserTokenVersionDao : CommonDao<UserTokenVersionDo, Long> {
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE UserTokenVersionDo u SET u.version = u.version + 1, " +
+                "u.secret = :secret, u.updateTime = :updateTime " +
+                "WHERE u.userId = :userId"
+    )
+    fun increaseVersion(
+        @Param("userId") userId: Long,
+        @Param("secret") secret: String,
+        @Param("updateTime") updateTime: OffsetDateTime
+    ): Int
+
+    @Query(
+        "SELECT new tech.lamprism.lampray.user.repository.UserTokenVersion(" +
+                "u.userId, u.version, u.secret) " +
+                "FROM UserTokenVersionDo u WHERE u.userId = :userId"
+    )
+    fun findVersion(@Param("userId") userId: Long): UserTokenVersion?
+
+    @Query("SELECT u FROM UserTokenVersionDo u WHERE u.updateTime >= :time")
+    fun findUpdatedSince(@Param("time") time: OffsetDateTime): List<UserTokenVersionDo>
+}
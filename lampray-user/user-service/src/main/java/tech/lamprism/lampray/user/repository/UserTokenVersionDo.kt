@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.user.repository
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.Id
+import jakarta.persistence.Index
+import jakarta.persistence.PostLoad
+import jakarta.persistence.PostPersist
+import jakarta.persistence.Table
+import jakarta.persistence.Temporal
+import jakarta.persistence.TemporalType
+import jakarta.persistence.Transient
+import org.springframework.data.domain.Persistable
+import tech.lamprism.lampray.DataEntity
+import tech.lamprism.lampray.TimeAttributed
+import tech.lamprism.lampray.user.UserTokenVersionResourceKind
+import tech.rollw.common.web.system.SystemResourceKind
+import java.time.OffsetDateTime
+
+/**
+ * Token version of a user, tokens signed with an older version
+ * are rejected.
+ *
+ * @author RollW
+ */
+@Entity
+@Table(
+    name = "user_token_version",
+    indexes = [
+        Index(columnList = "update_time", name = "index__update_time")
+    ]
+)
+class UserTokenVersionDo(
+    @Id
+    @Column(name = "user_id")
+    var userId: Long = 0,
+
+    @Column(name = "version", nullable = false)
+    var version: Long = 0,
+
+    /**
+     * Random secret of the version, changes with the version.
+     */
+    @Column(name = "secret", length = 64, nullable = false)
+    var secret: String = "",
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "update_time", nullable = false)
+    private var updateTime: OffsetDateTime = OffsetDateTime.now()
+) : DataEntity<Long>, Persistable<Long> {
+    /**
+     * A new row must be inserted rather than merged, or it may
+     * overwrite a version increased in the meantime.
+     */
+    @Transient
+    private var persisted: Boolean = false
+
+    override fun getId(): Long = userId
+
+    override fun isNew(): Boolean = !persisted
+
+    @PostLoad
+    @PostPersist
+    fun markPersisted() {
+        persisted = true
+    }
+
+    override fun getCreateTime(): OffsetDateTime = TimeAttributed.NONE_TIME
+
+    override fun getUpdateTime(): OffsetDateTime = updateTime
+
+    fun setUpdateTime(updateTime: OffsetDateTime) {
+        this.updateTime = updateTime
+    }
+
+    override fun getSystemResourceKind(): SystemResourceKind =
+        UserTokenVersionResourceKind
+}
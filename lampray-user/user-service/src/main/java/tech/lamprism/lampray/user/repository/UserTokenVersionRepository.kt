@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.user.repository
+
+import org.springframework.stereotype.Repository
+import tech.lamprism.lampray.common.data.CommonRepository
+import java.time.OffsetDateTime
+
+/**
+ * @author RollW
+ */
+@Repository
+class UserTokenVersionRepository(
+    private val userTokenVersionDao: UserTokenVersionDao
+) : CommonRepository<UserTokenVersionDo, Long>(userTokenVersionDao) {
+    /**
+     * Increase the version of the user and replace its secret
+     * in one statement.
+     *
+     * @return false if there is no row of the user.
+     */
+    fun increaseVersion(userId: Long, secret: String, updateTime: OffsetDateTime): Boolean =
+        userTokenVersionDao.increaseVersion(userId, secret, updateTime) > 0
+
+    /**
+     * Read the current version of the user from the database,
+     * bypassing the loaded entities.
+     */
+    fun findVersion(userId: Long): UserTokenVersion? =
+        userTokenVersionDao.findVersion(userId)
+
+    fun findUpdatedSince(time: OffsetDateTime): List<UserTokenVersionDo> =
+        userTokenVersionDao.findUpdatedSince(time)
+}
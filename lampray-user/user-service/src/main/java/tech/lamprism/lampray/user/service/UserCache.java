@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.stereotype.Component;
+import space.lingu.NonNull;
+import space.lingu.Nullable;
+import tech.lamprism.lampray.user.User;
+import tech.lamprism.lampray.user.repository.UserDo;
+import tech.lamprism.lampray.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of users in front of {@link UserRepository}.
+ * <p>
+ * Users are cached by id, the username and email indexes only
+ * point to the id, so all lookups share the same entries. Missing
+ * users are never cached.
+ * <p>
+ * Updates made on this node replace the cached user at once, updates
+ * made on other nodes are picked up by {@link #refreshChanged()}
+ * from the update time of the users.
+ *
+ * @author RollW
+ */
+@Component
+public class UserCache {
+    private static final long MAXIMUM_SIZE = 10_000;
+    private static final long EXPIRE_MINUTES = 10;
+    /**
+     * Changed rows are polled with an overlap, tolerates clock
+     * skew between nodes and rows committed late.
+     */
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final UserRepository userRepository;
+    private final Cache<Long, User> users;
+    private final Map<String, Long> usernameIndex = new ConcurrentHashMap<>();
+    private final Map<String, Long> emailIndex = new ConcurrentHashMap<>();
+    /**
+     * Update times of the users seen in the overlap of the polls.
+     */
+    private final Map<Long, OffsetDateTime> seenUpdates = new ConcurrentHashMap<>();
+    private volatile OffsetDateTime lastPollTime = OffsetDateTime.now();
+
+    public UserCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .evictionListener(this::onEvicted)
+                .build();
+    }
+
+    @NonNull
+    public Optional<User> getById(long userId) {
+        User user = users.get(userId, id -> userRepository.getByUserId(id)
+                .map(this::index)
+                .orElse(null));
+        return Optional.ofNullable(user);
+    }
+
+    @NonNull
+    public Optional<User> getByUsername(@NonNull String username) {
+        User user = lookup(usernameIndex, username);
+        if (user != null && user.getUsername().equals(username)) {
+            return Optional.of(user);
+        }
+        return userRepository.getByUsername(username)
+                .map(this::cache);
+    }
+
+    @NonNull
+    public Optional<User> getByEmail(@NonNull String email) {
+        User user = lookup(emailIndex, email);
+        if (user != null && user.getEmail().equals(email)) {
+            return Optional.of(user);
+        }
+        return userRepository.getByEmail(email)
+                .map(this::cache);
+    }
+
+    /**
+     * Replace the cached user with the updated one.
+     */
+    public void put(@NonNull UserDo updated) {
+        invalidate(updated.getUserId());
+        User user = index(updated);
+        users.put(user.getUserId(), user);
+    }
+
+    public void invalidate(long userId) {
+        User removed = users.asMap().remove(userId);
+        if (removed != null) {
+            unindex(removed);
+        }
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+        usernameIndex.clear();
+        emailIndex.clear();
+    }
+
+    /**
+     * Invalidate the users updated since the last poll, including
+     * updates made on other nodes.
+     *
+     * @return the updated users not returned by an earlier poll.
+     */
+    @NonNull
+    public List<User> refreshChanged() {
+        OffsetDateTime pollTime = OffsetDateTime.now();
+        OffsetDateTime since = lastPollTime.minus(POLL_OVERLAP);
+        List<User> changed = new ArrayList<>();
+        for (UserDo userDo : userRepository.findUpdatedSince(since)) {
+            OffsetDateTime seen = seenUpdates.put(userDo.getUserId(), userDo.getUpdateTime());
+            if (seen != null && seen.isEqual(userDo.getUpdateTime())) {
+                continue;
+            }
+            invalidate(userDo.getUserId());
+            changed.add(userDo.lock());
+        }
+        seenUpdates.values().removeIf(updateTime -> updateTime.isBefore(since));
+        lastPollTime = pollTime;
+        return changed;
+    }
+
+    @Nullable
+    private User lookup(Map<String, Long> index, String key) {
+        Long userId = index.get(key);
+        if (userId == null) {
+            return null;
+        }
+        return users.getIfPresent(userId);
+    }
+
+    /**
+     * Cache the loaded user, keeps the cached entry if there
+     * is one, since it may be newer than the loaded one.
+     */
+    private User cache(UserDo userDo) {
+        return users.get(userDo.getUserId(), id -> index(userDo));
+    }
+
+    private User index(UserDo userDo) {
+        User user = userDo.lock();
+        usernameIndex.put(user.getUsername(), user.getUserId());
+        emailIndex.put(user.getEmail(), user.getUserId());
+        return user;
+    }
+
+    private void unindex(User user) {
+        usernameIndex.remove(user.getUsername(), user.getUserId());
+        emailIndex.remove(user.getEmail(), user.getUserId());
+    }
+
+    private void onEvicted(Long userId, User user, RemovalCause cause) {
+        if (user != null) {
+            unindex(user);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.user.service
+
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.stereotype.Component
+import tech.lamprism.lampray.user.event.OnUserUpdateEvent
+
+/**
+ * Polls the updated users, so updates made on other nodes are
+ * picked up by the user cache and published to the listeners
+ * of [OnUserUpdateEvent] on this node.
+ *
+ * @author RollW
+ */
+@Component
+class UserCachePoller(
+    private val userCache: UserCache,
+    private val eventPublisher: ApplicationEventPublisher
+) {
+    @Scheduled(fixedDelay = 5_000, initialDelay = 5_000)
+    fun poll() {
+        userCache.refreshChanged().forEach {
+            eventPublisher.publishEvent(OnUserUpdateEvent(it))
+        }
+    }
+}
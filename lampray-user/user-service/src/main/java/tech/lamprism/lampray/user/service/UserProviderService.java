@@ -16,13 +16,17 @@
 
 package tech.lamprism.lampray.user.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import space.lingu.NonNull;
 import tech.lamprism.lampray.user.AttributedUser;
+import tech.lamprism.lampray.user.Role;
 import tech.lamprism.lampray.user.User;
 import tech.lamprism.lampray.user.UserResourceKind;
 import tech.lamprism.lampray.user.UserViewException;
+import tech.lamprism.lampray.user.event.OnUserRoleChangeEvent;
+import tech.lamprism.lampray.user.event.OnUserUpdateEvent;
 import tech.lamprism.lampray.user.filter.UserInfoFilter;
 import tech.lamprism.lampray.user.repository.UserDo;
 import tech.lamprism.lampray.user.repository.UserRepository;
@@ -46,13 +50,22 @@ public class UserProviderService implements SystemResourceProvider<Long>,
     private final UserRepository userRepository;
     private final UserInfoFilter userInfoFilter;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserTokenVersionService userTokenVersionService;
+    private final UserCache userCache;
 
     public UserProviderService(UserRepository userRepository,
                                UserInfoFilter userInfoFilter,
-                               PasswordEncoder passwordEncoder) {
+                               PasswordEncoder passwordEncoder,
+                               ApplicationEventPublisher eventPublisher,
+                               UserTokenVersionService userTokenVersionService,
+                               UserCache userCache) {
         this.userRepository = userRepository;
         this.userInfoFilter = userInfoFilter;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.userTokenVersionService = userTokenVersionService;
+        this.userCache = userCache;
     }
 
     @Override
@@ -67,8 +80,7 @@ public class UserProviderService implements SystemResourceProvider<Long>,
     @Override
     public SystemResourceOperator<Long> createResourceOperator(
             SystemResource<Long> systemResource, boolean checkDelete) {
-        User user = getUser(systemResource.getResourceId())
-                .lock();
+        User user = getUser(systemResource.getResourceId());
         return new UserOperatorImpl(user, this, checkDelete);
     }
 
@@ -82,17 +94,28 @@ public class UserProviderService implements SystemResourceProvider<Long>,
         return getUser(rawSystemResource.getResourceId());
     }
 
-    private UserDo getUser(long id) {
-        UserDo user = userRepository.getByUserId(id).orElse(null);
-        if (user == null) {
-            throw new UserViewException(UserErrorCode.ERROR_USER_NOT_EXIST);
-        }
-        return user;
+    private User getUser(long id) {
+        return userCache.getById(id).orElseThrow(() ->
+                new UserViewException(UserErrorCode.ERROR_USER_NOT_EXIST));
     }
 
     @Override
     public void updateUser(User user) {
-        userRepository.save(UserDo.toDo(user));
+        UserDo previous = userRepository.getByUserId(user.getUserId())
+                .orElse(null);
+        Role previousRole = previous == null ? null : previous.getRole();
+        String previousPassword = previous == null ? null : previous.getPassword();
+        UserDo updated = userRepository.save(UserDo.toDo(user));
+        userCache.put(updated);
+        if (previousPassword != null &&
+                !previousPassword.equals(updated.getPassword())) {
+            userTokenVersionService.increaseVersion(updated.getUserId());
+        }
+        eventPublisher.publishEvent(new OnUserUpdateEvent(updated));
+        if (previousRole != updated.getRole()) {
+            eventPublisher.publishEvent(new OnUserRoleChangeEvent(
+                    updated, previousRole, updated.getRole()));
+        }
     }
 
     @Override
@@ -53,24 +53,31 @@ public class UserServiceImpl implements UserSignatureProvider,
     private final PasswordEncoder passwordEncoder;
     private final UserInfoFilter userInfoFilter;
     private final ApplicationEventPublisher eventPublisher;
+    private final UserTokenVersionService userTokenVersionService;
+    private final UserCache userCache;
 
     public UserServiceImpl(UserRepository userRepository,
                            PasswordEncoder passwordEncoder,
                            UserInfoFilter userInfoFilter,
-                           ApplicationEventPublisher eventPublisher) {
+                           ApplicationEventPublisher eventPublisher,
+                           UserTokenVersionService userTokenVersionService,
+                           UserCache userCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userInfoFilter = userInfoFilter;
         this.eventPublisher = eventPublisher;
+        this.userTokenVersionService = userTokenVersionService;
+        this.userCache = userCache;
     }
 
     @Override
     public String getSignature(long userId) {
-        UserDo user = userRepository.findById(userId).orElse(null);
-        if (user == null) {
-            return null;
-        }
-        return "LampBlogUserSignature-" + user.getPassword();
+        return userTokenVersionService.getSignature(userId);
+    }
+
+    @Override
+    public void revokeSignature(long userId) {
+        userTokenVersionService.increaseVersion(userId);
     }
 
     @Override
@@ -118,29 +125,20 @@ public class UserServiceImpl implements UserSignatureProvider,
 
     @Override
     public AttributedUserDetails getUser(long userId) throws UserViewException {
-        UserDo user = userRepository.getByUserId(userId).orElse(null);
-        if (user == null) {
-            throw new UserViewException(UserErrorCode.ERROR_USER_NOT_EXIST);
-        }
-        return user.lock();
+        return userCache.getById(userId).orElseThrow(() ->
+                new UserViewException(UserErrorCode.ERROR_USER_NOT_EXIST));
     }
 
     @Override
     public AttributedUserDetails getUser(String username) throws UserViewException {
-        UserDo user = userRepository.getByUsername(username).orElse(null);
-        if (user == null) {
-            throw new UserViewException(UserErrorCode.ERROR_USER_NOT_EXIST);
-        }
-        return user.lock();
+        return userCache.getByUsername(username).orElseThrow(() ->
+                new UserViewException(UserErrorCode.ERROR_USER_NOT_EXIST));
     }
 
     @Override
     public AttributedUserDetails getUserByEmail(String email) throws UserViewException {
-        UserDo user = userRepository.getByEmail(email).orElse(null);
-        if (user == null) {
-            throw new UserViewException(UserErrorCode.ERROR_USER_NOT_EXIST);
-        }
-        return user.lock();
+        return userCache.getByEmail(email).orElseThrow(() ->
+                new UserViewException(UserErrorCode.ERROR_USER_NOT_EXIST));
     }
 
     @Override
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.user.service
+
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.stereotype.Component
+
+/**
+ * Polls the changed token versions, so revocations made
+ * on other nodes are picked up.
+ *
+ * @author RollW
+ */
+@Component
+class UserTokenVersionPoller(
+    private val userTokenVersionService: UserTokenVersionService
+) {
+    @Scheduled(fixedDelay = 5_000, initialDelay = 5_000)
+    fun poll() {
+        userTokenVersionService.refreshChanged()
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import space.lingu.NonNull;
+import space.lingu.Nullable;
+import tech.lamprism.lampray.user.event.OnUserTokenRevokeEvent;
+import tech.lamprism.lampray.user.repository.UserRepository;
+import tech.lamprism.lampray.user.repository.UserTokenVersion;
+import tech.lamprism.lampray.user.repository.UserTokenVersionDo;
+import tech.lamprism.lampray.user.repository.UserTokenVersionRepository;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps token versions of users in memory, so signatures can be
+ * provided without loading the user.
+ * <p>
+ * Versions are warmed at startup and loaded on demand, a version
+ * row is created with the first signature of the user. Versions
+ * increased on other nodes are picked up by {@link #refreshChanged()},
+ * a known version is only ever replaced by a newer one.
+ * <p>
+ * Loads of different users do not block each other, and users
+ * found missing are remembered for a short while.
+ *
+ * @author RollW
+ */
+@Service
+public class UserTokenVersionService implements ApplicationListener<ApplicationReadyEvent> {
+    private static final String SIGNATURE_PREFIX = "LampBlogUserSignature-";
+    private static final int SECRET_BYTES = 32;
+    /**
+     * Changed rows are polled with an overlap, tolerates clock
+     * skew between nodes and rows committed late.
+     */
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+    private static final int LOCK_STRIPES = 64;
+    private static final long MISSING_MAXIMUM_SIZE = 10_000;
+    private static final long MISSING_EXPIRE_SECONDS = 30;
+
+    private final UserTokenVersionRepository userTokenVersionRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Map<Long, TokenVersion> versions = new ConcurrentHashMap<>();
+    private final Object[] loadLocks = new Object[LOCK_STRIPES];
+    private final Cache<Long, Boolean> missingUsers = Caffeine.newBuilder()
+            .maximumSize(MISSING_MAXIMUM_SIZE)
+            .expireAfterWrite(MISSING_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+    private volatile OffsetDateTime lastPollTime = OffsetDateTime.now();
+
+    public UserTokenVersionService(UserTokenVersionRepository userTokenVersionRepository,
+                                   UserRepository userRepository,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.userTokenVersionRepository = userTokenVersionRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            loadLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Get the signature of the current token version of the user,
+     * returns null if the user does not exist.
+     */
+    @Nullable
+    public String getSignature(long userId) {
+        TokenVersion tokenVersion = getTokenVersion(userId);
+        if (tokenVersion == null) {
+            return null;
+        }
+        return tokenVersion.signature();
+    }
+
+    @Nullable
+    private TokenVersion getTokenVersion(long userId) {
+        TokenVersion tokenVersion = versions.get(userId);
+        if (tokenVersion != null) {
+            return tokenVersion;
+        }
+        return loadOrCreate(userId);
+    }
+
+    /**
+     * Increase the token version of the user, tokens signed with
+     * previous versions become invalid.
+     * <p>
+     * The version is increased in the database in one statement,
+     * so concurrent increases on different nodes all take effect.
+     */
+    public void increaseVersion(long userId) {
+        String secret = newSecret();
+        OffsetDateTime now = OffsetDateTime.now();
+        if (!userTokenVersionRepository.increaseVersion(userId, secret, now)) {
+            try {
+                userTokenVersionRepository.save(
+                        new UserTokenVersionDo(userId, 1, secret, now));
+            } catch (DataIntegrityViolationException e) {
+                // created by another node in the meantime.
+                userTokenVersionRepository.increaseVersion(userId, secret, now);
+            }
+        }
+        UserTokenVersion current = userTokenVersionRepository.findVersion(userId);
+        if (current != null) {
+            // may be already increased again by another node.
+            update(new TokenVersion(userId, current.getVersion(), current.getSecret()));
+        } else {
+            versions.remove(userId);
+        }
+        eventPublisher.publishEvent(new OnUserTokenRevokeEvent(userId));
+    }
+
+    /**
+     * Reload the versions changed since the last poll, picks up
+     * the versions increased on other nodes. Tokens of users whose
+     * known version is replaced are revoked on this node.
+     */
+    public void refreshChanged() {
+        OffsetDateTime pollTime = OffsetDateTime.now();
+        OffsetDateTime since = lastPollTime.minus(POLL_OVERLAP);
+        for (UserTokenVersionDo versionDo : userTokenVersionRepository.findUpdatedSince(since)) {
+            if (update(TokenVersion.of(versionDo))) {
+                eventPublisher.publishEvent(new OnUserTokenRevokeEvent(versionDo.getUserId()));
+            }
+        }
+        lastPollTime = pollTime;
+    }
+
+    /**
+     * Put the version if it is newer than the known one.
+     *
+     * @return true if a known version was replaced.
+     */
+    private boolean update(TokenVersion tokenVersion) {
+        boolean[] replaced = {false};
+        versions.compute(tokenVersion.userId(), (userId, known) -> {
+            if (known != null && known.version() >= tokenVersion.version()) {
+                return known;
+            }
+            replaced[0] = known != null;
+            return tokenVersion;
+        });
+        return replaced[0];
+    }
+
+    @Nullable
+    private TokenVersion loadOrCreate(long userId) {
+        if (missingUsers.getIfPresent(userId) != null) {
+            return null;
+        }
+        synchronized (loadLockOf(userId)) {
+            TokenVersion tokenVersion = versions.get(userId);
+            if (tokenVersion != null) {
+                return tokenVersion;
+            }
+            if (missingUsers.getIfPresent(userId) != null) {
+                return null;
+            }
+            UserTokenVersionDo versionDo = userTokenVersionRepository.findById(userId)
+                    .orElse(null);
+            if (versionDo == null) {
+                if (!userRepository.existsById(userId)) {
+                    missingUsers.put(userId, Boolean.TRUE);
+                    return null;
+                }
+                versionDo = createVersion(userId);
+            }
+            update(TokenVersion.of(versionDo));
+            return versions.get(userId);
+        }
+    }
+
+    private Object loadLockOf(long userId) {
+        return loadLocks[Math.floorMod(Long.hashCode(userId), LOCK_STRIPES)];
+    }
+
+    private UserTokenVersionDo createVersion(long userId) {
+        try {
+            return userTokenVersionRepository.save(new UserTokenVersionDo(
+                    userId, 0, newSecret(), OffsetDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            // created by another node in the meantime.
+            return userTokenVersionRepository.findById(userId)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private String newSecret() {
+        byte[] bytes = new byte[SECRET_BYTES];
+        secureRandom.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        lastPollTime = OffsetDateTime.now();
+        for (UserTokenVersionDo versionDo : userTokenVersionRepository.findAll()) {
+            update(TokenVersion.of(versionDo));
+        }
+    }
+
+    private record TokenVersion(long userId, long version, String secret) {
+        String signature() {
+            return SIGNATURE_PREFIX + userId + "-" + version + "-" + secret;
+        }
+
+        private static TokenVersion of(UserTokenVersionDo versionDo) {
+            return new TokenVersion(versionDo.getUserId(),
+                    versionDo.getVersion(), versionDo.getSecret());
+        }
+    }
+}
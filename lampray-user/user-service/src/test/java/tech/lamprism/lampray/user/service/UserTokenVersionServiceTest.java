@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.user.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import tech.lamprism.lampray.user.event.OnUserTokenRevokeEvent;
+import tech.lamprism.lampray.user.repository.UserRepository;
+import tech.lamprism.lampray.user.repository.UserTokenVersion;
+import tech.lamprism.lampray.user.repository.UserTokenVersionDo;
+import tech.lamprism.lampray.user.repository.UserTokenVersionRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two service instances sharing one repository, as two nodes
+ * sharing the user_token_version table.
+ *
+ * @author RollW
+ */
+class UserTokenVersionServiceTest {
+    private static final long USER_ID = 1L;
+
+    private final Map<Long, UserTokenVersionDo> rows = new ConcurrentHashMap<>();
+    private UserTokenVersionRepository repository;
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserTokenVersionRepository.class);
+        userRepository = mock(UserRepository.class);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+
+        when(repository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.<Long>getArgument(0)))
+                        .map(UserTokenVersionServiceTest::copy));
+        when(repository.findAll()).thenAnswer(invocation ->
+                rows.values().stream().map(UserTokenVersionServiceTest::copy).toList());
+        when(repository.save(any(UserTokenVersionDo.class))).thenAnswer(invocation -> {
+            UserTokenVersionDo versionDo = invocation.getArgument(0);
+            if (rows.putIfAbsent(versionDo.getUserId(), copy(versionDo)) != null) {
+                throw new DataIntegrityViolationException("Duplicate user_id.");
+            }
+            return versionDo;
+        });
+        when(repository.increaseVersion(anyLong(), anyString(), any())).thenAnswer(invocation -> {
+            long userId = invocation.getArgument(0);
+            String secret = invocation.getArgument(1);
+            OffsetDateTime updateTime = invocation.getArgument(2);
+            return rows.computeIfPresent(userId, (id, row) -> new UserTokenVersionDo(
+                    id, row.getVersion() + 1, secret, updateTime)) != null;
+        });
+        when(repository.findVersion(anyLong())).thenAnswer(invocation -> {
+            UserTokenVersionDo row = rows.get(invocation.<Long>getArgument(0));
+            return row == null ? null : new UserTokenVersion(
+                    row.getUserId(), row.getVersion(), row.getSecret());
+        });
+        when(repository.findUpdatedSince(any())).thenAnswer(invocation -> {
+            OffsetDateTime time = invocation.getArgument(0);
+            return rows.values().stream()
+                    .filter(row -> !row.getUpdateTime().isBefore(time))
+                    .map(UserTokenVersionServiceTest::copy)
+                    .toList();
+        });
+    }
+
+    @Test
+    void increaseOnOneNodeIsPickedUpByAnother() {
+        ApplicationEventPublisher publisherB = mock(ApplicationEventPublisher.class);
+        UserTokenVersionService nodeA = newNode(mock(ApplicationEventPublisher.class));
+        UserTokenVersionService nodeB = newNode(publisherB);
+
+        String signature = nodeA.getSignature(USER_ID);
+        assertEquals(signature, nodeB.getSignature(USER_ID));
+
+        nodeA.increaseVersion(USER_ID);
+        String increased = nodeA.getSignature(USER_ID);
+        assertNotEquals(signature, increased);
+
+        nodeB.refreshChanged();
+        assertEquals(increased, nodeB.getSignature(USER_ID));
+        verify(publisherB).publishEvent(any(OnUserTokenRevokeEvent.class));
+    }
+
+    @Test
+    void concurrentIncreasesOnTwoNodesConverge() {
+        UserTokenVersionService nodeA = newNode(mock(ApplicationEventPublisher.class));
+        UserTokenVersionService nodeB = newNode(mock(ApplicationEventPublisher.class));
+        String signature = nodeA.getSignature(USER_ID);
+        nodeB.getSignature(USER_ID);
+
+        nodeA.increaseVersion(USER_ID);
+        nodeB.increaseVersion(USER_ID);
+        nodeA.refreshChanged();
+        nodeB.refreshChanged();
+
+        assertEquals(2, rows.get(USER_ID).getVersion());
+        assertEquals(nodeA.getSignature(USER_ID), nodeB.getSignature(USER_ID));
+        assertNotEquals(signature, nodeA.getSignature(USER_ID));
+    }
+
+    @Test
+    void unchangedVersionsDoNotRevoke() {
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        UserTokenVersionService node = newNode(publisher);
+        String signature = node.getSignature(USER_ID);
+
+        node.refreshChanged();
+
+        assertEquals(signature, node.getSignature(USER_ID));
+        verify(publisher, never()).publishEvent(any(OnUserTokenRevokeEvent.class));
+    }
+
+    @Test
+    void missingUsersAreLookedUpOnce() {
+        long missingUserId = 2L;
+        when(userRepository.existsById(missingUserId)).thenReturn(false);
+        UserTokenVersionService node = newNode(mock(ApplicationEventPublisher.class));
+
+        assertNull(node.getSignature(missingUserId));
+        assertNull(node.getSignature(missingUserId));
+
+        verify(userRepository, times(1)).existsById(missingUserId);
+        verify(repository, never()).save(any(UserTokenVersionDo.class));
+    }
+
+    private UserTokenVersionService newNode(ApplicationEventPublisher publisher) {
+        return new UserTokenVersionService(repository, userRepository, publisher);
+    }
+
+    private static UserTokenVersionDo copy(UserTokenVersionDo versionDo) {
+        return new UserTokenVersionDo(versionDo.getUserId(), versionDo.getVersion(),
+                versionDo.getSecret(), versionDo.getUpdateTime());
+    }
+}
@@ -109,6 +109,8 @@ public class LampraySystemApplication {
         properties.put("spring.jpa.show-sql", true);
         properties.put("spring.jpa.properties.hibernate.globally_quoted_identifiers", "true");
         properties.put("spring.jpa.hibernate.ddl-auto", "update");
+        properties.put("spring.jpa.properties.hibernate.jdbc.batch_size", 50);
+        properties.put("spring.jpa.properties.hibernate.order_inserts", true);
     }
 
     public static void exit(int code) {
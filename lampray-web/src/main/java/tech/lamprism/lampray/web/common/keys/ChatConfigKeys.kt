@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.common.keys
+
+import tech.lamprism.lampray.setting.AttributedSettingSpecification
+import tech.lamprism.lampray.setting.SettingKey
+import tech.lamprism.lampray.setting.SettingSource
+import tech.lamprism.lampray.setting.SettingSpecificationBuilder
+import tech.lamprism.lampray.setting.SettingSpecificationSupplier
+
+/**
+ * @author RollW
+ */
+object ChatConfigKeys : SettingSpecificationSupplier {
+    const val DELIVERY_BUS_LOCAL = "local"
+    const val DELIVERY_BUS_DATABASE = "database"
+
+    /**
+     * How chat messages are delivered between nodes. Use 'local'
+     * for a single node, and 'database' when running multiple nodes
+     * sharing the same database.
+     */
+    @JvmField
+    val DELIVERY_BUS =
+        SettingSpecificationBuilder(SettingKey.ofString("chat.delivery.bus"))
+            .setTextDescription("How chat messages are delivered between nodes, 'local' or 'database'.")
+            .setDefaultValue(DELIVERY_BUS_LOCAL)
+            .setValueEntries(listOf(DELIVERY_BUS_LOCAL, DELIVERY_BUS_DATABASE))
+            .setRequired(false)
+            .setSupportedSources(SettingSource.LOCAL_ONLY)
+            .build()
+
+    private val keys = listOf(
+        DELIVERY_BUS
+    )
+
+    override val specifications: List<AttributedSettingSpecification<*, *>>
+        get() = keys
+}
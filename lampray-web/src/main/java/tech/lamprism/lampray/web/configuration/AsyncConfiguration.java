@@ -19,6 +19,7 @@ package tech.lamprism.lampray.web.configuration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.ThreadPoolExecutor;
@@ -27,6 +28,7 @@ import java.util.concurrent.ThreadPoolExecutor;
  * @author RollW
  */
 @EnableAsync(proxyTargetClass = true)
+@EnableScheduling
 @Configuration
 public class AsyncConfiguration {
 
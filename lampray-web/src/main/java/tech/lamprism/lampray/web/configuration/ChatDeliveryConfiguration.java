@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.configuration;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.lamprism.lampray.setting.ConfigProvider;
+import tech.lamprism.lampray.web.common.keys.ChatConfigKeys;
+import tech.lamprism.lampray.web.domain.message.ChatDeliveryBus;
+import tech.lamprism.lampray.web.domain.message.delivery.DatabaseChatDeliveryBus;
+import tech.lamprism.lampray.web.domain.message.delivery.LocalChatDeliveryBus;
+import tech.lamprism.lampray.web.domain.message.repository.ChatDeliveryRepository;
+import tech.lamprism.lampray.web.domain.message.repository.ChatPresenceRepository;
+
+/**
+ * @author RollW
+ */
+@Configuration
+public class ChatDeliveryConfiguration {
+    private final ConfigProvider configProvider;
+
+    public ChatDeliveryConfiguration(
+            @Qualifier(LocalConfigConfiguration.LOCAL_CONFIG_PROVIDER)
+            ConfigProvider configProvider) {
+        this.configProvider = configProvider;
+    }
+
+    @Bean
+    public ChatDeliveryBus chatDeliveryBus(ApplicationEventPublisher eventPublisher,
+                                           ChatPresenceRepository chatPresenceRepository,
+                                           ChatDeliveryRepository chatDeliveryRepository) {
+        String bus = configProvider.get(ChatConfigKeys.DELIVERY_BUS);
+        if (ChatConfigKeys.DELIVERY_BUS_DATABASE.equals(bus)) {
+            return new DatabaseChatDeliveryBus(eventPublisher,
+                    chatPresenceRepository, chatDeliveryRepository);
+        }
+        return new LocalChatDeliveryBus(eventPublisher);
+    }
+}
@@ -47,6 +47,7 @@ import org.springframework.web.servlet.HandlerExceptionResolver;
 import tech.lamprism.lampray.authentication.token.AuthenticationTokenService;
 import tech.lamprism.lampray.security.authentication.adapter.PreUserAuthenticationProvider;
 import tech.lamprism.lampray.security.authentication.adapter.TokenBasedAuthenticationProvider;
+import tech.lamprism.lampray.security.authentication.adapter.VerifiedTokenCache;
 import tech.lamprism.lampray.security.authorization.PrivilegedUserProvider;
 import tech.lamprism.lampray.security.authorization.RoleBasedAuthorizationScope;
 import tech.lamprism.lampray.security.authorization.adapter.ScopeBasedMethodSecurityExpressionHandler;
@@ -159,15 +160,22 @@ public class WebSecurityConfiguration {
         return new TokenAuthenticationFilter(authenticationManager);
     }
 
+    @Bean
+    public VerifiedTokenCache verifiedTokenCache() {
+        return new VerifiedTokenCache();
+    }
+
     @Bean
     public TokenBasedAuthenticationProvider tokenBasedAuthenticationProvider(
             AuthenticationTokenService authenticationTokenService,
             PrivilegedUserProvider privilegedUserProvider,
-            UserSignatureProvider userSignatureProvider) {
+            UserSignatureProvider userSignatureProvider,
+            VerifiedTokenCache verifiedTokenCache) {
         return new TokenBasedAuthenticationProvider(
                 authenticationTokenService,
                 privilegedUserProvider,
-                userSignatureProvider
+                userSignatureProvider,
+                verifiedTokenCache
         );
     }
 
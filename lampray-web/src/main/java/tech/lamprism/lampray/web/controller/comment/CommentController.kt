@@ -19,18 +19,29 @@ import org.springframework.web.bind.annotation.GetMapping
 import org.springframework.web.bind.annotation.PathVariable
 import org.springframework.web.bind.annotation.PostMapping
 import org.springframework.web.bind.annotation.RequestBody
-import tech.lamprism.lampray.content.ContentPublishProvider
+import org.springframework.web.bind.annotation.RequestParam
+import tech.lamprism.lampray.content.ContentAccessAuthType
+import tech.lamprism.lampray.content.ContentAccessCredentials
 import tech.lamprism.lampray.content.ContentType
 import tech.lamprism.lampray.content.SimpleUncreatedContent
+import tech.lamprism.lampray.content.collection.ContentCollectionIdentity
+import tech.lamprism.lampray.content.collection.ContentCollectionPageRequest
+import tech.lamprism.lampray.content.collection.ContentCollectionProviderFactory
 import tech.lamprism.lampray.content.collection.ContentCollectionType
+import tech.lamprism.lampray.content.comment.CommentCountProvider
 import tech.lamprism.lampray.content.comment.CommentDetailsMetadata
+import tech.lamprism.lampray.content.comment.CommentThreadOrder
+import tech.lamprism.lampray.content.comment.service.CommentTreeService
+import tech.lamprism.lampray.content.service.ContentPublishQueue
 import tech.lamprism.lampray.web.common.ApiContext
 import tech.lamprism.lampray.web.controller.Api
+import tech.lamprism.lampray.web.controller.comment.model.CommentNodeVo
 import tech.lamprism.lampray.web.controller.comment.model.CommentRequest
 import tech.lamprism.lampray.web.controller.comment.model.CommentVo
 import tech.rollw.common.web.HttpResponseEntity
 import tech.rollw.common.web.ParameterFailedException
 import tech.rollw.common.web.system.ContextThreadAware
+import tech.rollw.common.web.system.paged.PageableContext
 
 /**
  * @author RollW
@@ -38,7 +49,11 @@ import tech.rollw.common.web.system.ContextThreadAware
 @Api
 class CommentController(
     private val apiContextThreadAware: ContextThreadAware<ApiContext>,
-    private val contentPublishProvider: ContentPublishProvider
+    private val contentPublishQueue: ContentPublishQueue,
+    private val commentTreeService: CommentTreeService,
+    private val commentCountProvider: CommentCountProvider,
+    private val contentCollectionProviderFactory: ContentCollectionProviderFactory,
+    private val pageableContextThreadAware: ContextThreadAware<PageableContext>
 ) {
     @PostMapping("/{contentType}/{contentId}/comments")
     fun createComment(
@@ -62,7 +77,7 @@ class CommentController(
             commentRequest.content,
             commentDetailsMetadata
         )
-        val contentDetails = contentPublishProvider.publishContent(
+        val contentDetails = contentPublishQueue.publish(
             uncreatedContent
         )
         return HttpResponseEntity.success(
@@ -70,39 +85,85 @@ class CommentController(
         )
     }
 
-    // TODO: implement the following methods
+    /**
+     * Get a page of comment trees of the content, pass the id of the
+     * last top-level comment as `after` to load the next page.
+     */
     @GetMapping("/{contentType}/{contentId}/comments")
     fun getComments(
-        @PathVariable("contentId") contentId: Long?,
-        @PathVariable("contentType") type: String
-    ): HttpResponseEntity<List<CommentVo>> {
+        @PathVariable("contentId") contentId: Long,
+        @PathVariable("contentType") type: String,
+        @RequestParam(value = "order", defaultValue = "latest") order: String,
+        @RequestParam(value = "after", defaultValue = "0") after: Long,
+        @RequestParam(value = "limit", defaultValue = "20") limit: Int,
+        @RequestParam(value = "replies", defaultValue = "3") replies: Int
+    ): HttpResponseEntity<List<CommentNodeVo>> {
         val contentType = getContentType(type)
-        val collectionType = getFromContentType(contentType)
-
-        return HttpResponseEntity.success(listOf())
+        val threadOrder = CommentThreadOrder.findByName(order)
+            ?: throw ParameterFailedException("Comment order not found.")
+        val commentTree = commentTreeService.getCommentTree(
+            contentId, contentType, currentCredentials(), threadOrder,
+            after, limit, replies
+        )
+        return HttpResponseEntity.success(CommentNodeVo.of(commentTree))
     }
 
+    /**
+     * Get the comment counts of contents, keyed by the content id.
+     */
+    @GetMapping("/{contentType}/comments/count")
+    fun getCommentCounts(
+        @PathVariable("contentType") type: String,
+        @RequestParam("ids") contentIds: List<Long>
+    ): HttpResponseEntity<Map<Long, Long>> {
+        val contentType = getContentType(type)
+        if (contentIds.size > MAX_COUNT_IDS) {
+            throw ParameterFailedException("Too many content ids.")
+        }
+        return HttpResponseEntity.success(
+            commentCountProvider.getCommentCounts(contentIds, contentType)
+        )
+    }
 
     @GetMapping("/user/comments")
     fun getCommentsOfCurrentUser(): HttpResponseEntity<List<CommentVo>> {
-        return HttpResponseEntity.success(listOf())
+        val user = apiContextThreadAware.contextThread
+            .context.user!!
+        return HttpResponseEntity.success(getUserComments(user.userId))
     }
 
     @GetMapping("/users/{userId}/comments")
     fun getCommentsOfUser(@PathVariable("userId") userId: Long): HttpResponseEntity<List<CommentVo>> {
-        return HttpResponseEntity.success(listOf())
+        return HttpResponseEntity.success(getUserComments(userId))
     }
 
-    private fun getFromContentType(contentType: ContentType): ContentCollectionType {
-        return when (contentType) {
-            ContentType.ARTICLE -> ContentCollectionType.ARTICLE_COMMENTS
-            ContentType.POST -> ContentCollectionType.POST_COMMENTS
-            ContentType.COMMENT -> ContentCollectionType.COMMENTS
-            else -> throw IllegalArgumentException("Unsupported content type: $contentType")
-        }
+    private fun currentCredentials(): ContentAccessCredentials {
+        val context = apiContextThreadAware.contextThread
+            .context
+        return ContentAccessCredentials.of(
+            ContentAccessAuthType.USER,
+            context.user?.userId
+        )
+    }
+
+    private fun getUserComments(userId: Long): List<CommentVo> {
+        val credentials = currentCredentials()
+        val pageableContext = pageableContextThreadAware.contextThread
+            .context
+        val pageRequest = ContentCollectionPageRequest.bounded(
+            pageableContext.page,
+            pageableContext.size
+        )
+        return contentCollectionProviderFactory.getContents(
+            ContentCollectionIdentity.of(userId, ContentCollectionType.USER_COMMENTS),
+            credentials,
+            pageRequest
+        ).mapNotNull { CommentVo.of(it.contentDetails) }
     }
 
     companion object {
+        private const val MAX_COUNT_IDS = 100
+
         private fun getContentType(contentType: String): ContentType =
             ContentType.findByName(contentType)
                 ?: throw ParameterFailedException("Content type not found.")
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.controller.comment.model
+
+import tech.lamprism.lampray.content.comment.CommentTree
+
+/**
+ * A comment in a flattened comment tree.
+ *
+ * @author RollW
+ */
+data class CommentNodeVo(
+    val comment: CommentVo,
+    /**
+     * Index of the parent in the list, -1 for a top-level comment.
+     */
+    val parentIndex: Int,
+    val depth: Int,
+    /**
+     * Number of replies of a top-level comment, 0 for replies.
+     */
+    val replyCount: Long,
+    val hasMoreReplies: Boolean
+) {
+    companion object {
+        @JvmStatic
+        fun of(commentTree: CommentTree): List<CommentNodeVo> =
+            List(commentTree.size()) { index ->
+                CommentNodeVo(
+                    CommentVo.of(commentTree.get(index))!!,
+                    commentTree.getParentIndex(index),
+                    commentTree.getDepth(index),
+                    commentTree.getReplyCount(index),
+                    commentTree.hasMoreReplies(index)
+                )
+            }
+    }
+}
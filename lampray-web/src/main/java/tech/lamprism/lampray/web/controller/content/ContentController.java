@@ -16,10 +16,12 @@
 
 package tech.lamprism.lampray.web.controller.content;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import tech.lamprism.lampray.content.ContentAccessAuthType;
 import tech.lamprism.lampray.content.ContentAccessCredentials;
 import tech.lamprism.lampray.content.ContentAccessService;
@@ -31,10 +33,13 @@ import tech.lamprism.lampray.content.ContentPublishProvider;
 import tech.lamprism.lampray.web.common.ApiContext;
 import tech.lamprism.lampray.web.controller.Api;
 import tech.lamprism.lampray.web.controller.comment.model.CommentVo;
+import tech.lamprism.lampray.web.controller.content.vo.ContentPageVo;
 import tech.lamprism.lampray.web.controller.content.vo.ContentVo;
 import tech.lamprism.lampray.web.controller.content.vo.UrlContentType;
 import tech.lamprism.lampray.web.controller.article.model.ArticleVo;
+import tech.lamprism.lampray.content.collection.ContentCollectionCursor;
 import tech.lamprism.lampray.content.collection.ContentCollectionIdentity;
+import tech.lamprism.lampray.content.collection.ContentCollectionPageRequest;
 import tech.lamprism.lampray.content.collection.ContentCollectionProviderFactory;
 import tech.lamprism.lampray.content.common.ContentErrorCode;
 import tech.lamprism.lampray.content.common.ContentException;
@@ -44,7 +49,9 @@ import tech.rollw.common.web.system.ContextThreadAware;
 import tech.rollw.common.web.system.SimpleSystemResource;
 import tech.rollw.common.web.system.SystemResource;
 import tech.rollw.common.web.system.SystemResourceOperatorProvider;
+import tech.rollw.common.web.system.paged.PageableContext;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 /**
@@ -57,17 +64,20 @@ public class ContentController {
     private final SystemResourceOperatorProvider<Long> systemResourceOperatorProvider;
     private final ContentCollectionProviderFactory contentCollectionProviderFactory;
     private final ContextThreadAware<ApiContext> apiContextThreadAware;
+    private final ContextThreadAware<PageableContext> pageableContextThreadAware;
 
     public ContentController(ContentPublishProvider contentPublishProvider,
                              ContentAccessService contentAccessService,
                              SystemResourceOperatorProvider<Long> systemResourceOperatorProvider,
                              ContentCollectionProviderFactory contentCollectionProviderFactory,
-                             ContextThreadAware<ApiContext> apiContextThreadAware) {
+                             ContextThreadAware<ApiContext> apiContextThreadAware,
+                             ContextThreadAware<PageableContext> pageableContextThreadAware) {
         this.contentPublishProvider = contentPublishProvider;
         this.contentAccessService = contentAccessService;
         this.systemResourceOperatorProvider = systemResourceOperatorProvider;
         this.contentCollectionProviderFactory = contentCollectionProviderFactory;
         this.apiContextThreadAware = apiContextThreadAware;
+        this.pageableContextThreadAware = pageableContextThreadAware;
     }
 
     @GetMapping("/users/{userId}/{contentType}/{contentId}")
@@ -99,10 +109,21 @@ public class ContentController {
         return HttpResponseEntity.success();
     }
 
+    /**
+     * Get the contents of the user, from the latest updated.
+     * <p>
+     * Pages are read by cursor, pass the {@code nextBefore} and
+     * {@code nextBeforeId} of the previous page to load the next
+     * one. Without a cursor, the page number of the request is
+     * used, which reads all the contents before the page.
+     */
     @GetMapping("/users/{userId}/{contentType}")
-    public HttpResponseEntity<List<ContentVo>> getUserContents(
+    public HttpResponseEntity<ContentPageVo> getUserContents(
             @PathVariable("userId") Long userId,
-            @PathVariable("contentType") UrlContentType contentType) {
+            @PathVariable("contentType") UrlContentType contentType,
+            @RequestParam(value = "before", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime before,
+            @RequestParam(value = "beforeId", required = false) Long beforeId) {
         ContextThread<ApiContext> apiContextThread =
                 apiContextThreadAware.getContextThread();
         ApiContext apiContext = apiContextThread.getContext();
@@ -114,17 +135,42 @@ public class ContentController {
                                 : apiContext.getUser().getUserId()
                 );
 
-        List<ContentMetadataDetails<?>> contents =
+        PageableContext pageableContext =
+                pageableContextThreadAware.getContextThread().getContext();
+        ContentCollectionPageRequest pageRequest = ContentCollectionPageRequest.bounded(
+                pageableContext.getPage(),
+                pageableContext.getSize()
+        );
+        if (before != null && beforeId != null) {
+            pageRequest = ContentCollectionPageRequest.after(
+                    new ContentCollectionCursor(before, beforeId),
+                    pageRequest.getSize()
+            );
+        }
+        List<ContentMetadataDetails<? extends ContentDetails>> contents =
                 contentCollectionProviderFactory.getContents(
                         ContentCollectionIdentity.of(
                                 userId,
                                 contentType.getUserCollectionType()
                         ),
-                        contentAccessCredentials
+                        contentAccessCredentials,
+                        pageRequest
                 );
-        return HttpResponseEntity.success(
-                contents.stream().map(this::contentVoConvert).toList()
-        );
+        List<ContentVo> contentVos = contents.stream()
+                .map(this::contentVoConvert)
+                .toList();
+        // counting all visible contents needs to read the whole
+        // collection, so only gives the cursor of the next page.
+        if (contents.size() < pageRequest.getSize()) {
+            return HttpResponseEntity.success(new ContentPageVo(contentVos, null, null));
+        }
+        ContentCollectionCursor next = ContentCollectionCursor.of(
+                contents.get(contents.size() - 1).getContentDetails());
+        return HttpResponseEntity.success(new ContentPageVo(
+                contentVos,
+                next.updateTime().toString(),
+                next.contentId()
+        ));
     }
 
     @DeleteMapping("/users/{userId}/{contentType}/{contentId}")
@@ -21,6 +21,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import tech.lamprism.lampray.web.common.ApiContext;
 import tech.lamprism.lampray.web.controller.AdminApi;
 import tech.lamprism.lampray.web.controller.comment.model.CommentVo;
+import tech.lamprism.lampray.web.controller.content.vo.CacheStatsVo;
 import tech.lamprism.lampray.web.controller.content.vo.ContentVo;
 import tech.lamprism.lampray.web.controller.content.vo.UrlContentType;
 import tech.lamprism.lampray.web.controller.article.model.ArticleVo;
@@ -29,6 +30,7 @@ import tech.lamprism.lampray.content.ContentDetails;
 import tech.lamprism.lampray.content.ContentIdentity;
 import tech.lamprism.lampray.content.collection.ContentCollectionProviderFactory;
 import tech.lamprism.lampray.content.common.ContentErrorCode;
+import tech.lamprism.lampray.content.service.ContentMetadataCache;
 import tech.rollw.common.web.HttpResponseEntity;
 import tech.rollw.common.web.system.ContextThreadAware;
 import tech.rollw.common.web.system.SystemResourceOperatorProvider;
@@ -42,15 +44,29 @@ public class ContentManageController {
     private final SystemResourceOperatorProvider<Long> systemResourceOperatorProvider;
     private final ContentCollectionProviderFactory contentCollectionProviderFactory;
     private final ContextThreadAware<ApiContext> apiContextThreadAware;
+    private final ContentMetadataCache contentMetadataCache;
 
     public ContentManageController(ContentAccessService contentAccessService,
                                    SystemResourceOperatorProvider<Long> systemResourceOperatorProvider,
                                    ContentCollectionProviderFactory contentCollectionProviderFactory,
-                                   ContextThreadAware<ApiContext> apiContextThreadAware) {
+                                   ContextThreadAware<ApiContext> apiContextThreadAware,
+                                   ContentMetadataCache contentMetadataCache) {
         this.contentAccessService = contentAccessService;
         this.systemResourceOperatorProvider = systemResourceOperatorProvider;
         this.contentCollectionProviderFactory = contentCollectionProviderFactory;
         this.apiContextThreadAware = apiContextThreadAware;
+        this.contentMetadataCache = contentMetadataCache;
+    }
+
+    /**
+     * Hit/miss statistics of the content metadata cache on this node.
+     */
+    @GetMapping("/contents/metadata/cache/stats")
+    public HttpResponseEntity<CacheStatsVo> getMetadataCacheStats() {
+        return HttpResponseEntity.success(CacheStatsVo.of(
+                contentMetadataCache.stats(),
+                contentMetadataCache.estimatedSize()
+        ));
     }
 
     @GetMapping("/users/{userId}/{contentType}/{contentId}")
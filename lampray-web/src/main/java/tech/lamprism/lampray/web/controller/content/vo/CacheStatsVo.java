@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.controller.content.vo;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * @author RollW
+ */
+public record CacheStatsVo(
+        long estimatedSize,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long loadSuccessCount,
+        long loadFailureCount,
+        double averageLoadPenalty,
+        long evictionCount
+) {
+    public static CacheStatsVo of(CacheStats stats, long estimatedSize) {
+        return new CacheStatsVo(
+                estimatedSize,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.loadSuccessCount(),
+                stats.loadFailureCount(),
+                stats.averageLoadPenalty(),
+                stats.evictionCount()
+        );
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.controller.content.vo;
+
+import space.lingu.Nullable;
+
+import java.util.List;
+
+/**
+ * A page of contents read by cursor.
+ * <p>
+ * Pass {@code nextBefore} and {@code nextBeforeId} as {@code before}
+ * and {@code beforeId} to load the next page, both are null if
+ * there are no more contents.
+ *
+ * @author RollW
+ */
+public record ContentPageVo(
+        List<ContentVo> contents,
+        @Nullable String nextBefore,
+        @Nullable Long nextBeforeId
+) {
+}
@@ -17,11 +17,17 @@
 package tech.lamprism.lampray.web.controller.message;
 
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import tech.lamprism.lampray.web.common.ApiContext;
 import tech.lamprism.lampray.web.controller.Api;
 import tech.lamprism.lampray.web.domain.message.ChatMessageProvider;
+import tech.lamprism.lampray.web.domain.message.ChatPartner;
+import tech.lamprism.lampray.web.domain.message.ChatType;
+import tech.lamprism.lampray.web.domain.message.OnlinePresenceProvider;
 import tech.lamprism.lampray.web.domain.message.TransferredMessage;
 import tech.lamprism.lampray.user.UserIdentity;
+import tech.lamprism.lampray.user.UserViewException;
+import tech.rollw.common.web.AuthErrorCode;
 import tech.rollw.common.web.HttpResponseEntity;
 import tech.rollw.common.web.system.ContextThreadAware;
 
@@ -34,19 +40,77 @@ import java.util.List;
 public class ChatMessageController {
     private final ChatMessageProvider chatMessageProvider;
     private final ContextThreadAware<ApiContext> apiContextThreadAware;
+    private final OnlinePresenceProvider onlinePresenceProvider;
 
     public ChatMessageController(ChatMessageProvider chatMessageProvider,
-                                 ContextThreadAware<ApiContext> apiContextThreadAware) {
+                                 ContextThreadAware<ApiContext> apiContextThreadAware,
+                                 OnlinePresenceProvider onlinePresenceProvider) {
         this.chatMessageProvider = chatMessageProvider;
         this.apiContextThreadAware = apiContextThreadAware;
+        this.onlinePresenceProvider = onlinePresenceProvider;
     }
 
+    /**
+     * Get messages of all conversations of the user, from the newest
+     * to the oldest. Pass the timestamp and the message id of the
+     * oldest message as {@code before} and {@code beforeId} to load
+     * older messages.
+     */
     @GetMapping("/messages")
-    public HttpResponseEntity<List<TransferredMessage>> getMessages() {
+    public HttpResponseEntity<List<TransferredMessage>> getMessages(
+            @RequestParam(value = "before", defaultValue = "0") long before,
+            @RequestParam(value = "beforeId", defaultValue = "0") long beforeId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
         ApiContext context =
                 apiContextThreadAware.getContextThread().getContext();
         UserIdentity user = context.getUser();
-        List<TransferredMessage> messages = chatMessageProvider.getMessages(user);
+        if (user == null) {
+            throw new UserViewException(AuthErrorCode.ERROR_UNAUTHORIZED_USE);
+        }
+        List<TransferredMessage> messages =
+                chatMessageProvider.getMessages(user, before, beforeId, limit);
         return HttpResponseEntity.success(messages);
     }
+
+    /**
+     * Get messages of the conversation with the chat partner, from the
+     * newest to the oldest. Pass the timestamp and the message id of
+     * the oldest message as {@code before} and {@code beforeId} to load
+     * older messages.
+     */
+    @GetMapping("/messages/history")
+    public HttpResponseEntity<List<TransferredMessage>> getHistoryMessages(
+            @RequestParam("type") ChatType chatType,
+            @RequestParam("id") long partnerId,
+            @RequestParam(value = "before", defaultValue = "0") long before,
+            @RequestParam(value = "beforeId", defaultValue = "0") long beforeId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        ApiContext context =
+                apiContextThreadAware.getContextThread().getContext();
+        UserIdentity user = context.getUser();
+        if (user == null) {
+            throw new UserViewException(AuthErrorCode.ERROR_UNAUTHORIZED_USE);
+        }
+        List<TransferredMessage> messages = chatMessageProvider.getMessages(
+                user, new ChatPartner(partnerId, chatType), before, beforeId, limit);
+        return HttpResponseEntity.success(messages);
+    }
+
+    /**
+     * Get the users online among the given users.
+     */
+    @GetMapping("/messages/presence")
+    public HttpResponseEntity<List<Long>> getOnlineUsers(
+            @RequestParam("ids") List<Long> userIds) {
+        if (userIds.size() > MessagePresenceBroadcaster.MAX_SUBSCRIPTIONS) {
+            throw new IllegalArgumentException("Too many user ids.");
+        }
+        return HttpResponseEntity.success(
+                onlinePresenceProvider.filterOnline(userIds));
+    }
+
+    @GetMapping("/messages/presence/count")
+    public HttpResponseEntity<Integer> getOnlineCount() {
+        return HttpResponseEntity.success(onlinePresenceProvider.getOnlineCount());
+    }
 }
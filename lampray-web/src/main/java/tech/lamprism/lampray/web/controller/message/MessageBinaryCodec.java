@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.controller.message;
+
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.domain.message.ChatType;
+import tech.lamprism.lampray.web.domain.message.ErrorMessageContent;
+import tech.lamprism.lampray.web.domain.message.MessageContent;
+import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+import tech.lamprism.lampray.web.domain.message.TransferredMessageType;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link TransferredMessage}, used by
+ * clients negotiating the {@link #SUBPROTOCOL} subprotocol.
+ * <p>
+ * Layout of a frame:
+ * <pre>
+ * byte    header, message type ordinal in the high 4 bits,
+ *         chat type ordinal in the low 4 bits
+ * varint  sender id
+ * varint  receiver id
+ * varint  timestamp
+ * string  username
+ * byte    content kind, 0 for none, 1 for plain, 2 for error
+ * string  content, for plain content
+ * string  error code, message and tip, for error content
+ * varint  message id, optional, 0 if not recorded
+ * </pre>
+ * A string is a varint of its UTF-8 length plus one followed by
+ * the UTF-8 bytes, a length of 0 stands for null.
+ * <p>
+ * Encoding goes through a scratch buffer reused per thread, only
+ * the final frame is allocated.
+ *
+ * @author RollW
+ */
+public final class MessageBinaryCodec {
+    public static final String SUBPROTOCOL = "lampray.chat.binary.v1";
+
+    private static final int CONTENT_NONE = 0;
+    private static final int CONTENT_PLAIN = 1;
+    private static final int CONTENT_ERROR = 2;
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    /**
+     * Scratch buffers larger than this are not kept.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final TransferredMessageType[] MESSAGE_TYPES =
+            TransferredMessageType.values();
+    private static final ChatType[] CHAT_TYPES = ChatType.values();
+
+    private static final ThreadLocal<ByteBuffer> SCRATCH =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    private MessageBinaryCodec() {
+    }
+
+    /**
+     * Encode the message to a read-only frame. The frame can be
+     * shared, each send should use a {@link ByteBuffer#duplicate()}.
+     */
+    @NonNull
+    public static ByteBuffer encode(@NonNull TransferredMessage message) {
+        ByteBuffer buffer = SCRATCH.get();
+        while (true) {
+            try {
+                write(buffer, message);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+        if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+            SCRATCH.set(buffer);
+        }
+        buffer.flip();
+        byte[] frame = new byte[buffer.remaining()];
+        buffer.get(frame);
+        return ByteBuffer.wrap(frame).asReadOnlyBuffer();
+    }
+
+    @NonNull
+    public static TransferredMessage decode(@NonNull ByteBuffer frame) {
+        try {
+            int header = frame.get() & 0xFF;
+            TransferredMessageType messageType = MESSAGE_TYPES[header >>> 4];
+            ChatType chatType = CHAT_TYPES[header & 0x0F];
+            long senderId = readVarLong(frame);
+            long receiverId = readVarLong(frame);
+            long timestamp = readVarLong(frame);
+            String username = readString(frame);
+            MessageContent content = switch (frame.get()) {
+                case CONTENT_NONE -> null;
+                case CONTENT_PLAIN -> MessageContent.of(readString(frame));
+                case CONTENT_ERROR -> {
+                    // clients never send errors, keep the tip only
+                    readString(frame);
+                    readString(frame);
+                    yield MessageContent.of(readString(frame));
+                }
+                default -> throw new IllegalArgumentException("Unknown content kind.");
+            };
+            long messageId = frame.hasRemaining() ? readVarLong(frame) : 0;
+            return new TransferredMessageVo(messageType, senderId, receiverId,
+                    username, chatType, content, timestamp, messageId);
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed message frame.", e);
+        }
+    }
+
+    private static void write(ByteBuffer buffer, TransferredMessage message) {
+        buffer.clear();
+        buffer.put((byte) (message.getMessageType().ordinal() << 4
+                | message.getChatType().ordinal()));
+        writeVarLong(buffer, message.getSenderId());
+        writeVarLong(buffer, message.getReceiverId());
+        writeVarLong(buffer, message.getTimestamp());
+        writeString(buffer, message instanceof TransferredMessageVo vo
+                ? vo.username()
+                : null);
+        MessageContent content = message.getContent();
+        if (content == null) {
+            buffer.put((byte) CONTENT_NONE);
+        } else if (content instanceof ErrorMessageContent error) {
+            buffer.put((byte) CONTENT_ERROR);
+            writeString(buffer, error.errorCode() == null
+                    ? null
+                    : error.errorCode().getCode());
+            writeString(buffer, error.message());
+            writeString(buffer, error.tip());
+        } else {
+            buffer.put((byte) CONTENT_PLAIN);
+            writeString(buffer, content.getContent());
+        }
+        writeVarLong(buffer, message.getMessageId());
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            writeVarLong(buffer, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(buffer, bytes.length + 1L);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        long length = readVarLong(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed string length.");
+        }
+        byte[] bytes = new byte[(int) length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
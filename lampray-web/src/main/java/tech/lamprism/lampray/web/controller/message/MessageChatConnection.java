@@ -16,24 +16,124 @@
 
 package tech.lamprism.lampray.web.controller.message;
 
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.lingu.NonNull;
 import tech.lamprism.lampray.web.domain.message.TransferredMessage;
 import tech.lamprism.lampray.web.ws.AbstractWebSocketMessageConnection;
 import tech.lamprism.lampray.web.ws.UserWebSocketConnectionRegistry;
 import tech.lamprism.lampray.web.ws.WebSocketMessageConnection;
 
-import jakarta.websocket.Session;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Outgoing frames are queued in a bounded queue and sent one at a
+ * time, a connection that cannot keep up with its queue is closed
+ * instead of stalling the senders.
+ * <p>
+ * Frames are binary if the session negotiated the
+ * {@link MessageBinaryCodec#SUBPROTOCOL}, otherwise JSON texts.
+ *
  * @author RollW
  */
 public class MessageChatConnection extends AbstractWebSocketMessageConnection<TransferredMessage>
         implements WebSocketMessageConnection<TransferredMessage> {
+    private static final Logger logger = LoggerFactory.getLogger(MessageChatConnection.class);
+    private static final int OUTBOUND_CAPACITY = 256;
+
     private final UserWebSocketConnectionRegistry<MessageChatConnection> registry;
+    /**
+     * Queued frames, either {@link String} or {@link ByteBuffer}.
+     */
+    private final Queue<Object> outbound = new ArrayBlockingQueue<>(OUTBOUND_CAPACITY);
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+    private final boolean binary;
 
     public MessageChatConnection(Session session,
                                  UserWebSocketConnectionRegistry<MessageChatConnection> registry) {
         super(session);
         this.registry = registry;
+        this.binary = isBinary(session);
+    }
+
+    public static boolean isBinary(Session session) {
+        return MessageBinaryCodec.SUBPROTOCOL.equals(
+                session.getNegotiatedSubprotocol());
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Queue the message to be sent in the frame format of the
+     * connection, never blocks.
+     */
+    public void send(@NonNull OutboundMessage message) {
+        if (isClosed()) {
+            return;
+        }
+        Object frame = binary ? message.binary() : message.text();
+        if (!outbound.offer(frame)) {
+            logger.debug("Outbound queue of session {} is full, closing.",
+                    session.getId());
+            closeSlowConnection();
+            return;
+        }
+        sendNext();
+    }
+
+    private void sendNext() {
+        while (!outbound.isEmpty()) {
+            if (!sending.compareAndSet(false, true)) {
+                // the pending send will continue with the queue.
+                return;
+            }
+            Object frame = outbound.poll();
+            if (frame == null) {
+                sending.set(false);
+                continue;
+            }
+            if (isClosed()) {
+                outbound.clear();
+                sending.set(false);
+                return;
+            }
+            if (frame instanceof ByteBuffer buffer) {
+                session.getAsyncRemote().sendBinary(buffer, this::onSent);
+            } else {
+                session.getAsyncRemote().sendText((String) frame, this::onSent);
+            }
+            return;
+        }
+    }
+
+    private void onSent(SendResult result) {
+        sending.set(false);
+        if (!result.isOK()) {
+            logger.debug("Failed to send message to session {}.",
+                    session.getId(), result.getException());
+        }
+        sendNext();
+    }
+
+    private void closeSlowConnection() {
+        outbound.clear();
+        registry.unregisterConnection(this);
+        try {
+            session.close(new CloseReason(
+                    CloseReason.CloseCodes.TRY_AGAIN_LATER,
+                    "Outbound queue is full."));
+        } catch (IOException e) {
+            logger.debug("Error while closing session {}.", session.getId(), e);
+        }
     }
 
     @Override
@@ -42,6 +142,7 @@ public class MessageChatConnection extends AbstractWebSocketMessageConnection<Tr
 
     @Override
     public void onDisconnect() {
+        outbound.clear();
     }
 
     @Override
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.controller.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.ws.UserWebSocketConnectionRegistry;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closes and unregisters connections that missed their heartbeats.
+ * <p>
+ * Connections are kept in a timer wheel by their deadlines. Each
+ * tick only drains the slot that is due, connections that received
+ * heartbeats meanwhile are put back by their new deadlines, so the
+ * cost of a tick does not grow with the live connections.
+ *
+ * @author RollW
+ */
+@Component
+public class MessageConnectionReaper {
+    private static final Logger logger = LoggerFactory.getLogger(MessageConnectionReaper.class);
+
+    private static final long TICK_MILLIS = 5_000;
+    private static final int WHEEL_SIZE = 64;
+
+    private final UserWebSocketConnectionRegistry<MessageChatConnection> registry;
+    private final MessagePresenceBroadcaster presenceBroadcaster;
+    private final Queue<MessageChatConnection>[] wheel;
+    private final AtomicLong currentTick = new AtomicLong();
+
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public MessageConnectionReaper(UserWebSocketConnectionRegistry<MessageChatConnection> registry,
+                                   MessagePresenceBroadcaster presenceBroadcaster) {
+        this.registry = registry;
+        this.presenceBroadcaster = presenceBroadcaster;
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        currentTick.set(tickOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * Watch the connection until it is closed or timed out.
+     */
+    public void watch(@NonNull MessageChatConnection connection) {
+        long deadline = connection.getLastHeartbeatTime() + connection.getTimeout();
+        schedule(connection, deadline);
+    }
+
+    private void schedule(MessageChatConnection connection, long deadline) {
+        long tick = Math.max(tickOf(deadline), currentTick.get() + 1);
+        // deadlines beyond the wheel are checked one round earlier
+        // and scheduled again.
+        tick = Math.min(tick, currentTick.get() + WHEEL_SIZE - 1);
+        wheel[(int) (tick % WHEEL_SIZE)].add(connection);
+    }
+
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void tick() {
+        long now = System.currentTimeMillis();
+        long targetTick = tickOf(now);
+        long tick;
+        while ((tick = currentTick.get()) < targetTick) {
+            currentTick.set(tick + 1);
+            drain(wheel[(int) ((tick + 1) % WHEEL_SIZE)], now);
+        }
+    }
+
+    private void drain(Queue<MessageChatConnection> slot, long now) {
+        int batch = slot.size();
+        for (int i = 0; i < batch; i++) {
+            MessageChatConnection connection = slot.poll();
+            if (connection == null) {
+                return;
+            }
+            check(connection, now);
+        }
+    }
+
+    private void check(MessageChatConnection connection, long now) {
+        if (connection.isClosed()) {
+            registry.unregisterConnection(connection);
+            presenceBroadcaster.unsubscribe(connection);
+            closedCount.incrementAndGet();
+            return;
+        }
+        if (!connection.isTimeout(now)) {
+            watch(connection);
+            return;
+        }
+        registry.unregisterConnection(connection);
+        presenceBroadcaster.unsubscribe(connection);
+        timeoutCount.incrementAndGet();
+        try {
+            connection.close();
+        } catch (RuntimeException e) {
+            logger.debug("Error while closing timed out connection: {}",
+                    connection.getSession().getId(), e);
+        }
+    }
+
+    @NonNull
+    public ConnectionStats getStats() {
+        return new ConnectionStats(
+                registry.getConnections().size(),
+                closedCount.get(),
+                timeoutCount.get()
+        );
+    }
+
+    private static long tickOf(long timestamp) {
+        return timestamp / TICK_MILLIS;
+    }
+
+    /**
+     * @param live     count of registered connections
+     * @param closed   count of closed connections found by the reaper
+     * @param timedOut count of connections closed for timeout
+     */
+    public record ConnectionStats(long live, long closed, long timedOut) {
+    }
+}
@@ -16,77 +16,131 @@
 
 package tech.lamprism.lampray.web.controller.message;
 
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
+import jakarta.websocket.Session;
 import org.springframework.stereotype.Service;
-import tech.lamprism.lampray.web.ws.AbstractWebSocketMessageConnection;
+import tech.lamprism.lampray.user.UserIdentity;
+import tech.lamprism.lampray.web.domain.message.ChatDeliveryBus;
+import tech.lamprism.lampray.web.domain.message.service.OnlinePresenceTracker;
 import tech.lamprism.lampray.web.ws.UserWebSocketConnectionRegistry;
 
-import jakarta.websocket.Session;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Objects;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Connections are indexed by user id and then by session id, so
+ * lookups, registrations and removals do not scan the connections
+ * of the user. Closed connections are pruned in the background
+ * by {@link MessageConnectionReaper}.
+ * <p>
+ * The {@link ChatDeliveryBus} is told when the first connection
+ * of a user is registered and when the last one is removed, and
+ * the {@link OnlinePresenceTracker} of every change of the number
+ * of connections of a user.
+ *
  * @author RollW
  */
 @Service
 public class MessageConnectionRegistry implements UserWebSocketConnectionRegistry<MessageChatConnection> {
-    private final Multimap<Long, MessageChatConnection> connections =
-            Multimaps.newSetMultimap(new ConcurrentHashMap<>(), HashSet::new);
+    private final Map<Long, Map<String, MessageChatConnection>> connections =
+            new ConcurrentHashMap<>();
+    private final ChatDeliveryBus chatDeliveryBus;
+    private final OnlinePresenceTracker onlinePresenceTracker;
+
+    public MessageConnectionRegistry(ChatDeliveryBus chatDeliveryBus,
+                                     OnlinePresenceTracker onlinePresenceTracker) {
+        this.chatDeliveryBus = chatDeliveryBus;
+        this.onlinePresenceTracker = onlinePresenceTracker;
+    }
 
     @Override
     public void registerConnection(MessageChatConnection connection) {
-        long hasCurr = connections.get(connection.getUser().getUserId())
-                .stream()
-                .filter(conn -> Objects.equals(connection.getSession().getId(), conn.getSession().getId()))
-                .count();
-        if (hasCurr > 0) {
+        UserIdentity user = connection.getUser();
+        if (user == null) {
             return;
         }
-        connections.put(connection.getUser().getUserId(), connection);
+        String sessionId = connection.getSession().getId();
+        // compute keeps the registration atomic with the removal
+        // of the empty session map.
+        connections.compute(user.getUserId(), (userId, sessions) -> {
+            if (sessions == null) {
+                chatDeliveryBus.online(userId);
+                Map<String, MessageChatConnection> userSessions = new ConcurrentHashMap<>();
+                userSessions.put(sessionId, connection);
+                onlinePresenceTracker.update(userId, 1);
+                return userSessions;
+            }
+            sessions.putIfAbsent(sessionId, connection);
+            onlinePresenceTracker.update(userId, sessions.size());
+            return sessions;
+        });
     }
 
     @Override
     public void unregisterConnection(MessageChatConnection connection) {
-        connections.remove(connection.getUser().getUserId(), connection);
+        UserIdentity user = connection.getUser();
+        if (user == null) {
+            return;
+        }
+        removeSession(user.getUserId(), connection.getSession().getId(), connection);
     }
 
     @Override
     public void unregisterConnection(long userId) {
-        connections.removeAll(userId);
+        connections.computeIfPresent(userId, (id, sessions) -> {
+            chatDeliveryBus.offline(id);
+            onlinePresenceTracker.update(id, 0);
+            return null;
+        });
     }
 
     @Override
     public void unregisterConnection(long userId, Session session) {
-        connections.get(userId).stream()
-                .filter(connection -> Objects.equals(connection.getSession().getId(), session.getId()))
-                .forEach(connection -> connections.remove(userId, connection));
+        removeSession(userId, session.getId(), null);
+    }
+
+    private void removeSession(long userId, String sessionId,
+                               MessageChatConnection connection) {
+        connections.computeIfPresent(userId, (id, sessions) -> {
+            if (connection == null) {
+                sessions.remove(sessionId);
+            } else {
+                sessions.remove(sessionId, connection);
+            }
+            onlinePresenceTracker.update(id, sessions.size());
+            if (sessions.isEmpty()) {
+                chatDeliveryBus.offline(id);
+                return null;
+            }
+            return sessions;
+        });
     }
 
     @Override
     public MessageChatConnection getConnection(long userId, Session session) {
-        return connections.get(userId).stream()
-                .filter(connection -> Objects.equals(connection.getSession().getId(), session.getId()))
-                .findFirst()
-                .orElse(null);
+        Map<String, MessageChatConnection> sessions = connections.get(userId);
+        if (sessions == null) {
+            return null;
+        }
+        return sessions.get(session.getId());
     }
 
     @Override
-    public Collection<MessageChatConnection> getConnections(
-            long userId) {
-        Collection<MessageChatConnection> userConnections =
-                connections.get(userId);
-        userConnections.stream()
-                .filter(AbstractWebSocketMessageConnection::isClosed)
-                .forEach(messageChatConnection ->
-                        connections.remove(userId, messageChatConnection));
-        return connections.get(userId);
+    public Collection<MessageChatConnection> getConnections(long userId) {
+        Map<String, MessageChatConnection> sessions = connections.get(userId);
+        if (sessions == null) {
+            return List.of();
+        }
+        return Collections.unmodifiableCollection(sessions.values());
     }
 
     @Override
     public Collection<MessageChatConnection> getConnections() {
-        return connections.values();
+        List<MessageChatConnection> all = new ArrayList<>();
+        connections.values().forEach(sessions -> all.addAll(sessions.values()));
+        return all;
     }
 }
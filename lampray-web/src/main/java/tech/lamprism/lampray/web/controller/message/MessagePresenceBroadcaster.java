@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.controller.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.domain.message.ChatType;
+import tech.lamprism.lampray.web.domain.message.MessageContent;
+import tech.lamprism.lampray.web.domain.message.SimpleTransferredMessage;
+import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+import tech.lamprism.lampray.web.domain.message.TransferredMessageType;
+import tech.lamprism.lampray.web.domain.message.service.OnlinePresenceTracker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends presence changes of users to the connections subscribed
+ * to them.
+ * <p>
+ * Changes are collected by {@link OnlinePresenceTracker} and sent
+ * once per second, each connection receives at most one presence
+ * message per batch.
+ *
+ * @author RollW
+ */
+@Component
+public class MessagePresenceBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(MessagePresenceBroadcaster.class);
+
+    public static final int MAX_SUBSCRIPTIONS = 500;
+
+    private final OnlinePresenceTracker onlinePresenceTracker;
+    private final MessageTextDecodeEncoder messageEncoder;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Set<MessageChatConnection>> subscribers =
+            new ConcurrentHashMap<>();
+    private final Map<MessageChatConnection, Set<Long>> subscriptions =
+            new ConcurrentHashMap<>();
+
+    public MessagePresenceBroadcaster(OnlinePresenceTracker onlinePresenceTracker,
+                                      MessageTextDecodeEncoder messageEncoder,
+                                      ObjectMapper objectMapper) {
+        this.onlinePresenceTracker = onlinePresenceTracker;
+        this.messageEncoder = messageEncoder;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Replace the subscriptions of the connection, and send the
+     * users currently online back to it.
+     */
+    public void subscribe(@NonNull MessageChatConnection connection,
+                          @NonNull Collection<Long> userIds) {
+        unsubscribe(connection);
+        Set<Long> subscribed = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            if (subscribed.size() >= MAX_SUBSCRIPTIONS) {
+                break;
+            }
+            subscribed.add(userId);
+        }
+        if (subscribed.isEmpty()) {
+            return;
+        }
+        subscriptions.put(connection, subscribed);
+        for (Long userId : subscribed) {
+            subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet())
+                    .add(connection);
+        }
+        send(connection, new PresenceDelta(
+                onlinePresenceTracker.filterOnline(subscribed), List.of()));
+    }
+
+    public void unsubscribe(@NonNull MessageChatConnection connection) {
+        Set<Long> subscribed = subscriptions.remove(connection);
+        if (subscribed == null) {
+            return;
+        }
+        for (Long userId : subscribed) {
+            subscribers.computeIfPresent(userId, (id, connections) -> {
+                connections.remove(connection);
+                return connections.isEmpty() ? null : connections;
+            });
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000, initialDelay = 1000)
+    public void flush() {
+        Map<Long, Boolean> changes = onlinePresenceTracker.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        Map<MessageChatConnection, PresenceDelta> deltas = new HashMap<>();
+        List<MessageChatConnection> closed = new ArrayList<>();
+        changes.forEach((userId, online) -> {
+            Set<MessageChatConnection> connections = subscribers.get(userId);
+            if (connections == null) {
+                return;
+            }
+            for (MessageChatConnection connection : connections) {
+                if (connection.isClosed()) {
+                    closed.add(connection);
+                    continue;
+                }
+                deltas.computeIfAbsent(connection, c -> new PresenceDelta())
+                        .add(userId, online);
+            }
+        });
+        closed.forEach(this::unsubscribe);
+        deltas.forEach(this::send);
+    }
+
+    private void send(MessageChatConnection connection, PresenceDelta delta) {
+        String content;
+        try {
+            content = objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to write presence message.", e);
+            return;
+        }
+        TransferredMessage message = new SimpleTransferredMessage(
+                TransferredMessageType.PRESENCE,
+                0,
+                connection.getUser() == null ? 0 : connection.getUser().getUserId(),
+                ChatType.SYSTEM,
+                MessageContent.of(content),
+                System.currentTimeMillis()
+        );
+        connection.send(new OutboundMessage(message, messageEncoder));
+    }
+
+    record PresenceDelta(List<Long> online, List<Long> offline) {
+        PresenceDelta() {
+            this(new ArrayList<>(), new ArrayList<>());
+        }
+
+        void add(long userId, boolean isOnline) {
+            if (isOnline) {
+                online.add(userId);
+            } else {
+                offline.add(userId);
+            }
+        }
+    }
+}
@@ -17,15 +17,24 @@
 package tech.lamprism.lampray.web.controller.message;
 
 
-import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Controller;
+import space.lingu.NonNull;
 import tech.lamprism.lampray.web.common.ApiContext;
+import tech.lamprism.lampray.web.domain.message.ChatDeliveryBus;
+import tech.lamprism.lampray.web.domain.message.ChatMessageProvider;
+import tech.lamprism.lampray.web.domain.message.ChatPartner;
 import tech.lamprism.lampray.web.domain.message.ChatService;
 import tech.lamprism.lampray.web.domain.message.ChatType;
+import tech.lamprism.lampray.web.domain.message.MessageContent;
 import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+import tech.lamprism.lampray.web.domain.message.TransferredMessageType;
+import tech.lamprism.lampray.web.domain.message.event.OnChatMessageDeliverEvent;
+import tech.lamprism.lampray.web.domain.usergroup.UserGroupMemberProvider;
 import tech.lamprism.lampray.user.AttributedUser;
+import tech.lamprism.lampray.user.UserIdentity;
 import tech.lamprism.lampray.user.UserProvider;
 import tech.lamprism.lampray.web.ws.UserWebSocketConnectionRegistry;
 import tech.lamprism.lampray.web.ws.WebSocketContextConfigurator;
@@ -34,7 +43,8 @@ import tech.rollw.common.web.system.ContextThreadAware;
 import jakarta.websocket.*;
 import jakarta.websocket.server.ServerEndpoint;
 import java.io.IOException;
-import java.util.Collection;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -44,45 +54,79 @@ import java.util.List;
 @ServerEndpoint(value = "/api/v1/message/talk",
         configurator = WebSocketContextConfigurator.class,
         decoders = {MessageTextDecodeEncoder.class},
-        encoders = {MessageTextDecodeEncoder.class, MessageVoDecodeEncoder.class}
+        encoders = {MessageTextDecodeEncoder.class, MessageVoDecodeEncoder.class},
+        subprotocols = {MessageBinaryCodec.SUBPROTOCOL}
 )
-public class MessageWebSocketServer {
+public class MessageWebSocketServer implements ApplicationListener<OnChatMessageDeliverEvent> {
     private static final Logger logger = LoggerFactory.getLogger(MessageWebSocketServer.class);
     private final UserWebSocketConnectionRegistry<MessageChatConnection> registry;
     private final ContextThreadAware<ApiContext> apiContextThreadAware;
     private final UserProvider userProvider;
     private final ChatService chatService;
+    private final ChatMessageProvider chatMessageProvider;
+    private final MessageConnectionReaper connectionReaper;
+    private final MessageTextDecodeEncoder messageEncoder;
+    private final UserGroupMemberProvider userGroupMemberProvider;
+    private final ChatDeliveryBus chatDeliveryBus;
+    private final MessagePresenceBroadcaster presenceBroadcaster;
 
     public MessageWebSocketServer(UserWebSocketConnectionRegistry<MessageChatConnection> registry,
                                   ContextThreadAware<ApiContext> apiContextThreadAware,
                                   UserProvider userProvider,
-                                  ChatService chatService) {
+                                  ChatService chatService,
+                                  ChatMessageProvider chatMessageProvider,
+                                  MessageConnectionReaper connectionReaper,
+                                  MessageTextDecodeEncoder messageEncoder,
+                                  UserGroupMemberProvider userGroupMemberProvider,
+                                  ChatDeliveryBus chatDeliveryBus,
+                                  MessagePresenceBroadcaster presenceBroadcaster) {
         this.registry = registry;
         this.apiContextThreadAware = apiContextThreadAware;
         this.userProvider = userProvider;
         this.chatService = chatService;
+        this.chatMessageProvider = chatMessageProvider;
+        this.connectionReaper = connectionReaper;
+        this.messageEncoder = messageEncoder;
+        this.userGroupMemberProvider = userGroupMemberProvider;
+        this.chatDeliveryBus = chatDeliveryBus;
+        this.presenceBroadcaster = presenceBroadcaster;
     }
 
     @OnOpen
     public void onOpen(Session session,
                        EndpointConfig endpointConfig) throws IOException {
         MessageChatConnection connection = new MessageChatConnection(session, registry);
+        session.getUserProperties().put(MessageChatConnection.class.getName(), connection);
         connection.onConnect();
         registry.registerConnection(connection);
+        connectionReaper.watch(connection);
     }
 
     @OnClose
     public void onClose(Session session, CloseReason closeReason) {
-        ApiContext context = getContextFromSession(session);
-        Long currId = extractIdFromContext(context);
-        if (currId == null) {
+        // taken from the session, a reaped or slow connection is
+        // unregistered before it is closed.
+        MessageChatConnection connection = (MessageChatConnection) session
+                .getUserProperties().get(MessageChatConnection.class.getName());
+        if (connection == null) {
             return;
         }
-
-        MessageChatConnection connection = registry.getConnection(
-                currId, session);
         connection.onDisconnect();
         registry.unregisterConnection(connection);
+        presenceBroadcaster.unsubscribe(connection);
+    }
+
+    @OnMessage
+    public void onBinaryMessage(ByteBuffer frame, Session session) {
+        TransferredMessage message;
+        try {
+            message = MessageBinaryCodec.decode(frame);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Malformed binary message from session {}.",
+                    session.getId(), e);
+            return;
+        }
+        onMessage(message, session);
     }
 
     @OnMessage
@@ -96,35 +140,102 @@ public class MessageWebSocketServer {
         if (message.getMessageType().isHeartbeat() && currId != null) {
             MessageChatConnection connection =
                     registry.getConnection(currId, session);
-            connection.onHeartbeat(timestamp);
-            // TODO: timeout check
+            if (connection != null) {
+                connection.onHeartbeat(timestamp);
+            }
+            return;
+        }
+        if (message.getMessageType().isPresence() && currId != null) {
+            MessageChatConnection connection =
+                    registry.getConnection(currId, session);
+            if (connection != null) {
+                presenceBroadcaster.subscribe(connection,
+                        parseUserIds(message.getContent()));
+            }
+            return;
+        }
+        if (message.getMessageType().isHistory()) {
+            if (context.getUser() != null) {
+                sendHistory(message, context.getUser(), session);
+            }
             return;
         }
 
         try {
             apiContextThreadAware.getContextThread().setContext(context);
-            TransferredMessage returnedMessage =
-                    makeViewObject(chatService.sendMessage(message));
+            TransferredMessage returnedMessage = chatService.sendMessage(message);
             if (returnedMessage.getMessageType().isError()) {
-                RemoteEndpoint.Async async = session.getAsyncRemote();
-                async.sendObject(returnedMessage);
+                sendTo(currId, session, encode(makeViewObject(returnedMessage)));
                 return;
             }
             if (currId == null) {
                 return;
             }
-            Collection<MessageChatConnection> connections =
-                    getConnections(returnedMessage);
-            connections.forEach(target -> {
-                RemoteEndpoint.Async async =
-                        target.getSession().getAsyncRemote();
-                async.sendObject(returnedMessage);
-            });
+            chatDeliveryBus.deliver(returnedMessage, getReceiverIds(returnedMessage));
         } finally {
             apiContextThreadAware.getContextThread().clearContext();
         }
     }
 
+    /**
+     * Send the messages before the cursor of the history message back
+     * to the session, from the newest to the oldest.
+     */
+    private void sendHistory(TransferredMessage message,
+                             UserIdentity user,
+                             Session session) {
+        ChatPartner chatPartner = new ChatPartner(
+                message.getReceiverId(), message.getChatType());
+        List<TransferredMessage> messages = chatMessageProvider.getMessages(
+                user, chatPartner, message.getTimestamp(), message.getMessageId(),
+                ChatMessageProvider.DEFAULT_HISTORY_LIMIT);
+        for (TransferredMessage history : messages) {
+            TransferredMessage view = makeViewObject(history);
+            sendTo(user.getUserId(), session, encode(view.fork(
+                    TransferredMessageType.HISTORY, view.getTimestamp())));
+        }
+    }
+
+    /**
+     * Send to the session through its connection if registered,
+     * so the message is queued behind the other outgoing messages.
+     */
+    private void sendTo(Long userId, Session session, OutboundMessage message) {
+        MessageChatConnection connection = userId == null
+                ? null
+                : registry.getConnection(userId, session);
+        if (connection != null) {
+            connection.send(message);
+            return;
+        }
+        if (MessageChatConnection.isBinary(session)) {
+            session.getAsyncRemote().sendBinary(message.binary());
+            return;
+        }
+        session.getAsyncRemote().sendText(message.text());
+    }
+
+    private OutboundMessage encode(TransferredMessage message) {
+        return new OutboundMessage(message, messageEncoder);
+    }
+
+    private List<Long> parseUserIds(MessageContent content) {
+        if (content == null || content.getContent() == null) {
+            return List.of();
+        }
+        List<Long> userIds = new ArrayList<>();
+        for (String id : content.getContent().split(",")) {
+            if (userIds.size() >= MessagePresenceBroadcaster.MAX_SUBSCRIPTIONS) {
+                break;
+            }
+            try {
+                userIds.add(Long.parseLong(id.trim()));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return userIds;
+    }
+
     private TransferredMessage makeViewObject(TransferredMessage message) {
         AttributedUser user =
                 userProvider.getUser(message.getSenderId());
@@ -133,48 +244,42 @@ public class MessageWebSocketServer {
         return TransferredMessageVo.fork(message, user);
     }
 
-    private Collection<MessageChatConnection> getConnections(
-            TransferredMessage message) {
-        if (message.getMessageType().isError()) {
-            return List.of();
+    /**
+     * Send the delivered message to the connections of its receivers
+     * on this node.
+     */
+    @Override
+    public void onApplicationEvent(@NonNull OnChatMessageDeliverEvent event) {
+        // encodes once for each frame format of the targets
+        OutboundMessage message = encode(makeViewObject(event.getMessage()));
+        for (long receiverId : event.getReceiverIds()) {
+            registry.getConnections(receiverId)
+                    .forEach(target -> target.send(message));
         }
+    }
+
+    private long[] getReceiverIds(TransferredMessage message) {
         return switch (message.getChatType()) {
-            case USER -> getConnectionsOfUser(message);
-            case GROUP -> getConnectionsOfGroup(message);
-            case SYSTEM -> List.of();
+            case USER -> getReceiverIdsOfUser(message);
+            case GROUP -> getReceiverIdsOfGroup(message);
+            case SYSTEM -> new long[0];
         };
     }
 
-    private Collection<MessageChatConnection> getConnectionsOfUser(TransferredMessage message) {
+    private long[] getReceiverIdsOfUser(TransferredMessage message) {
         if (message.getSenderId() == message.getReceiverId()) {
-            return registry.getConnections(message.getSenderId());
+            return new long[]{message.getSenderId()};
         }
-        Collection<MessageChatConnection> senderConnections =
-                registry.getConnections(message.getSenderId());
-        Collection<MessageChatConnection> targets =
-                registry.getConnections(message.getReceiverId());
-
-        List<MessageChatConnection> connections = Lists.newArrayList();
-        connections.addAll(senderConnections);
-        connections.addAll(targets);
-        return connections;
+        return new long[]{message.getSenderId(), message.getReceiverId()};
     }
 
-    private Collection<MessageChatConnection> getConnectionsOfGroup(
-            TransferredMessage message) {
+    private long[] getReceiverIdsOfGroup(TransferredMessage message) {
         if (message.getChatType() != ChatType.GROUP) {
             throw new IllegalArgumentException("Not a group message.");
         }
-
-        List<MessageChatConnection> connections = Lists.newArrayList();
-
-        // for test, we use a pre-defined group id
-        connections.addAll(registry.getConnections(1));
-        connections.addAll(registry.getConnections(2));
-        connections.addAll(registry.getConnections(3));
-        connections.addAll(registry.getConnections(4));
-        // TODO: replace with a real database
-        return connections;
+        // only members with connections receive it, offline
+        // members read it from history
+        return userGroupMemberProvider.getMemberIds(message.getReceiverId());
     }
 
     @OnError
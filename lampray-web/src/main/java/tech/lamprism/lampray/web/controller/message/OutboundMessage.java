@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.controller.message;
+
+import jakarta.websocket.EncodeException;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A message to send to one or more connections, encoded at most
+ * once for each frame format, on first use.
+ * <p>
+ * Not thread-safe, it is expected to be used by the sending thread.
+ *
+ * @author RollW
+ */
+public final class OutboundMessage {
+    private final TransferredMessage message;
+    private final MessageTextDecodeEncoder textEncoder;
+    private String text;
+    private ByteBuffer binary;
+
+    public OutboundMessage(@NonNull TransferredMessage message,
+                           @NonNull MessageTextDecodeEncoder textEncoder) {
+        this.message = message;
+        this.textEncoder = textEncoder;
+    }
+
+    @NonNull
+    public String text() {
+        if (text == null) {
+            try {
+                text = textEncoder.encode(message);
+            } catch (EncodeException e) {
+                throw new IllegalStateException("Cannot encode message.", e);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Get the binary frame, each call returns an independent view
+     * of the same bytes.
+     */
+    @NonNull
+    public ByteBuffer binary() {
+        if (binary == null) {
+            binary = MessageBinaryCodec.encode(message);
+        }
+        return binary.duplicate();
+    }
+}
@@ -33,7 +33,8 @@ public record TransferredMessageVo(
         String username,
         ChatType chatType,
         MessageContent content,
-        long timestamp
+        long timestamp,
+        long messageId
 ) implements TransferredMessage {
     @Override
     public TransferredMessage fork(long time) {
@@ -53,7 +54,8 @@ public record TransferredMessageVo(
                 username,
                 chatType,
                 content,
-                time
+                time,
+                messageId
         );
     }
 
@@ -68,7 +70,8 @@ public record TransferredMessageVo(
                 username,
                 chatType,
                 messageContent,
-                time
+                time,
+                messageId
         );
     }
 
@@ -102,6 +105,11 @@ public record TransferredMessageVo(
         return timestamp;
     }
 
+    @Override
+    public long getMessageId() {
+        return messageId;
+    }
+
     @Override
     public TransferredMessage fork() {
         return new TransferredMessageVo(
@@ -111,7 +119,8 @@ public record TransferredMessageVo(
                 username,
                 chatType,
                 content,
-                timestamp
+                timestamp,
+                messageId
         );
     }
 
@@ -124,7 +133,8 @@ public record TransferredMessageVo(
                 userIdentity.getUsername(),
                 transferredMessage.getChatType(),
                 transferredMessage.getContent(),
-                transferredMessage.getTimestamp()
+                transferredMessage.getTimestamp(),
+                transferredMessage.getMessageId()
         );
     }
 }
@@ -31,12 +31,18 @@ import tech.lamprism.lampray.authentication.token.AuthenticationTokenService;
 import tech.lamprism.lampray.security.authentication.registration.RegisterProvider;
 import tech.lamprism.lampray.security.authentication.registration.SimpleRegistration;
 import tech.lamprism.lampray.user.AttributedUser;
+import tech.lamprism.lampray.user.UserIdentity;
+import tech.lamprism.lampray.user.UserSignatureProvider;
+import tech.lamprism.lampray.user.UserViewException;
+import tech.lamprism.lampray.web.common.ApiContext;
 import tech.lamprism.lampray.web.common.ParamValidate;
 import tech.lamprism.lampray.web.controller.user.model.LoginResponse;
 import tech.lamprism.lampray.web.controller.user.model.LoginTokenSendRequest;
 import tech.lamprism.lampray.web.controller.user.model.UserLoginRequest;
 import tech.lamprism.lampray.web.controller.user.model.UserRegisterRequest;
+import tech.rollw.common.web.AuthErrorCode;
 import tech.rollw.common.web.HttpResponseEntity;
+import tech.rollw.common.web.system.ContextThreadAware;
 
 import java.io.IOException;
 
@@ -50,13 +56,19 @@ public class LoginRegisterController {
     private final LoginProvider loginProvider;
     private final RegisterProvider registerProvider;
     private final AuthenticationTokenService authenticationTokenService;
+    private final UserSignatureProvider userSignatureProvider;
+    private final ContextThreadAware<ApiContext> apiContextThreadAware;
 
     public LoginRegisterController(LoginProvider loginProvider,
                                    RegisterProvider registerProvider,
-                                   AuthenticationTokenService authenticationTokenService) {
+                                   AuthenticationTokenService authenticationTokenService,
+                                   UserSignatureProvider userSignatureProvider,
+                                   ContextThreadAware<ApiContext> apiContextThreadAware) {
         this.loginProvider = loginProvider;
         this.registerProvider = registerProvider;
         this.authenticationTokenService = authenticationTokenService;
+        this.userSignatureProvider = userSignatureProvider;
+        this.apiContextThreadAware = apiContextThreadAware;
     }
 
     @PostMapping("/login/password")
@@ -146,4 +158,19 @@ public class LoginRegisterController {
     public HttpResponseEntity<Void> logout(HttpServletRequest request) {
         return HttpResponseEntity.success();
     }
+
+    /**
+     * Logout from all devices, revokes all tokens of the user.
+     */
+    @PostMapping("/logout/all")
+    public HttpResponseEntity<Void> logoutAll() {
+        ApiContext context = apiContextThreadAware
+                .getContextThread().getContext();
+        UserIdentity user = context.getUser();
+        if (user == null) {
+            throw new UserViewException(AuthErrorCode.ERROR_UNAUTHORIZED_USE);
+        }
+        userSignatureProvider.revokeSignature(user.getUserId());
+        return HttpResponseEntity.success();
+    }
 }
@@ -21,6 +21,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import tech.lamprism.lampray.content.ContentUserStatsProvider;
 import tech.lamprism.lampray.user.AttributedUserDetails;
 import tech.lamprism.lampray.web.common.ApiContext;
 import tech.lamprism.lampray.web.common.ParamValidate;
@@ -53,19 +54,22 @@ public class UserController {
     private final UserSearchService userSearchService;
     private final UserPersonalDataService userPersonalDataService;
     private final StorageUrlProvider storageUrlProvider;
+    private final ContentUserStatsProvider contentUserStatsProvider;
 
     public UserController(ContextThreadAware<ApiContext> apiContextThreadAware,
                           ContextThreadAware<PageableContext> pageableContextThreadAware,
                           UserProvider userProvider,
                           UserSearchService userSearchService,
                           UserPersonalDataService userPersonalDataService,
-                          StorageUrlProvider storageUrlProvider) {
+                          StorageUrlProvider storageUrlProvider,
+                          ContentUserStatsProvider contentUserStatsProvider) {
         this.apiContextThreadAware = apiContextThreadAware;
         this.pageableContextThreadAware = pageableContextThreadAware;
         this.userProvider = userProvider;
         this.userSearchService = userSearchService;
         this.userPersonalDataService = userPersonalDataService;
         this.storageUrlProvider = storageUrlProvider;
+        this.contentUserStatsProvider = contentUserStatsProvider;
     }
 
     @GetMapping("/user")
@@ -83,7 +87,8 @@ public class UserController {
                 storageUrlProvider.getUrlOfStorage(
                         userPersonalData.getAvatar()),
                 storageUrlProvider.getUrlOfStorage(
-                        userPersonalData.getCover())
+                        userPersonalData.getCover()),
+                contentUserStatsProvider.getUserStats(userInfo.getUserId())
         ));
     }
 
@@ -109,7 +114,8 @@ public class UserController {
                 storageUrlProvider.getUrlOfStorage(
                         userPersonalData.getAvatar()),
                 storageUrlProvider.getUrlOfStorage(
-                        userPersonalData.getCover())
+                        userPersonalData.getCover()),
+                contentUserStatsProvider.getUserStats(userIdentity.getUserId())
         ));
     }
 
@@ -16,14 +16,21 @@
 
 package tech.lamprism.lampray.web.controller.user.model;
 
+import tech.lamprism.lampray.content.ContentType;
+import tech.lamprism.lampray.content.ContentUserStats;
 import tech.lamprism.lampray.user.Role;
 import tech.lamprism.lampray.user.UserIdentity;
 import tech.lamprism.lampray.user.details.Birthday;
 import tech.lamprism.lampray.user.details.Gender;
 import tech.lamprism.lampray.user.details.UserPersonalData;
 
+import java.util.Map;
+
 /**
  * When the user is logged in, the user's personal information is displayed on the page.
+ * <p>
+ * {@code contentCounts} are the numbers of public contents of the user
+ * by content type, only filled in when viewing a single user.
  *
  * @author RollW
  */
@@ -39,13 +46,21 @@ public record UserCommonDetailsVo(
         Gender gender,
         Birthday birthday,
         String website,
-        String location
+        String location,
+        Map<ContentType, Long> contentCounts
 ) {
     // TODO: add followers/following count
 
     public static UserCommonDetailsVo of(UserIdentity userIdentity,
                                          UserPersonalData data,
                                          String avatar, String cover) {
+        return of(userIdentity, data, avatar, cover, null);
+    }
+
+    public static UserCommonDetailsVo of(UserIdentity userIdentity,
+                                         UserPersonalData data,
+                                         String avatar, String cover,
+                                         ContentUserStats contentUserStats) {
         return new UserCommonDetailsVo(
                 userIdentity.getUserId(),
                 userIdentity.getRole(),
@@ -58,7 +73,8 @@ public record UserCommonDetailsVo(
                 data.getGender(),
                 data.getBirthday(),
                 data.getWebsite(),
-                data.getLocation()
+                data.getLocation(),
+                contentUserStats == null ? null : contentUserStats.publicCounts()
         );
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.controller.usergroup;
+
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import tech.lamprism.lampray.user.UserProvider;
+import tech.lamprism.lampray.web.common.ParamValidate;
+import tech.lamprism.lampray.web.controller.AdminApi;
+import tech.lamprism.lampray.web.controller.usergroup.model.UserGroupCreateRequest;
+import tech.lamprism.lampray.web.controller.usergroup.model.UserGroupVo;
+import tech.lamprism.lampray.web.domain.usergroup.UserGroup;
+import tech.lamprism.lampray.web.domain.usergroup.UserGroupMemberProvider;
+import tech.lamprism.lampray.web.domain.usergroup.UserGroupService;
+import tech.rollw.common.web.HttpResponseEntity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author RollW
+ */
+@AdminApi
+public class UserGroupManageController {
+    private final UserGroupService userGroupService;
+    private final UserGroupMemberProvider userGroupMemberProvider;
+    private final UserProvider userProvider;
+
+    public UserGroupManageController(UserGroupService userGroupService,
+                                     UserGroupMemberProvider userGroupMemberProvider,
+                                     UserProvider userProvider) {
+        this.userGroupService = userGroupService;
+        this.userGroupMemberProvider = userGroupMemberProvider;
+        this.userProvider = userProvider;
+    }
+
+    @PostMapping("/groups")
+    public HttpResponseEntity<UserGroupVo> createGroup(
+            @RequestBody UserGroupCreateRequest request) {
+        ParamValidate.notEmpty(request.name(), "name cannot be null or empty.");
+        UserGroup group = userGroupService.createGroup(
+                request.name(), request.description());
+        return HttpResponseEntity.success(UserGroupVo.of(group));
+    }
+
+    @GetMapping("/groups/{groupId}")
+    public HttpResponseEntity<UserGroupVo> getGroup(
+            @PathVariable("groupId") Long groupId) {
+        return HttpResponseEntity.success(
+                UserGroupVo.of(userGroupService.getGroup(groupId)));
+    }
+
+    @GetMapping("/groups/{groupId}/members")
+    public HttpResponseEntity<List<Long>> getMembers(
+            @PathVariable("groupId") Long groupId) {
+        userGroupService.getGroup(groupId);
+        long[] memberIds = userGroupMemberProvider.getMemberIds(groupId);
+        return HttpResponseEntity.success(
+                Arrays.stream(memberIds).boxed().toList());
+    }
+
+    @PutMapping("/groups/{groupId}/members/{userId}")
+    public HttpResponseEntity<Void> addMember(
+            @PathVariable("groupId") Long groupId,
+            @PathVariable("userId") Long userId) {
+        // throws if the user does not exist
+        userProvider.getUser(userId);
+        userGroupMemberProvider.addMember(groupId, userId);
+        return HttpResponseEntity.success();
+    }
+
+    @DeleteMapping("/groups/{groupId}/members/{userId}")
+    public HttpResponseEntity<Void> removeMember(
+            @PathVariable("groupId") Long groupId,
+            @PathVariable("userId") Long userId) {
+        userGroupMemberProvider.removeMember(groupId, userId);
+        return HttpResponseEntity.success();
+    }
+}
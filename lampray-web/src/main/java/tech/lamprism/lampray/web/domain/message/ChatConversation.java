@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message;
+
+import com.google.common.base.Preconditions;
+import space.lingu.NonNull;
+
+/**
+ * Conversation of messages.
+ * <p>
+ * A conversation between two users is identified by the smaller
+ * and the larger user id, so both sides share the same one. A group
+ * conversation is identified by the group id alone.
+ *
+ * @author RollW
+ */
+public record ChatConversation(
+        @NonNull ChatType chatType,
+        long lowId,
+        long highId
+) {
+    public ChatConversation {
+        Preconditions.checkNotNull(chatType, "chatType cannot be null");
+    }
+
+    public static ChatConversation of(@NonNull TransferredMessage message) {
+        if (message.getChatType() == ChatType.GROUP) {
+            return ofGroup(message.getReceiverId());
+        }
+        return ofUsers(message.getChatType(),
+                message.getSenderId(), message.getReceiverId());
+    }
+
+    public static ChatConversation of(long userId, @NonNull ChatPartner chatPartner) {
+        if (chatPartner.type() == ChatType.GROUP) {
+            return ofGroup(chatPartner.id());
+        }
+        return ofUsers(chatPartner.type(), userId, chatPartner.id());
+    }
+
+    public static ChatConversation ofGroup(long groupId) {
+        return new ChatConversation(ChatType.GROUP, groupId, groupId);
+    }
+
+    private static ChatConversation ofUsers(ChatType chatType,
+                                            long userId, long otherId) {
+        return new ChatConversation(chatType,
+                Math.min(userId, otherId), Math.max(userId, otherId));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message;
+
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.domain.message.event.OnChatMessageDeliverEvent;
+
+/**
+ * Routes messages to the nodes holding the connections of their
+ * receivers. On each node the message arrives as an
+ * {@link OnChatMessageDeliverEvent} with the receivers connected
+ * to that node.
+ *
+ * @author RollW
+ */
+public interface ChatDeliveryBus {
+    /**
+     * Deliver the message to the given receivers, wherever they
+     * are connected. Receivers not connected to any node are skipped.
+     */
+    void deliver(@NonNull TransferredMessage message, @NonNull long[] receiverIds);
+
+    /**
+     * Called when the first connection of the user is registered
+     * on this node. Must be cheap, it is called while the
+     * registration of the user is in progress.
+     */
+    void online(long userId);
+
+    /**
+     * Called when the last connection of the user on this node
+     * is removed. Must be cheap, same as {@link #online(long)}.
+     */
+    void offline(long userId);
+}
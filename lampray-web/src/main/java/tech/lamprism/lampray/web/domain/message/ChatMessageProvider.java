@@ -26,7 +26,39 @@ import java.util.List;
 public interface ChatMessageProvider {
     // TODO: replace TransferredMessage with a new class
 
-    List<TransferredMessage> getMessages(Operator user);
+    /**
+     * Get the messages of the user sent before the given cursor,
+     * from the newest to the oldest. Includes the conversations with
+     * other users and the groups the user is a member of.
+     *
+     * @see #getMessages(Operator, ChatPartner, long, long, int)
+     */
+    List<TransferredMessage> getMessages(Operator user, long beforeTimestamp,
+                                         long beforeId, int limit);
 
     List<TransferredMessage> getMessages(Operator user, ChatPartner chatPartner);
+
+    int DEFAULT_HISTORY_LIMIT = 20;
+    int MAX_HISTORY_LIMIT = 100;
+
+    /**
+     * Get the messages of the conversation with the chat partner sent
+     * before the given cursor, ordered from the newest to the oldest.
+     * <p>
+     * Messages are ordered by {@code (timestamp, messageId)}, pass the
+     * timestamp and the message id of the oldest returned message to
+     * load the next page.
+     *
+     * @param beforeTimestamp timestamp of the cursor, 0 or negative
+     *                        for the latest messages
+     * @param beforeId        message id of the cursor, messages sent
+     *                        at the cursor timestamp with a smaller id
+     *                        are included. 0 to exclude all messages
+     *                        of the cursor timestamp
+     * @param limit           max count of messages, coerced into
+     *                        {@code [1, MAX_HISTORY_LIMIT]}
+     */
+    List<TransferredMessage> getMessages(Operator user, ChatPartner chatPartner,
+                                         long beforeTimestamp, long beforeId,
+                                         int limit);
 }
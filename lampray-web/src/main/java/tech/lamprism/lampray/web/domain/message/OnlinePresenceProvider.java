@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message;
+
+import space.lingu.NonNull;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author RollW
+ */
+public interface OnlinePresenceProvider {
+    boolean isOnline(long userId);
+
+    /**
+     * Get the number of online users.
+     */
+    int getOnlineCount();
+
+    /**
+     * Get the number of open connections of the user.
+     */
+    int getConnectionCount(long userId);
+
+    /**
+     * Get the users that are online among the given users.
+     */
+    @NonNull
+    List<Long> filterOnline(@NonNull Collection<Long> userIds);
+}
@@ -27,8 +27,20 @@ public record SimpleTransferredMessage(
         long receiverId,
         ChatType chatType,
         MessageContent content,
-        long timestamp
+        long timestamp,
+        long messageId
 ) implements TransferredMessage {
+    public SimpleTransferredMessage(
+            TransferredMessageType messageType,
+            long senderId,
+            long receiverId,
+            ChatType chatType,
+            MessageContent content,
+            long timestamp
+    ) {
+        this(messageType, senderId, receiverId, chatType, content, timestamp, 0);
+    }
+
     public SimpleTransferredMessage(
             long senderId,
             long receiverId,
@@ -73,7 +85,8 @@ public record SimpleTransferredMessage(
                 receiverId,
                 chatType,
                 content,
-                time
+                time,
+                messageId
         );
     }
 
@@ -87,7 +100,8 @@ public record SimpleTransferredMessage(
                 receiverId,
                 chatType,
                 messageContent,
-                time
+                time,
+                messageId
         );
     }
 
@@ -121,6 +135,11 @@ public record SimpleTransferredMessage(
         return timestamp;
     }
 
+    @Override
+    public long getMessageId() {
+        return messageId;
+    }
+
     @Override
     public TransferredMessage fork() {
         return new SimpleTransferredMessage(
@@ -129,7 +148,8 @@ public record SimpleTransferredMessage(
                 receiverId,
                 chatType,
                 content,
-                timestamp
+                timestamp,
+                messageId
         );
     }
 }
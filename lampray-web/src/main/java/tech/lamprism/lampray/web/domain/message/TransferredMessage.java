@@ -32,6 +32,12 @@ public interface TransferredMessage {
 
     long getTimestamp();
 
+    /**
+     * Get the id of the recorded message, used together with the
+     * timestamp as the cursor of history. 0 if not recorded.
+     */
+    long getMessageId();
+
     TransferredMessage fork();
 
     TransferredMessage fork(long time);
@@ -41,6 +41,26 @@ public enum TransferredMessageType {
      * Could be used to control the client.
      */
     CONTROL,
+
+    /**
+     * History message.
+     * <p>
+     * Sent by the client to load older messages of a conversation,
+     * with the chat type and receiver id of the chat partner and the
+     * timestamp as the cursor (0 for the latest messages). Older
+     * messages are sent back to the client with this type.
+     */
+    HISTORY,
+
+    /**
+     * Presence message.
+     * <p>
+     * Sent by the client to subscribe to the presence of users, with
+     * the comma separated user ids as the content. The server replies
+     * with the users currently online, then sends the changes in
+     * batches, as {@code {"online":[...],"offline":[...]}}.
+     */
+    PRESENCE,
     ;
 
     public boolean isNormal() {
@@ -58,4 +78,12 @@ public enum TransferredMessageType {
     public boolean isHeartbeat() {
         return this == HEARTBEAT;
     }
+
+    public boolean isHistory() {
+        return this == HISTORY;
+    }
+
+    public boolean isPresence() {
+        return this == PRESENCE;
+    }
 }
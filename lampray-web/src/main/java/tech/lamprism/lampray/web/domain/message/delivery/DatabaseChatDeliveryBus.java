@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.delivery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import space.lingu.NonNull;
+import space.lingu.Nullable;
+import tech.lamprism.lampray.web.domain.message.ChatDeliveryBus;
+import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+import tech.lamprism.lampray.web.domain.message.event.OnChatMessageDeliverEvent;
+import tech.lamprism.lampray.web.domain.message.repository.ChatDeliveryDo;
+import tech.lamprism.lampray.web.domain.message.repository.ChatDeliveryRepository;
+import tech.lamprism.lampray.web.domain.message.repository.ChatPresenceDo;
+import tech.lamprism.lampray.web.domain.message.repository.ChatPresenceRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivery bus for multiple nodes sharing the same database.
+ * <p>
+ * Each node writes the users connected to it into the
+ * {@code chat_presence} table, and messages for users on other
+ * nodes are written into the {@code chat_delivery} table, one row
+ * per target node, which the target node polls.
+ * <p>
+ * Presence is kept in memory and flushed in batches on each poll,
+ * so registering a connection never waits for the database.
+ * Presence rows of nodes that stop refreshing them are removed
+ * after {@link #STALE_TIMEOUT}.
+ * <p>
+ * Presence of other nodes is also kept in memory, so delivering a
+ * message does not query the database. It is reloaded on each
+ * refresh, and the users connected since are picked up on each
+ * poll. Users that left another node are dropped on the next
+ * refresh, until then messages for them are still written to
+ * that node, which has no connection to deliver them to.
+ *
+ * @author RollW
+ */
+public class DatabaseChatDeliveryBus implements ChatDeliveryBus, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseChatDeliveryBus.class);
+
+    private static final int POLL_BATCH_SIZE = 500;
+    private static final Duration STALE_TIMEOUT = Duration.ofMinutes(2);
+    /**
+     * Presence created by other nodes is polled with an overlap,
+     * tolerates clock skew between nodes and rows committed late.
+     */
+    private static final Duration PRESENCE_POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChatPresenceRepository chatPresenceRepository;
+    private final ChatDeliveryRepository chatDeliveryRepository;
+
+    private final Set<Long> onlineUsers = ConcurrentHashMap.newKeySet();
+    /**
+     * Users written to the presence table, only accessed by the poller.
+     */
+    private Set<Long> flushedUsers = Set.of();
+    /**
+     * Nodes of the users connected to other nodes.
+     */
+    private volatile Map<Long, Set<String>> remotePresence = new ConcurrentHashMap<>();
+    /**
+     * Time of the last presence poll, null before the first load.
+     */
+    @Nullable
+    private volatile OffsetDateTime lastPresenceTime;
+
+    public DatabaseChatDeliveryBus(ApplicationEventPublisher eventPublisher,
+                                   ChatPresenceRepository chatPresenceRepository,
+                                   ChatDeliveryRepository chatDeliveryRepository) {
+        this.eventPublisher = eventPublisher;
+        this.chatPresenceRepository = chatPresenceRepository;
+        this.chatDeliveryRepository = chatDeliveryRepository;
+    }
+
+    @NonNull
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void deliver(@NonNull TransferredMessage message, @NonNull long[] receiverIds) {
+        if (receiverIds.length == 0) {
+            return;
+        }
+        List<Long> localReceivers = new ArrayList<>();
+        Map<String, List<Long>> receiversByNode = new HashMap<>();
+        Map<Long, Set<String>> presence = remotePresence;
+        for (long receiverId : receiverIds) {
+            if (onlineUsers.contains(receiverId)) {
+                localReceivers.add(receiverId);
+            }
+            Set<String> nodes = presence.get(receiverId);
+            if (nodes == null) {
+                continue;
+            }
+            for (String node : nodes) {
+                receiversByNode.computeIfAbsent(node,
+                        key -> new ArrayList<>()
+                ).add(receiverId);
+            }
+        }
+        if (!localReceivers.isEmpty()) {
+            eventPublisher.publishEvent(new OnChatMessageDeliverEvent(
+                    message, toArray(localReceivers)));
+        }
+        if (receiversByNode.isEmpty()) {
+            return;
+        }
+        List<ChatDeliveryDo> deliveries = new ArrayList<>(receiversByNode.size());
+        receiversByNode.forEach((node, nodeReceivers) -> deliveries.add(
+                ChatDeliveryDo.toDeliveryDo(message, node, toArray(nodeReceivers))
+        ));
+        chatDeliveryRepository.saveAll(deliveries);
+    }
+
+    @Override
+    public void online(long userId) {
+        onlineUsers.add(userId);
+    }
+
+    @Override
+    public void offline(long userId) {
+        onlineUsers.remove(userId);
+    }
+
+    @Scheduled(fixedDelay = 500, initialDelay = 500)
+    public void poll() {
+        try {
+            flushPresence();
+            pollPresence();
+            receive();
+        } catch (RuntimeException e) {
+            logger.error("Failed to poll chat deliveries of node {}.", nodeId, e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 30_000, initialDelay = 30_000)
+    public void refresh() {
+        OffsetDateTime now = OffsetDateTime.now();
+        try {
+            chatPresenceRepository.touchNode(nodeId, now);
+            OffsetDateTime staleTime = now.minus(STALE_TIMEOUT);
+            chatPresenceRepository.deleteBefore(staleTime);
+            chatDeliveryRepository.deleteBefore(staleTime);
+            reloadPresence();
+        } catch (RuntimeException e) {
+            logger.error("Failed to refresh chat presence of node {}.", nodeId, e);
+        }
+    }
+
+    private void flushPresence() {
+        Set<Long> current = Set.copyOf(onlineUsers);
+        if (current.equals(flushedUsers)) {
+            return;
+        }
+        Set<Long> removed = new HashSet<>(flushedUsers);
+        removed.removeAll(current);
+        if (!removed.isEmpty()) {
+            chatPresenceRepository.deleteByNodeAndUsers(nodeId, removed);
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        List<ChatPresenceDo> added = new ArrayList<>();
+        for (Long userId : current) {
+            if (!flushedUsers.contains(userId)) {
+                added.add(new ChatPresenceDo(null, userId, nodeId, now, now));
+            }
+        }
+        if (!added.isEmpty()) {
+            chatPresenceRepository.saveAll(added);
+        }
+        flushedUsers = current;
+    }
+
+    private void pollPresence() {
+        OffsetDateTime since = lastPresenceTime;
+        if (since == null) {
+            reloadPresence();
+            return;
+        }
+        OffsetDateTime pollTime = OffsetDateTime.now();
+        Map<Long, Set<String>> presence = remotePresence;
+        for (ChatPresenceDo presenceDo : chatPresenceRepository.findCreatedSinceExcludeNode(
+                since.minus(PRESENCE_POLL_OVERLAP), nodeId)) {
+            addPresence(presence, presenceDo);
+        }
+        lastPresenceTime = pollTime;
+    }
+
+    private void reloadPresence() {
+        OffsetDateTime loadTime = OffsetDateTime.now();
+        Map<Long, Set<String>> presence = new ConcurrentHashMap<>();
+        for (ChatPresenceDo presenceDo : chatPresenceRepository.findExcludeNode(nodeId)) {
+            addPresence(presence, presenceDo);
+        }
+        // users connected while reloading are picked up again
+        // by the next poll within the overlap.
+        remotePresence = presence;
+        lastPresenceTime = loadTime;
+    }
+
+    private static void addPresence(Map<Long, Set<String>> presence,
+                                    ChatPresenceDo presenceDo) {
+        presence.computeIfAbsent(presenceDo.getUserId(),
+                userId -> ConcurrentHashMap.newKeySet()
+        ).add(presenceDo.getNodeId());
+    }
+
+    private void receive() {
+        List<ChatDeliveryDo> deliveries;
+        do {
+            deliveries = chatDeliveryRepository.findByNodeId(nodeId, POLL_BATCH_SIZE);
+            if (deliveries.isEmpty()) {
+                return;
+            }
+            for (ChatDeliveryDo delivery : deliveries) {
+                eventPublisher.publishEvent(new OnChatMessageDeliverEvent(
+                        delivery.lock(), delivery.getReceiverIdArray()));
+            }
+            chatDeliveryRepository.deleteAllInBatch(deliveries);
+        } while (deliveries.size() == POLL_BATCH_SIZE);
+    }
+
+    @Override
+    public void destroy() {
+        chatPresenceRepository.deleteByNode(nodeId);
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        long[] array = new long[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+}
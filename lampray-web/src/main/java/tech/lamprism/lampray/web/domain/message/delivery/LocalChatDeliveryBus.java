@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.delivery;
+
+import org.springframework.context.ApplicationEventPublisher;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.domain.message.ChatDeliveryBus;
+import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+import tech.lamprism.lampray.web.domain.message.event.OnChatMessageDeliverEvent;
+
+/**
+ * Delivery bus for a single node, all receivers are local.
+ *
+ * @author RollW
+ */
+public class LocalChatDeliveryBus implements ChatDeliveryBus {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LocalChatDeliveryBus(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void deliver(@NonNull TransferredMessage message, @NonNull long[] receiverIds) {
+        if (receiverIds.length == 0) {
+            return;
+        }
+        eventPublisher.publishEvent(new OnChatMessageDeliverEvent(message, receiverIds));
+    }
+
+    @Override
+    public void online(long userId) {
+    }
+
+    @Override
+    public void offline(long userId) {
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.event;
+
+import org.springframework.context.ApplicationEvent;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+
+/**
+ * Published on the node holding the connections of the receivers
+ * when a message arrives from the {@code ChatDeliveryBus}.
+ *
+ * @author RollW
+ */
+public class OnChatMessageDeliverEvent extends ApplicationEvent {
+    private final TransferredMessage message;
+    private final long[] receiverIds;
+
+    public OnChatMessageDeliverEvent(@NonNull TransferredMessage message,
+                                     @NonNull long[] receiverIds) {
+        super(message);
+        this.message = message;
+        this.receiverIds = receiverIds;
+    }
+
+    @NonNull
+    public TransferredMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Get the receivers connected to this node.
+     */
+    @NonNull
+    public long[] getReceiverIds() {
+        return receiverIds;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.repository
+
+import org.springframework.data.domain.Pageable
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+import java.time.OffsetDateTime
+
+/**
+ * @author RollW
+ */
+@Dao
+interface ChatDeliveryDao : CommonDao<ChatDeliveryDo, Long> {
+    @Query("FROM ChatDeliveryDo d WHERE d.nodeId = :nodeId ORDER BY d.id")
+    fun findByNodeId(
+        @Param("nodeId") nodeId: String,
+        pageable: Pageable
+    ): List<ChatDeliveryDo>
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChatDeliveryDo d WHERE d.createTime < :time")
+    fun deleteBefore(@Param("time") time: OffsetDateTime): Int
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.repository
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.EnumType
+import jakarta.persistence.Enumerated
+import jakarta.persistence.GeneratedValue
+import jakarta.persistence.GenerationType
+import jakarta.persistence.Id
+import jakarta.persistence.Index
+import jakarta.persistence.Lob
+import jakarta.persistence.Table
+import jakarta.persistence.Temporal
+import jakarta.persistence.TemporalType
+import org.hibernate.annotations.JdbcTypeCode
+import org.hibernate.type.SqlTypes
+import tech.lamprism.lampray.DataEntity
+import tech.lamprism.lampray.web.domain.message.ChatType
+import tech.lamprism.lampray.web.domain.message.MessageContent
+import tech.lamprism.lampray.web.domain.message.SimpleTransferredMessage
+import tech.lamprism.lampray.web.domain.message.TransferredMessage
+import tech.lamprism.lampray.web.domain.message.TransferredMessageType
+import tech.lamprism.lampray.web.domain.systembased.LampSystemResourceKind
+import tech.rollw.common.web.system.SystemResourceKind
+import java.time.OffsetDateTime
+
+/**
+ * A message waiting to be picked up by another node, together
+ * with the receivers connected to that node.
+ *
+ * @author RollW
+ */
+@Entity
+@Table(
+    name = "chat_delivery", indexes = [
+        Index(columnList = "node_id, id", name = "index__node_id"),
+        Index(columnList = "create_time", name = "index__create_time")
+    ]
+)
+class ChatDeliveryDo(
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private var id: Long? = null,
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    var nodeId: String = "",
+
+    /**
+     * Comma separated ids of the receivers on the node.
+     */
+    @Lob
+    @Column(name = "receiver_ids", nullable = false, length = 100000)
+    var receiverIds: String = "",
+
+    @Column(name = "chat_type", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    var chatType: ChatType = ChatType.USER,
+
+    @Column(name = "message_type", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    var messageType: TransferredMessageType = TransferredMessageType.NORMAL,
+
+    @Column(name = "sender_id", nullable = false)
+    var senderId: Long = 0,
+
+    @Column(name = "receiver_id", nullable = false)
+    var receiverId: Long = 0,
+
+    @Lob
+    @Column(name = "content", length = 20000)
+    var content: String? = null,
+
+    @Column(name = "timestamp", nullable = false)
+    var timestamp: Long = 0,
+
+    /**
+     * Id of the recorded message, 0 if not recorded.
+     */
+    @Column(name = "message_id", nullable = false)
+    var messageId: Long = 0,
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "create_time", nullable = false)
+    private var createTime: OffsetDateTime = OffsetDateTime.now()
+) : DataEntity<Long> {
+    override fun getId(): Long? = id
+
+    fun setId(id: Long?) {
+        this.id = id
+    }
+
+    override fun getCreateTime(): OffsetDateTime = createTime
+
+    override fun getUpdateTime(): OffsetDateTime = createTime
+
+    override fun getSystemResourceKind(): SystemResourceKind =
+        LampSystemResourceKind.CHAT_DELIVERY
+
+    fun getReceiverIdArray(): LongArray {
+        if (receiverIds.isEmpty()) {
+            return LongArray(0)
+        }
+        return receiverIds.split(',').map { it.toLong() }.toLongArray()
+    }
+
+    fun lock(): TransferredMessage {
+        return SimpleTransferredMessage(
+            messageType,
+            senderId,
+            receiverId,
+            chatType,
+            content?.let { MessageContent.of(it) },
+            timestamp,
+            messageId
+        )
+    }
+
+    companion object {
+        @JvmStatic
+        fun TransferredMessage.toDeliveryDo(
+            nodeId: String,
+            receiverIds: LongArray
+        ): ChatDeliveryDo = ChatDeliveryDo(
+            nodeId = nodeId,
+            receiverIds = receiverIds.joinToString(","),
+            chatType = chatType,
+            messageType = messageType,
+            senderId = senderId,
+            receiverId = receiverId,
+            content = content?.content,
+            timestamp = timestamp,
+            messageId = messageId
+        )
+    }
+}
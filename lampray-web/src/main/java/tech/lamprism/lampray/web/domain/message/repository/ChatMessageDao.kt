@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.repository
+
+import org.springframework.data.domain.Pageable
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+import tech.lamprism.lampray.web.domain.message.ChatType
+
+/**
+ * @author RollW
+ */
+@Dao
+interface ChatMessageDao : CommonDao<ChatMessageDo, Long> {
+    @Query(
+        "FROM ChatMessageDo m " +
+                "WHERE m.chatType = :chatType " +
+                "AND m.conversationLow = :low AND m.conversationHigh = :high " +
+                "ORDER BY m.timestamp, m.id"
+    )
+    fun findByConversation(
+        @Param("chatType") chatType: ChatType,
+        @Param("low") low: Long,
+        @Param("high") high: Long
+    ): List<ChatMessageDo>
+
+    @Query(
+        "FROM ChatMessageDo m " +
+                "WHERE m.chatType = :chatType " +
+                "AND m.conversationLow = :low AND m.conversationHigh = :high " +
+                "AND (m.timestamp < :before OR (m.timestamp = :before AND m.id < :beforeId)) " +
+                "ORDER BY m.timestamp DESC, m.id DESC"
+    )
+    fun findByConversationBefore(
+        @Param("chatType") chatType: ChatType,
+        @Param("low") low: Long,
+        @Param("high") high: Long,
+        @Param("before") before: Long,
+        @Param("beforeId") beforeId: Long,
+        pageable: Pageable
+    ): List<ChatMessageDo>
+
+    @Query(
+        "FROM ChatMessageDo m " +
+                "WHERE m.chatType = :chatType AND m.conversationLow = :userId " +
+                "AND (m.timestamp < :before OR (m.timestamp = :before AND m.id < :beforeId)) " +
+                "ORDER BY m.timestamp DESC, m.id DESC"
+    )
+    fun findByLowBefore(
+        @Param("chatType") chatType: ChatType,
+        @Param("userId") userId: Long,
+        @Param("before") before: Long,
+        @Param("beforeId") beforeId: Long,
+        pageable: Pageable
+    ): List<ChatMessageDo>
+
+    @Query(
+        "FROM ChatMessageDo m " +
+                "WHERE m.chatType = :chatType AND m.conversationHigh = :userId " +
+                "AND (m.timestamp < :before OR (m.timestamp = :before AND m.id < :beforeId)) " +
+                "ORDER BY m.timestamp DESC, m.id DESC"
+    )
+    fun findByHighBefore(
+        @Param("chatType") chatType: ChatType,
+        @Param("userId") userId: Long,
+        @Param("before") before: Long,
+        @Param("beforeId") beforeId: Long,
+        pageable: Pageable
+    ): List<ChatMessageDo>
+
+    @Query(
+        "FROM ChatMessageDo m " +
+                "WHERE m.chatType = tech.lamprism.lampray.web.domain.message.ChatType.GROUP " +
+                "AND m.conversationLow IN :groupIds " +
+                "AND (m.timestamp < :before OR (m.timestamp = :before AND m.id < :beforeId)) " +
+                "ORDER BY m.timestamp DESC, m.id DESC"
+    )
+    fun findByGroupsBefore(
+        @Param("groupIds") groupIds: Collection<Long>,
+        @Param("before") before: Long,
+        @Param("beforeId") beforeId: Long,
+        pageable: Pageable
+    ): List<ChatMessageDo>
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChatMessageDo m WHERE m.timestamp < :timestamp")
+    fun deleteBefore(@Param("timestamp") timestamp: Long): Int
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.repository
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.EnumType
+import jakarta.persistence.Enumerated
+import jakarta.persistence.GeneratedValue
+import jakarta.persistence.GenerationType
+import jakarta.persistence.Id
+import jakarta.persistence.Index
+import jakarta.persistence.Lob
+import jakarta.persistence.Table
+import org.hibernate.annotations.JdbcTypeCode
+import org.hibernate.type.SqlTypes
+import tech.lamprism.lampray.DataEntity
+import tech.lamprism.lampray.web.domain.message.ChatConversation
+import tech.lamprism.lampray.web.domain.message.ChatType
+import tech.lamprism.lampray.web.domain.message.MessageContent
+import tech.lamprism.lampray.web.domain.message.SimpleTransferredMessage
+import tech.lamprism.lampray.web.domain.message.TransferredMessage
+import tech.lamprism.lampray.web.domain.message.TransferredMessageType
+import tech.lamprism.lampray.web.domain.systembased.LampSystemResourceKind
+import tech.rollw.common.web.system.SystemResourceKind
+import java.time.Instant
+import java.time.OffsetDateTime
+import java.time.ZoneOffset
+
+/**
+ * Recorded chat message.
+ *
+ * Messages are located by their conversation, see [ChatConversation].
+ *
+ * @author RollW
+ */
+@Entity
+@Table(
+    name = "chat_message", indexes = [
+        Index(
+            columnList = "chat_type, conversation_low, conversation_high, timestamp, id",
+            name = "index__conversation_timestamp"
+        ),
+        Index(
+            columnList = "chat_type, conversation_low, timestamp, id",
+            name = "index__conversation_low_timestamp"
+        ),
+        Index(
+            columnList = "chat_type, conversation_high, timestamp, id",
+            name = "index__conversation_high_timestamp"
+        ),
+        Index(columnList = "timestamp", name = "index__timestamp")
+    ]
+)
+class ChatMessageDo(
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private var id: Long? = null,
+
+    @Column(name = "chat_type", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    var chatType: ChatType = ChatType.USER,
+
+    @Column(name = "conversation_low", nullable = false)
+    var conversationLow: Long = 0,
+
+    @Column(name = "conversation_high", nullable = false)
+    var conversationHigh: Long = 0,
+
+    @Column(name = "message_type", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    var messageType: TransferredMessageType = TransferredMessageType.NORMAL,
+
+    @Column(name = "sender_id", nullable = false)
+    var senderId: Long = 0,
+
+    @Column(name = "receiver_id", nullable = false)
+    var receiverId: Long = 0,
+
+    @Lob
+    @Column(name = "content", length = 20000)
+    var content: String? = null,
+
+    @Column(name = "timestamp", nullable = false)
+    var timestamp: Long = 0
+) : DataEntity<Long> {
+    override fun getId(): Long? = id
+
+    fun setId(id: Long?) {
+        this.id = id
+    }
+
+    override fun getCreateTime(): OffsetDateTime =
+        Instant.ofEpochMilli(timestamp).atOffset(ZoneOffset.UTC)
+
+    override fun getUpdateTime(): OffsetDateTime = getCreateTime()
+
+    override fun getSystemResourceKind(): SystemResourceKind =
+        LampSystemResourceKind.CHAT_MESSAGE
+
+    fun lock(): TransferredMessage {
+        return SimpleTransferredMessage(
+            messageType,
+            senderId,
+            receiverId,
+            chatType,
+            content?.let { MessageContent.of(it) },
+            timestamp,
+            id ?: 0
+        )
+    }
+
+    companion object {
+        @JvmStatic
+        fun TransferredMessage.toDo(): ChatMessageDo {
+            val conversation = ChatConversation.of(this)
+            return ChatMessageDo(
+                chatType = chatType,
+                conversationLow = conversation.lowId,
+                conversationHigh = conversation.highId,
+                messageType = messageType,
+                senderId = senderId,
+                receiverId = receiverId,
+                content = content?.content,
+                timestamp = timestamp
+            )
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.repository
+
+import org.springframework.data.domain.PageRequest
+import org.springframework.stereotype.Repository
+import tech.lamprism.lampray.common.data.CommonRepository
+import tech.lamprism.lampray.web.domain.message.ChatConversation
+import tech.lamprism.lampray.web.domain.message.ChatType
+
+/**
+ * @author RollW
+ */
+@Repository
+class ChatMessageRepository(
+    private val chatMessageDao: ChatMessageDao
+) : CommonRepository<ChatMessageDo, Long>(chatMessageDao) {
+    fun findByConversation(conversation: ChatConversation): List<ChatMessageDo> =
+        chatMessageDao.findByConversation(
+            conversation.chatType,
+            conversation.lowId,
+            conversation.highId
+        )
+
+    /**
+     * Find messages of the conversation before the (timestamp, id)
+     * cursor, from the newest to the oldest.
+     */
+    fun findByConversationBefore(
+        conversation: ChatConversation,
+        before: Long,
+        beforeId: Long,
+        limit: Int
+    ): List<ChatMessageDo> = chatMessageDao.findByConversationBefore(
+        conversation.chatType,
+        conversation.lowId,
+        conversation.highId,
+        before,
+        beforeId,
+        PageRequest.of(0, limit)
+    )
+
+    /**
+     * Find messages of the user before the (timestamp, id) cursor, from the newest
+     * to the oldest, including the direct conversations of the user
+     * and the conversations of the given groups.
+     *
+     * Each side is read through its own conversation index with the
+     * limit, then merged.
+     */
+    fun findByUserBefore(
+        userId: Long,
+        groupIds: Collection<Long>,
+        before: Long,
+        beforeId: Long,
+        limit: Int
+    ): List<ChatMessageDo> {
+        val pageable = PageRequest.of(0, limit)
+        val messages = chatMessageDao.findByLowBefore(ChatType.USER, userId, before, beforeId, pageable) +
+                chatMessageDao.findByHighBefore(ChatType.USER, userId, before, beforeId, pageable) +
+                if (groupIds.isEmpty()) emptyList()
+                else chatMessageDao.findByGroupsBefore(groupIds, before, beforeId, pageable)
+        return messages
+            .distinctBy { it.id }
+            .sortedWith(compareByDescending<ChatMessageDo> { it.timestamp }.thenByDescending { it.id })
+            .take(limit)
+    }
+
+    fun deleteBefore(timestamp: Long): Int =
+        chatMessageDao.deleteBefore(timestamp)
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.repository
+
+import org.springframework.data.jpa.repository.Modifying
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import org.springframework.transaction.annotation.Transactional
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+import java.time.OffsetDateTime
+
+/**
+ * @author RollW
+ */
+@Dao
+interface ChatPresenceDao : CommonDao<ChatPresenceDo, Long> {
+    @Query("FROM ChatPresenceDo p WHERE p.nodeId <> :nodeId")
+    fun findExcludeNode(@Param("nodeId") nodeId: String): List<ChatPresenceDo>
+
+    @Query(
+        "FROM ChatPresenceDo p " +
+                "WHERE p.createTime >= :time AND p.nodeId <> :nodeId"
+    )
+    fun findCreatedSinceExcludeNode(
+        @Param("time") time: OffsetDateTime,
+        @Param("nodeId") nodeId: String
+    ): List<ChatPresenceDo>
+
+    @Modifying
+    @Transactional
+    @Query(
+        "DELETE FROM ChatPresenceDo p " +
+                "WHERE p.nodeId = :nodeId AND p.userId IN :userIds"
+    )
+    fun deleteByNodeAndUsers(
+        @Param("nodeId") nodeId: String,
+        @Param("userIds") userIds: Collection<Long>
+    ): Int
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChatPresenceDo p WHERE p.nodeId = :nodeId")
+    fun deleteByNode(@Param("nodeId") nodeId: String): Int
+
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE ChatPresenceDo p SET p.updateTime = :time " +
+                "WHERE p.nodeId = :nodeId"
+    )
+    fun touchNode(
+        @Param("nodeId") nodeId: String,
+        @Param("time") time: OffsetDateTime
+    ): Int
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChatPresenceDo p WHERE p.updateTime < :time")
+    fun deleteBefore(@Param("time") time: OffsetDateTime): Int
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.repository
+
+import jakarta.persistence.Column
+import jakarta.persistence.Entity
+import jakarta.persistence.GeneratedValue
+import jakarta.persistence.GenerationType
+import jakarta.persistence.Id
+import jakarta.persistence.Index
+import jakarta.persistence.Table
+import jakarta.persistence.Temporal
+import jakarta.persistence.TemporalType
+import jakarta.persistence.UniqueConstraint
+import tech.lamprism.lampray.DataEntity
+import tech.lamprism.lampray.web.domain.systembased.LampSystemResourceKind
+import tech.rollw.common.web.system.SystemResourceKind
+import java.time.OffsetDateTime
+
+/**
+ * A user connected to a node, the node receives the messages
+ * of the user.
+ *
+ * @author RollW
+ */
+@Entity
+@Table(
+    name = "chat_presence",
+    uniqueConstraints = [
+        UniqueConstraint(
+            columnNames = ["user_id", "node_id"],
+            name = "index__user_node"
+        )
+    ],
+    indexes = [
+        Index(columnList = "node_id", name = "index__node_id"),
+        Index(columnList = "update_time", name = "index__update_time"),
+        Index(columnList = "create_time", name = "index__create_time")
+    ]
+)
+class ChatPresenceDo(
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private var id: Long? = null,
+
+    @Column(name = "user_id", nullable = false)
+    var userId: Long = 0,
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    var nodeId: String = "",
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "create_time", nullable = false)
+    private var createTime: OffsetDateTime = OffsetDateTime.now(),
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "update_time", nullable = false)
+    private var updateTime: OffsetDateTime = OffsetDateTime.now()
+) : DataEntity<Long> {
+    override fun getId(): Long? = id
+
+    fun setId(id: Long?) {
+        this.id = id
+    }
+
+    override fun getCreateTime(): OffsetDateTime = createTime
+
+    override fun getUpdateTime(): OffsetDateTime = updateTime
+
+    fun setUpdateTime(updateTime: OffsetDateTime) {
+        this.updateTime = updateTime
+    }
+
+    override fun getSystemResourceKind(): SystemResourceKind =
+        LampSystemResourceKind.CHAT_PRESENCE
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.repository
+
+import org.springframework.stereotype.Repository
+import tech.lamprism.lampray.common.data.CommonRepository
+import java.time.OffsetDateTime
+
+/**
+ * @author RollW
+ */
+@Repository
+class ChatPresenceRepository(
+    private val chatPresenceDao: ChatPresenceDao
+) : CommonRepository<ChatPresenceDo, Long>(chatPresenceDao) {
+    /**
+     * Find where the users are connected, except the given node.
+     */
+    fun findExcludeNode(nodeId: String): List<ChatPresenceDo> =
+        chatPresenceDao.findExcludeNode(nodeId)
+
+    /**
+     * Find the users connected since the given time, except
+     * to the given node.
+     */
+    fun findCreatedSinceExcludeNode(
+        time: OffsetDateTime,
+        nodeId: String
+    ): List<ChatPresenceDo> = chatPresenceDao.findCreatedSinceExcludeNode(time, nodeId)
+
+    fun deleteByNodeAndUsers(nodeId: String, userIds: Collection<Long>): Int =
+        chatPresenceDao.deleteByNodeAndUsers(nodeId, userIds)
+
+    fun deleteByNode(nodeId: String): Int =
+        chatPresenceDao.deleteByNode(nodeId)
+
+    fun touchNode(nodeId: String, time: OffsetDateTime): Int =
+        chatPresenceDao.touchNode(nodeId, time)
+
+    fun deleteBefore(time: OffsetDateTime): Int =
+        chatPresenceDao.deleteBefore(time)
+}
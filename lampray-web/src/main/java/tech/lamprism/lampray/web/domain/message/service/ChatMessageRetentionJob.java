@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tech.lamprism.lampray.web.domain.message.repository.ChatMessageRepository;
+
+import java.time.Duration;
+
+/**
+ * Periodically deletes chat messages older than the retention.
+ *
+ * @author RollW
+ */
+@Component
+public class ChatMessageRetentionJob {
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessageRetentionJob.class);
+    private static final Duration RETENTION = Duration.ofDays(180);
+
+    private final ChatMessageRepository chatMessageRepository;
+
+    public ChatMessageRetentionJob(ChatMessageRepository chatMessageRepository) {
+        this.chatMessageRepository = chatMessageRepository;
+    }
+
+    @Scheduled(cron = "0 0 4 * * *")
+    public void deleteExpired() {
+        long before = System.currentTimeMillis() - RETENTION.toMillis();
+        int deleted = chatMessageRepository.deleteBefore(before);
+        logger.info("Deleted {} chat messages before {}.", deleted, before);
+    }
+}
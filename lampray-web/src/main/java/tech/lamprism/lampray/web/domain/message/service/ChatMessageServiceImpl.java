@@ -19,6 +19,7 @@ package tech.lamprism.lampray.web.domain.message.service;
 import org.springframework.stereotype.Service;
 import tech.lamprism.lampray.web.common.ApiContext;
 import tech.lamprism.lampray.user.UserIdentity;
+import tech.lamprism.lampray.web.domain.message.ChatConversation;
 import tech.lamprism.lampray.web.domain.message.ChatMessageProvider;
 import tech.lamprism.lampray.web.domain.message.ChatPartner;
 import tech.lamprism.lampray.web.domain.message.ChatService;
@@ -26,6 +27,9 @@ import tech.lamprism.lampray.web.domain.message.ChatType;
 import tech.lamprism.lampray.web.domain.message.ErrorMessageContent;
 import tech.lamprism.lampray.web.domain.message.TransferredMessage;
 import tech.lamprism.lampray.web.domain.message.TransferredMessageType;
+import tech.lamprism.lampray.web.domain.message.repository.ChatMessageDo;
+import tech.lamprism.lampray.web.domain.message.repository.ChatMessageRepository;
+import tech.lamprism.lampray.web.domain.usergroup.UserGroupMemberProvider;
 import tech.rollw.common.web.AuthErrorCode;
 import tech.rollw.common.web.ErrorCode;
 import tech.rollw.common.web.ErrorCodeMessageProvider;
@@ -33,7 +37,6 @@ import tech.rollw.common.web.system.ContextThread;
 import tech.rollw.common.web.system.ContextThreadAware;
 import tech.rollw.common.web.system.Operator;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
@@ -44,22 +47,26 @@ import java.util.Locale;
 public class ChatMessageServiceImpl implements ChatService, ChatMessageProvider {
     private final ContextThreadAware<ApiContext> apiContextThreadAware;
     private final ErrorCodeMessageProvider errorCodeMessageProvider;
-
-
-    // TODO: for test, replace with a real database
-    private final List<TransferredMessage> messages = new ArrayList<>();
+    private final ChatMessageRepository chatMessageRepository;
+    private final UserGroupMemberProvider userGroupMemberProvider;
 
     public ChatMessageServiceImpl(ContextThreadAware<ApiContext> apiContextThreadAware,
-                                  ErrorCodeMessageProvider errorCodeMessageProvider) {
+                                  ErrorCodeMessageProvider errorCodeMessageProvider,
+                                  ChatMessageRepository chatMessageRepository,
+                                  UserGroupMemberProvider userGroupMemberProvider) {
         this.apiContextThreadAware = apiContextThreadAware;
         this.errorCodeMessageProvider = errorCodeMessageProvider;
+        this.chatMessageRepository = chatMessageRepository;
+        this.userGroupMemberProvider = userGroupMemberProvider;
     }
 
     @Override
     public TransferredMessage sendMessage(TransferredMessage message) {
         TransferredMessage handledMessage = handleMessage(message);
         if (handledMessage.getMessageType().canRecord()) {
-            messages.add(handledMessage);
+            // returns the recorded message with its id
+            return chatMessageRepository.save(ChatMessageDo.toDo(handledMessage))
+                    .lock();
         }
         return handledMessage;
     }
@@ -132,8 +139,26 @@ public class ChatMessageServiceImpl implements ChatService, ChatMessageProvider
         ApiContext context = apiContextThreadAware.getContextThread()
                 .getContext();
         UserIdentity sender = context.getUser();
-        // TODO: check if the sender is a member of the group
-
+        if (message.getSenderId() != sender.getUserId()) {
+            return createErrorMessage(
+                    message,
+                    createErrorMessageContent(
+                            AuthErrorCode.ERROR_NOT_HAS_ROLE,
+                            "[Client] Message sender id not match.",
+                            context.getLocale()
+                    )
+            );
+        }
+        if (!userGroupMemberProvider.isMember(message.getReceiverId(), sender.getUserId())) {
+            return createErrorMessage(
+                    message,
+                    createErrorMessageContent(
+                            AuthErrorCode.ERROR_NOT_HAS_ROLE,
+                            "[Client] Not a member of the group.",
+                            context.getLocale()
+                    )
+            );
+        }
         return message.fork(System.currentTimeMillis());
     }
 
@@ -157,21 +182,53 @@ public class ChatMessageServiceImpl implements ChatService, ChatMessageProvider
     }
 
     @Override
-    public List<TransferredMessage> getMessages(Operator user) {
-        long userId = user.getOperatorId();
-        return messages.stream()
-                .filter(message -> message.getChatType() == ChatType.GROUP
-                        || message.getSenderId() == userId || message.getReceiverId() == userId)
+    public List<TransferredMessage> getMessages(Operator user, long beforeTimestamp,
+                                                long beforeId, int limit) {
+        long before = beforeTimestamp > 0 ? beforeTimestamp : Long.MAX_VALUE;
+        int boundedLimit = Math.min(Math.max(limit, 1), MAX_HISTORY_LIMIT);
+        List<Long> groupIds = userGroupMemberProvider.getGroupIds(user.getOperatorId());
+        return chatMessageRepository.findByUserBefore(
+                        user.getOperatorId(), groupIds, before, beforeId, boundedLimit)
+                .stream()
+                .map(ChatMessageDo::lock)
+                .toList();
+    }
+
+    @Override
+    public List<TransferredMessage> getMessages(Operator user, ChatPartner chatPartner,
+                                                long beforeTimestamp, long beforeId,
+                                                int limit) {
+        if (!canAccess(user, chatPartner)) {
+            return List.of();
+        }
+        ChatConversation conversation =
+                ChatConversation.of(user.getOperatorId(), chatPartner);
+        long before = beforeTimestamp > 0 ? beforeTimestamp : Long.MAX_VALUE;
+        int boundedLimit = Math.min(Math.max(limit, 1), MAX_HISTORY_LIMIT);
+        return chatMessageRepository.findByConversationBefore(
+                        conversation, before, beforeId, boundedLimit)
+                .stream()
+                .map(ChatMessageDo::lock)
                 .toList();
     }
 
     @Override
     public List<TransferredMessage> getMessages(Operator user, ChatPartner chatPartner) {
-        long userId = user.getOperatorId();
-        return messages.stream()
-                .filter(message -> message.getChatType() == chatPartner.type())
-                .filter(message -> message.getSenderId() == userId && message.getReceiverId() == chatPartner.id()
-                        || message.getSenderId() == chatPartner.id() && message.getReceiverId() == userId)
+        if (!canAccess(user, chatPartner)) {
+            return List.of();
+        }
+        ChatConversation conversation =
+                ChatConversation.of(user.getOperatorId(), chatPartner);
+        return chatMessageRepository.findByConversation(conversation)
+                .stream()
+                .map(ChatMessageDo::lock)
                 .toList();
     }
+
+    private boolean canAccess(Operator user, ChatPartner chatPartner) {
+        if (chatPartner.type() != ChatType.GROUP) {
+            return true;
+        }
+        return userGroupMemberProvider.isMember(chatPartner.id(), user.getOperatorId());
+    }
 }
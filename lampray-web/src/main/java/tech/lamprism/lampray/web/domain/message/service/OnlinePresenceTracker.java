@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.service;
+
+import org.springframework.stereotype.Service;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.domain.message.OnlinePresenceProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the users connected to this node and their number of
+ * connections, so presence queries never scan the connections.
+ * <p>
+ * Changes of presence are collected until {@link #drainChanges()}.
+ * A change that reverts a pending one cancels it, so a user that
+ * goes offline and reconnects between two drains produces no change.
+ *
+ * @author RollW
+ */
+@Service
+public class OnlinePresenceTracker implements OnlinePresenceProvider {
+    private final Map<Long, Integer> connectionCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger onlineCount = new AtomicInteger();
+    /**
+     * User id to whether the user is online, since the last drain.
+     */
+    private final Map<Long, Boolean> changes = new ConcurrentHashMap<>();
+
+    /**
+     * Update the number of connections of the user. Calls for the
+     * same user must not run concurrently.
+     */
+    public void update(long userId, int connections) {
+        Integer previous = connections > 0
+                ? connectionCounts.put(userId, connections)
+                : connectionCounts.remove(userId);
+        boolean wasOnline = previous != null;
+        boolean online = connections > 0;
+        if (wasOnline == online) {
+            return;
+        }
+        if (online) {
+            onlineCount.incrementAndGet();
+        } else {
+            onlineCount.decrementAndGet();
+        }
+        // presence flips on every change, a pending change is
+        // always the opposite, reverting it leaves nothing to report.
+        if (changes.remove(userId) == null) {
+            changes.put(userId, online);
+        }
+    }
+
+    /**
+     * Take the changes of presence since the last call.
+     */
+    @NonNull
+    public Map<Long, Boolean> drainChanges() {
+        if (changes.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Boolean> drained = new HashMap<>();
+        for (Long userId : changes.keySet()) {
+            Boolean online = changes.remove(userId);
+            if (online != null) {
+                drained.put(userId, online);
+            }
+        }
+        return drained;
+    }
+
+    @Override
+    public boolean isOnline(long userId) {
+        return connectionCounts.containsKey(userId);
+    }
+
+    @Override
+    public int getOnlineCount() {
+        return onlineCount.get();
+    }
+
+    @Override
+    public int getConnectionCount(long userId) {
+        return connectionCounts.getOrDefault(userId, 0);
+    }
+
+    @NonNull
+    @Override
+    public List<Long> filterOnline(@NonNull Collection<Long> userIds) {
+        List<Long> online = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (connectionCounts.containsKey(userId)) {
+                online.add(userId);
+            }
+        }
+        return online;
+    }
+}
@@ -55,7 +55,9 @@ public enum LampSystemResourceKind implements SystemResourceKind {
 
     CHAT_MESSAGE,
     CHAT_GROUP,
-    CHAT_GROUP_MEMBER;
+    CHAT_GROUP_MEMBER,
+    CHAT_PRESENCE,
+    CHAT_DELIVERY;
 
     private final List<String> aliases;
 
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.usergroup;
+
+import space.lingu.NonNull;
+
+import java.util.List;
+
+/**
+ * @author RollW
+ */
+public interface UserGroupMemberProvider {
+    /**
+     * Get ids of the members of the group, in ascending order.
+     * The returned array is shared and must not be modified.
+     */
+    @NonNull
+    long[] getMemberIds(long groupId);
+
+    boolean isMember(long groupId, long userId);
+
+    /**
+     * Get ids of the groups the user is a member of.
+     */
+    @NonNull
+    List<Long> getGroupIds(long userId);
+
+    void addMember(long groupId, long userId);
+
+    void removeMember(long groupId, long userId);
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.usergroup.repository
+
+import org.springframework.data.jpa.repository.Query
+import org.springframework.data.repository.query.Param
+import tech.lamprism.lampray.common.data.CommonDao
+import tech.lamprism.lampray.common.data.Dao
+import java.time.OffsetDateTime
+
+/**
+ * @author RollW
+ */
+@Dao
+interface UserGroupMemberDao : CommonDao<UserGroupMemberDo, Long> {
+    @Query(
+        "SELECT m.userId FROM UserGroupMemberDo m " +
+                "WHERE m.groupId = :groupId AND m.deleted = false"
+    )
+    fun findMemberIds(@Param("groupId") groupId: Long): List<Long>
+
+    @Query(
+        "FROM UserGroupMemberDo m " +
+                "WHERE m.groupId = :groupId AND m.userId = :userId"
+    )
+    fun findByGroupAndUser(
+        @Param("groupId") groupId: Long,
+        @Param("userId") userId: Long
+    ): UserGroupMemberDo?
+
+    @Query(
+        "FROM UserGroupMemberDo m " +
+                "WHERE m.userId = :userId AND m.deleted = false"
+    )
+    fun findByUserId(@Param("userId") userId: Long): List<UserGroupMemberDo>
+
+    @Query(
+        "SELECT DISTINCT m.groupId FROM UserGroupMemberDo m " +
+                "WHERE m.updateTime >= :time"
+    )
+    fun findGroupIdsUpdatedSince(@Param("time") time: OffsetDateTime): List<Long>
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.usergroup.repository
+
+import org.springframework.stereotype.Repository
+import tech.lamprism.lampray.common.data.CommonRepository
+import java.time.OffsetDateTime
+
+/**
+ * @author RollW
+ */
+@Repository
+class UserGroupMemberRepository(
+    private val userGroupMemberDao: UserGroupMemberDao
+) : CommonRepository<UserGroupMemberDo, Long>(userGroupMemberDao) {
+    fun findMemberIds(groupId: Long): List<Long> =
+        userGroupMemberDao.findMemberIds(groupId)
+
+    fun findByGroupAndUser(groupId: Long, userId: Long): UserGroupMemberDo? =
+        userGroupMemberDao.findByGroupAndUser(groupId, userId)
+
+    fun findByUserId(userId: Long): List<UserGroupMemberDo> =
+        userGroupMemberDao.findByUserId(userId)
+
+    fun findGroupIdsUpdatedSince(time: OffsetDateTime): List<Long> =
+        userGroupMemberDao.findGroupIdsUpdatedSince(time)
+}
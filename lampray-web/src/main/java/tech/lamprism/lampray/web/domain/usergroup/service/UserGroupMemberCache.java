@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.usergroup.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.stereotype.Component;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.web.domain.usergroup.repository.UserGroupMemberRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of group id to the ids of its members.
+ * <p>
+ * Members are kept as a sorted {@code long[]}, so membership checks
+ * are a binary search without boxing, and fan-out iterates a flat
+ * array.
+ * <p>
+ * Changes made on this node invalidate the group at once, changes
+ * made on other nodes are picked up by {@link #refreshChanged()}
+ * from the update time of the member rows.
+ *
+ * @author RollW
+ */
+@Component
+public class UserGroupMemberCache {
+    private static final long MAXIMUM_SIZE = 10_000;
+    private static final long EXPIRE_MINUTES = 5;
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+    private static final long[] EMPTY = new long[0];
+
+    private final UserGroupMemberRepository userGroupMemberRepository;
+    private final LoadingCache<Long, long[]> cache;
+    private volatile OffsetDateTime lastPollTime = OffsetDateTime.now();
+
+    public UserGroupMemberCache(UserGroupMemberRepository userGroupMemberRepository) {
+        this.userGroupMemberRepository = userGroupMemberRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .build(this::load);
+    }
+
+    @NonNull
+    public long[] getMemberIds(long groupId) {
+        return cache.get(groupId);
+    }
+
+    public boolean isMember(long groupId, long userId) {
+        return Arrays.binarySearch(getMemberIds(groupId), userId) >= 0;
+    }
+
+    public void invalidate(long groupId) {
+        cache.invalidate(groupId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Invalidate the groups whose members are changed since the
+     * last poll, including changes made on other nodes.
+     */
+    public void refreshChanged() {
+        OffsetDateTime pollTime = OffsetDateTime.now();
+        OffsetDateTime since = lastPollTime.minus(POLL_OVERLAP);
+        cache.invalidateAll(userGroupMemberRepository.findGroupIdsUpdatedSince(since));
+        lastPollTime = pollTime;
+    }
+
+    private long[] load(Long groupId) {
+        List<Long> memberIds = userGroupMemberRepository.findMemberIds(groupId);
+        if (memberIds.isEmpty()) {
+            return EMPTY;
+        }
+        long[] ids = new long[memberIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = memberIds.get(i);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.usergroup.service;
+
+import org.springframework.stereotype.Service;
+import space.lingu.NonNull;
+import tech.lamprism.lampray.LampException;
+import tech.lamprism.lampray.web.domain.usergroup.UserGroup;
+import tech.lamprism.lampray.web.domain.usergroup.UserGroupMemberProvider;
+import tech.lamprism.lampray.web.domain.usergroup.UserGroupService;
+import tech.lamprism.lampray.web.domain.usergroup.repository.UserGroupDo;
+import tech.lamprism.lampray.web.domain.usergroup.repository.UserGroupMemberDo;
+import tech.lamprism.lampray.web.domain.usergroup.repository.UserGroupMemberRepository;
+import tech.lamprism.lampray.web.domain.usergroup.repository.UserGroupRepository;
+import tech.rollw.common.web.DataErrorCode;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author RollW
+ */
+@Service
+public class UserGroupServiceImpl implements UserGroupService, UserGroupMemberProvider {
+    private final UserGroupRepository userGroupRepository;
+    private final UserGroupMemberRepository userGroupMemberRepository;
+    private final UserGroupMemberCache userGroupMemberCache;
+
+    public UserGroupServiceImpl(UserGroupRepository userGroupRepository,
+                                UserGroupMemberRepository userGroupMemberRepository,
+                                UserGroupMemberCache userGroupMemberCache) {
+        this.userGroupRepository = userGroupRepository;
+        this.userGroupMemberRepository = userGroupMemberRepository;
+        this.userGroupMemberCache = userGroupMemberCache;
+    }
+
+    @NonNull
+    @Override
+    public UserGroup createGroup(@NonNull String name, String description) {
+        OffsetDateTime now = OffsetDateTime.now();
+        UserGroupDo group = new UserGroupDo(null, name,
+                description == null ? "" : description, Map.of(),
+                now, now, false);
+        return userGroupRepository.save(group).lock();
+    }
+
+    @NonNull
+    @Override
+    public UserGroup getGroup(long groupId) {
+        return findGroup(groupId).lock();
+    }
+
+    private UserGroupDo findGroup(long groupId) {
+        UserGroupDo group = userGroupRepository.findById(groupId)
+                .orElseThrow(() -> new LampException(DataErrorCode.ERROR_DATA_NOT_EXIST));
+        if (group.getDeleted()) {
+            throw new LampException(DataErrorCode.ERROR_DATA_NOT_EXIST);
+        }
+        return group;
+    }
+
+    @NonNull
+    @Override
+    public long[] getMemberIds(long groupId) {
+        return userGroupMemberCache.getMemberIds(groupId);
+    }
+
+    @Override
+    public boolean isMember(long groupId, long userId) {
+        return userGroupMemberCache.isMember(groupId, userId);
+    }
+
+    @NonNull
+    @Override
+    public List<Long> getGroupIds(long userId) {
+        return userGroupMemberRepository.findByUserId(userId)
+                .stream()
+                .map(UserGroupMemberDo::getGroupId)
+                .toList();
+    }
+
+    @Override
+    public void addMember(long groupId, long userId) {
+        findGroup(groupId);
+        OffsetDateTime now = OffsetDateTime.now();
+        UserGroupMemberDo member =
+                userGroupMemberRepository.findByGroupAndUser(groupId, userId);
+        if (member == null) {
+            member = new UserGroupMemberDo(null, groupId, userId, now, now, false);
+        } else if (!member.getDeleted()) {
+            return;
+        } else {
+            member.setDeleted(false);
+            member.setUpdateTime(now);
+        }
+        userGroupMemberRepository.save(member);
+        userGroupMemberCache.invalidate(groupId);
+    }
+
+    @Override
+    public void removeMember(long groupId, long userId) {
+        UserGroupMemberDo member =
+                userGroupMemberRepository.findByGroupAndUser(groupId, userId);
+        if (member == null || member.getDeleted()) {
+            return;
+        }
+        member.setDeleted(true);
+        member.setUpdateTime(OffsetDateTime.now());
+        userGroupMemberRepository.save(member);
+        userGroupMemberCache.invalidate(groupId);
+    }
+}
@@ -31,7 +31,7 @@ public abstract class AbstractWebSocketMessageConnection<M>
     protected final Session session;
     protected final ApiContext apiContext;
 
-    protected final AtomicLong lastHeartbeatTime = new AtomicLong();
+    protected final AtomicLong lastHeartbeatTime = new AtomicLong(System.currentTimeMillis());
     protected final AtomicLong timeout = new AtomicLong(DEFAULT_TIMEOUT);
 
     public AbstractWebSocketMessageConnection(Session session) {
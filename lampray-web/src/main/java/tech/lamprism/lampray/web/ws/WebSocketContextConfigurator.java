@@ -36,6 +36,7 @@ import jakarta.websocket.HandshakeResponse;
 import jakarta.websocket.server.HandshakeRequest;
 import jakarta.websocket.server.ServerEndpointConfig;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -56,6 +57,21 @@ public class WebSocketContextConfigurator extends ServerEndpointConfig.Configura
                 apiContextThread.getContext());
     }
 
+    /**
+     * Pick the first subprotocol requested by the client that the
+     * endpoint supports, or none, in which case the endpoint falls
+     * back to its default frame format.
+     */
+    @Override
+    public String getNegotiatedSubprotocol(List<String> supported, List<String> requested) {
+        for (String subprotocol : requested) {
+            if (supported.contains(subprotocol)) {
+                return subprotocol;
+            }
+        }
+        return "";
+    }
+
     private static volatile WebApplicationContext webApplicationContext;
 
 
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.delivery;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import tech.lamprism.lampray.web.domain.message.ChatType;
+import tech.lamprism.lampray.web.domain.message.MessageContent;
+import tech.lamprism.lampray.web.domain.message.SimpleTransferredMessage;
+import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+import tech.lamprism.lampray.web.domain.message.event.OnChatMessageDeliverEvent;
+import tech.lamprism.lampray.web.domain.message.repository.ChatDeliveryDo;
+import tech.lamprism.lampray.web.domain.message.repository.ChatDeliveryRepository;
+import tech.lamprism.lampray.web.domain.message.repository.ChatPresenceDo;
+import tech.lamprism.lampray.web.domain.message.repository.ChatPresenceRepository;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bus instances sharing mocked repositories backed by in-memory
+ * rows, as nodes sharing the chat_presence and chat_delivery tables.
+ *
+ * @author RollW
+ */
+class DatabaseChatDeliveryBusTest {
+    private static final long LOCAL_USER = 1L;
+    private static final long REMOTE_USER = 2L;
+
+    private final List<ChatPresenceDo> presenceRows = new CopyOnWriteArrayList<>();
+    private final List<ChatDeliveryDo> deliveryRows = new CopyOnWriteArrayList<>();
+    private final TransferredMessage message = new SimpleTransferredMessage(
+            LOCAL_USER, REMOTE_USER, ChatType.USER, MessageContent.of("hello"));
+    private ChatPresenceRepository presenceRepository;
+    private ChatDeliveryRepository deliveryRepository;
+
+    @BeforeEach
+    void setUp() {
+        presenceRepository = mock(ChatPresenceRepository.class);
+        deliveryRepository = mock(ChatDeliveryRepository.class);
+
+        when(presenceRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<ChatPresenceDo> rows = invocation.getArgument(0);
+            rows.forEach(presenceRows::add);
+            return toList(rows);
+        });
+        when(presenceRepository.deleteByNodeAndUsers(anyString(), anyCollection())).thenAnswer(invocation -> {
+            String nodeId = invocation.getArgument(0);
+            Collection<Long> userIds = invocation.getArgument(1);
+            return count(presenceRows.removeIf(row -> row.getNodeId().equals(nodeId) &&
+                    userIds.contains(row.getUserId())));
+        });
+        when(presenceRepository.deleteByNode(anyString())).thenAnswer(invocation -> {
+            String nodeId = invocation.getArgument(0);
+            return count(presenceRows.removeIf(row -> row.getNodeId().equals(nodeId)));
+        });
+        when(presenceRepository.touchNode(anyString(), any())).thenAnswer(invocation -> {
+            String nodeId = invocation.getArgument(0);
+            OffsetDateTime time = invocation.getArgument(1);
+            presenceRows.stream()
+                    .filter(row -> row.getNodeId().equals(nodeId))
+                    .forEach(row -> row.setUpdateTime(time));
+            return 0;
+        });
+        when(presenceRepository.deleteBefore(any())).thenAnswer(invocation -> {
+            OffsetDateTime time = invocation.getArgument(0);
+            return count(presenceRows.removeIf(row -> row.getUpdateTime().isBefore(time)));
+        });
+        when(presenceRepository.findExcludeNode(anyString())).thenAnswer(invocation -> {
+            String nodeId = invocation.getArgument(0);
+            return presenceRows.stream()
+                    .filter(row -> !row.getNodeId().equals(nodeId))
+                    .toList();
+        });
+        when(presenceRepository.findCreatedSinceExcludeNode(any(), anyString())).thenAnswer(invocation -> {
+            OffsetDateTime time = invocation.getArgument(0);
+            String nodeId = invocation.getArgument(1);
+            return presenceRows.stream()
+                    .filter(row -> !row.getNodeId().equals(nodeId))
+                    .filter(row -> !row.getCreateTime().isBefore(time))
+                    .toList();
+        });
+
+        when(deliveryRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<ChatDeliveryDo> rows = invocation.getArgument(0);
+            rows.forEach(deliveryRows::add);
+            return toList(rows);
+        });
+        when(deliveryRepository.findByNodeId(anyString(), anyInt())).thenAnswer(invocation -> {
+            String nodeId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return deliveryRows.stream()
+                    .filter(row -> row.getNodeId().equals(nodeId))
+                    .limit(limit)
+                    .toList();
+        });
+        doAnswer(invocation -> {
+            Iterable<ChatDeliveryDo> rows = invocation.getArgument(0);
+            rows.forEach(deliveryRows::remove);
+            return null;
+        }).when(deliveryRepository).deleteAllInBatch(anyIterable());
+    }
+
+    @Test
+    void localReceiversAreNotWrittenForOwnNode() {
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        DatabaseChatDeliveryBus node = newNode(publisher);
+        node.online(LOCAL_USER);
+        node.poll();
+
+        node.deliver(message, new long[]{LOCAL_USER});
+
+        assertEquals(1, presenceRows.size());
+        assertTrue(deliveryRows.isEmpty());
+        assertArrayEquals(new long[]{LOCAL_USER}, deliveredTo(publisher).getReceiverIds());
+    }
+
+    @Test
+    void messagesForOtherNodesArePolledByThem() {
+        ApplicationEventPublisher publisherA = mock(ApplicationEventPublisher.class);
+        ApplicationEventPublisher publisherB = mock(ApplicationEventPublisher.class);
+        DatabaseChatDeliveryBus nodeA = newNode(publisherA);
+        DatabaseChatDeliveryBus nodeB = newNode(publisherB);
+        nodeA.online(LOCAL_USER);
+        nodeA.poll();
+        // connected to node B after node A loaded the presence.
+        nodeB.online(REMOTE_USER);
+        nodeB.poll();
+        nodeA.poll();
+
+        nodeA.deliver(message, new long[]{LOCAL_USER, REMOTE_USER});
+
+        assertArrayEquals(new long[]{LOCAL_USER}, deliveredTo(publisherA).getReceiverIds());
+        assertEquals(1, deliveryRows.size());
+        assertEquals(nodeB.getNodeId(), deliveryRows.get(0).getNodeId());
+
+        nodeB.poll();
+
+        OnChatMessageDeliverEvent event = deliveredTo(publisherB);
+        assertArrayEquals(new long[]{REMOTE_USER}, event.getReceiverIds());
+        assertEquals(message.getContent().getContent(), event.getMessage().getContent().getContent());
+        assertTrue(deliveryRows.isEmpty());
+    }
+
+    @Test
+    void deliveringDoesNotQueryPresence() {
+        DatabaseChatDeliveryBus nodeA = newNode(mock(ApplicationEventPublisher.class));
+        DatabaseChatDeliveryBus nodeB = newNode(mock(ApplicationEventPublisher.class));
+        nodeB.online(REMOTE_USER);
+        nodeB.poll();
+        nodeA.poll();
+        clearInvocations(presenceRepository);
+
+        nodeA.deliver(message, new long[]{REMOTE_USER});
+        nodeA.deliver(message, new long[]{REMOTE_USER});
+
+        verifyNoInteractions(presenceRepository);
+        assertEquals(2, deliveryRows.size());
+    }
+
+    @Test
+    void usersLeftOtherNodesAreDroppedOnRefresh() {
+        DatabaseChatDeliveryBus nodeA = newNode(mock(ApplicationEventPublisher.class));
+        DatabaseChatDeliveryBus nodeB = newNode(mock(ApplicationEventPublisher.class));
+        nodeB.online(REMOTE_USER);
+        nodeB.poll();
+        nodeA.poll();
+
+        nodeB.offline(REMOTE_USER);
+        nodeB.poll();
+        nodeA.refresh();
+        nodeA.deliver(message, new long[]{REMOTE_USER});
+
+        assertTrue(presenceRows.isEmpty());
+        assertTrue(deliveryRows.isEmpty());
+    }
+
+    @Test
+    void staleNodesAreRemovedOnRefresh() {
+        DatabaseChatDeliveryBus nodeA = newNode(mock(ApplicationEventPublisher.class));
+        DatabaseChatDeliveryBus nodeB = newNode(mock(ApplicationEventPublisher.class));
+        nodeA.online(LOCAL_USER);
+        nodeB.online(REMOTE_USER);
+        nodeA.poll();
+        nodeB.poll();
+        nodeA.poll();
+
+        // node B stops refreshing its presence.
+        OffsetDateTime now = OffsetDateTime.now();
+        presenceRows.stream()
+                .filter(row -> row.getNodeId().equals(nodeB.getNodeId()))
+                .forEach(row -> row.setUpdateTime(now.minusMinutes(3)));
+        nodeA.refresh();
+        nodeA.deliver(message, new long[]{REMOTE_USER});
+
+        assertEquals(1, presenceRows.size());
+        assertEquals(nodeA.getNodeId(), presenceRows.get(0).getNodeId());
+        assertTrue(deliveryRows.isEmpty());
+        verify(deliveryRepository).deleteBefore(argThat(time ->
+                time.isBefore(now.minusMinutes(1)) && time.isAfter(now.minusMinutes(3))));
+    }
+
+    @Test
+    void presenceIsRemovedOnDestroy() {
+        DatabaseChatDeliveryBus node = newNode(mock(ApplicationEventPublisher.class));
+        node.online(LOCAL_USER);
+        node.poll();
+
+        node.destroy();
+
+        assertTrue(presenceRows.isEmpty());
+    }
+
+    private DatabaseChatDeliveryBus newNode(ApplicationEventPublisher publisher) {
+        return new DatabaseChatDeliveryBus(publisher, presenceRepository, deliveryRepository);
+    }
+
+    private static OnChatMessageDeliverEvent deliveredTo(ApplicationEventPublisher publisher) {
+        ArgumentCaptor<ApplicationEvent> captor = ArgumentCaptor.forClass(ApplicationEvent.class);
+        verify(publisher).publishEvent(captor.capture());
+        return (OnChatMessageDeliverEvent) captor.getValue();
+    }
+
+    private static <T> List<T> toList(Iterable<T> rows) {
+        List<T> list = new ArrayList<>();
+        rows.forEach(list::add);
+        return list;
+    }
+
+    private static int count(boolean removed) {
+        return removed ? 1 : 0;
+    }
+}
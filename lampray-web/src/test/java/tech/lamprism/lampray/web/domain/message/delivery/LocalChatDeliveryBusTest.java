@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2023 RollW
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.lamprism.lampray.web.domain.message.delivery;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import tech.lamprism.lampray.web.domain.message.ChatType;
+import tech.lamprism.lampray.web.domain.message.MessageContent;
+import tech.lamprism.lampray.web.domain.message.SimpleTransferredMessage;
+import tech.lamprism.lampray.web.domain.message.TransferredMessage;
+import tech.lamprism.lampray.web.domain.message.event.OnChatMessageDeliverEvent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * @author RollW
+ */
+class LocalChatDeliveryBusTest {
+    private final TransferredMessage message = new SimpleTransferredMessage(
+            1L, 2L, ChatType.USER, MessageContent.of("hello"));
+
+    @Test
+    void deliversToAllReceivers() {
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        LocalChatDeliveryBus bus = new LocalChatDeliveryBus(publisher);
+
+        bus.deliver(message, new long[]{2L, 3L});
+
+        ArgumentCaptor<ApplicationEvent> captor = ArgumentCaptor.forClass(ApplicationEvent.class);
+        verify(publisher).publishEvent(captor.capture());
+        OnChatMessageDeliverEvent event = (OnChatMessageDeliverEvent) captor.getValue();
+        assertSame(message, event.getMessage());
+        assertArrayEquals(new long[]{2L, 3L}, event.getReceiverIds());
+    }
+
+    @Test
+    void skipsMessagesWithoutReceivers() {
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        LocalChatDeliveryBus bus = new LocalChatDeliveryBus(publisher);
+
+        bus.deliver(message, new long[0]);
+
+        verifyNoInteractions(publisher);
+    }
+}